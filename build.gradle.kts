@@ -1,6 +1,7 @@
 // Указываем плагины, которые будут использоваться в проекте
 plugins {
     id("java") // Плагин для поддержки Java, необходим для компиляции и выполнения Java-кода
+    id("me.champeau.jmh") version "0.7.2" // Плагин JMH: набор исходников src/jmh/java и задача jmh для тестов производительности
 }
 
 // Установка группы и версии проекта
@@ -16,19 +17,15 @@ java {
 // Определение репозиториев для зависимостей
 repositories {
     mavenCentral() // Основной репозиторий Maven Central для скачивания библиотек
-    maven { url = uri("https://packages.atlassian.com/maven-public/") } // Репозиторий Atlassian для специфических библиотек
 }
 
 // Определение зависимостей проекта
 dependencies {
-    // --- Блок зависимостей для работы с Jira REST API ---
-    implementation("com.atlassian.jira:jira-rest-java-client-api:5.2.7") // Основной API клиент для Jira
-    implementation("com.atlassian.jira:jira-rest-java-client-core:5.2.7") // Ядро клиента для работы с Jira
-    implementation("io.atlassian.fugue:fugue:4.7.2") // Поддержка функциональных коллекций Atlassian
-
     // --- Блок зависимостей для работы с HTTP ---
-    implementation("org.glassfish.jersey.core:jersey-client:2.35") // Асинхронный HTTP-клиент Jersey для взаимодействия с Jira API
-    implementation("org.glassfish.jersey.core:jersey-common:2.35") // Общие библиотеки для Jersey
+    implementation("org.apache.httpcomponents:httpclient:4.5.14") // Пул keep-alive соединений для запросов REST и выгрузки XML
+
+    // --- Блок зависимостей для работы с JSON ---
+    implementation("com.fasterxml.jackson.core:jackson-core:2.17.2") // Потоковый парсер JSON для легких запросов
 
     // --- Блок зависимостей для логирования ---
     implementation("org.slf4j:slf4j-api:1.7.32") // API для логирования
@@ -44,6 +41,17 @@ dependencies {
     testImplementation("org.mockito:mockito-junit-jupiter:5.4.0") // Интеграция Mockito с JUnit 5
 }
 
+// --- Настройка тестов производительности JMH ---
+// Запуск: gradle jmh; отдельный тест: gradle jmh -Pjmh.includes=JiraFetchBenchmark.downloadXml
+jmh {
+    jmhVersion.set("1.37") // Версия JMH
+    warmupIterations.set(2) // Количество прогревочных итераций
+    iterations.set(5) // Количество измерительных итераций
+    fork.set(1) // Количество отдельных JVM для запуска
+    findProperty("jmh.includes")?.let { includes.set(listOf(it.toString())) } // Фильтр тестов по имени
+    resultFormat.set("JSON") // Формат файла результатов build/results/jmh/results.json для сравнения запусков
+}
+
 // Настройка тестирования
 tasks.withType<Test> {
     useJUnitPlatform() // Устанавливаем платформу JUnit 5 для запуска тестов
@@ -72,3 +80,34 @@ tasks.withType<Jar> {
         include("**/*.properties") // Включаем конфигурационные файлы .properties в JAR, если они необходимы для работы приложения
     }
 }
+
+// --- Архив AppCDS для быстрого запуска ---
+// Создание: gradle generateCdsArchive. Пробный запуск выполняет Main с текущим config.properties, но с легким
+// способом загрузки -Djira.backend=jdk, и записывает загруженные классы в build/cds/jira.jsa. Запуск с архивом
+// из каталога проекта (путь к классам должен совпадать):
+// java -XX:SharedArchiveFile=build/cds/jira.jsa -Djira.backend=jdk -cp "build/cds/lib/*" org.JiraApiClient.Main
+val cdsLibs = tasks.register<Sync>("cdsLibs") {
+    group = "distribution"
+    description = "Копирует JAR приложения и зависимости в build/cds/lib"
+    from(tasks.jar) // JAR приложения; AppCDS архивирует классы только из JAR, но не из каталогов
+    from(configurations.runtimeClasspath) // Зависимости времени выполнения
+    into(layout.buildDirectory.dir("cds/lib"))
+}
+
+tasks.register<Exec>("generateCdsArchive") {
+    group = "distribution"
+    description = "Создает архив AppCDS build/cds/jira.jsa по пробному запуску приложения"
+    dependsOn(cdsLibs)
+    val archive = layout.buildDirectory.file("cds/jira.jsa")
+    outputs.file(archive)
+    workingDir = projectDir // Конфигурация читается из src/main/resources/config.properties относительно каталога запуска
+    isIgnoreExitValue = true // Архив записывается при выходе JVM, даже если пробный запрос к Jira завершился ошибкой
+    commandLine(
+        File(System.getProperty("java.home"), "bin/java").path,
+        "-XX:ArchiveClassesAtExit=${archive.get().asFile.relativeTo(projectDir).path}",
+        "-Dfile.encoding=UTF-8",
+        "-Djira.backend=jdk", // Архив записывает классы легкого пути запуска JdkHttpIssueBackend, а не Apache HttpClient
+        "-cp", "build/cds/lib/*",
+        "org.JiraApiClient.Main"
+    )
+}
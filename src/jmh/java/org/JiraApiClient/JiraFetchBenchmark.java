@@ -0,0 +1,202 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Тесты производительности загрузки данных из Jira на локальном сервере-заглушке.
+ * <p>
+ * Измеряются загрузка одной задачи с сохранением в хранилище результатов, перепроверка задачи из кэша,
+ * загрузка выбранных полей задачи, загрузка XML-выгрузки, выгрузка по JQL конвейером и пакетная выгрузка
+ * выбранных полей, атомарная запись файла и запись задачи в хранилище NDJSON.
+ * Задержка ответа, размер полезной нагрузки и размер пула соединений задаются параметрами, что позволяет
+ * сравнивать настройки клиента и пула без доступа к сети.
+ * </p>
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JiraFetchBenchmark {
+
+    /** Искусственная задержка ответа сервера, мс. */
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    /** Размер полезной нагрузки задачи, байт. */
+    @Param({"4096", "262144"})
+    public int payloadBytes;
+
+    /** Размер общего пула HTTP-соединений. */
+    @Param({"20"})
+    public int maxConnections;
+
+    /** Количество задач, возвращаемых поиском при пакетной выгрузке. */
+    @Param({"500"})
+    public int totalIssues;
+
+    /** Поля, загружаемые в тестах с выбором полей. */
+    private static final List<String> PROJECTED_FIELDS = List.of("summary", "status", "updated");
+
+    /** Количество задач, записываемых в хранилище NDJSON между сбросами на диск. */
+    private static final int NDJSON_BATCH = 512;
+
+    private StubJiraServer server;
+    private JiraConnect jiraConnect;
+    private JiraDataFetcher dataFetcher;
+    private JiraDataFetcher cachedFetcher;
+    private Path workDir;
+    private byte[] payload;
+    private NdjsonSegmentSink ndjsonSink;
+    private IssueRecord record;
+    private long sequence;
+    private IssueProjection projection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubJiraServer(latencyMillis, payloadBytes, totalIssues);
+        workDir = Files.createTempDirectory("jira-bench");
+
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setProperty("jira.url", server.getUrl());
+        config.setProperty("jira.username", "bench");
+        config.setProperty("jira.api.token", "bench");
+        config.setProperty("jira.http.maxConnections", maxConnections);
+        config.setProperty("jira.http.maxConnectionsPerRoute", maxConnections);
+        config.setProperty("jira.bulk.pageSize", 50);
+        config.setProperty("jira.cache.enabled", false);
+        // Результаты выгрузки не должны попадать в рабочий каталог
+        config.setProperty("jira.output.dir", workDir.resolve("out").toString());
+        // Регулятор не должен ограничивать локальные измерения
+        config.setProperty("jira.rate.requestsPerSecond", 1_000_000);
+        config.setProperty("jira.rate.burst", 1_000_000);
+        config.setProperty("jira.rate.initialConcurrency", 256);
+        config.setProperty("jira.rate.maxConcurrency", 256);
+        // Сводка конвейера не должна выводиться во время измерений
+        config.setProperty("jira.pipeline.reportSeconds", 0);
+        jiraConnect = new JiraConnect(config);
+        dataFetcher = new JiraDataFetcher(jiraConnect);
+
+        // Кэш с нулевым временем жизни: каждое обращение перепроверяет задачу легким запросом
+        PropertiesConfiguration cachedConfig = new PropertiesConfiguration();
+        cachedConfig.copy(config);
+        cachedConfig.setProperty("jira.cache.enabled", true);
+        cachedConfig.setProperty("jira.cache.dir", workDir.resolve("cache").toString());
+        cachedConfig.setProperty("jira.cache.ttlSeconds", 0);
+        cachedFetcher = new JiraDataFetcher(new JiraConnect(cachedConfig));
+        projection = new IssueProjection(dataFetcher.getClientHolder(), PROJECTED_FIELDS);
+        payload = new byte[payloadBytes];
+        ndjsonSink = new NdjsonSegmentSink(workDir.resolve("ndjson"), 64L << 20, NdjsonSegmentSink.Compression.NONE, NDJSON_BATCH);
+        record = IssueRecord.ofSummary(StubJiraServer.PROJECT + "-1", 0, "x".repeat(Math.min(payloadBytes, 4096)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataFetcher.close();
+        cachedFetcher.close();
+        ndjsonSink.close();
+        server.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Загрузка одной задачи с сохранением полей и XML-выгрузки в хранилище результатов, как при запуске клиента.
+     */
+    @Benchmark
+    public void fetchIssueData() {
+        dataFetcher.fetchIssueData(StubJiraServer.PROJECT + "-1");
+    }
+
+    /**
+     * Получение задачи через кэш: каждое обращение перепроверяет задачу запросом <code>fields=updated</code>,
+     * поля повторно не загружаются; сравнивается с {@link #fetchIssueProjected()}.
+     */
+    @Benchmark
+    public IssueCache.CachedIssue getIssueRevalidated() throws IOException, URISyntaxException {
+        return cachedFetcher.getIssue(StubJiraServer.PROJECT + "-1");
+    }
+
+    /**
+     * Загрузка выбранных полей одной задачи с потоковым разбором JSON, без записи в хранилище;
+     * сравнивается с {@link #fetchIssueData()}.
+     */
+    @Benchmark
+    public IssueRecord fetchIssueProjected() throws IOException, URISyntaxException {
+        return projection.fetch(StubJiraServer.PROJECT + "-1");
+    }
+
+    /**
+     * Потоковая загрузка XML-выгрузки задачи на диск.
+     */
+    @Benchmark
+    public long downloadXml() throws IOException, URISyntaxException {
+        return dataFetcher.downloadIssueXml(StubJiraServer.PROJECT + "-1", workDir.resolve("issue.xml"));
+    }
+
+    /**
+     * Выгрузка всех задач по запросу JQL конвейером: поиск, XML-выгрузки и запись в хранилище результатов.
+     */
+    @Benchmark
+    public ExportPipeline.PipelineResult exportPipeline() {
+        return new ExportPipeline(jiraConnect, dataFetcher).exportJql("project = " + StubJiraServer.PROJECT);
+    }
+
+    /**
+     * Пакетная выгрузка выбранных полей всех задач без XML-выгрузок и записи;
+     * сравнивается с {@link #exportPipeline()}.
+     */
+    @Benchmark
+    public JiraBulkExporter.ExportStats bulkExportProjected(Blackhole blackhole) {
+        return new JiraBulkExporter(jiraConnect, dataFetcher.getClientHolder())
+                .exportRecords("project = " + StubJiraServer.PROJECT, PROJECTED_FIELDS, blackhole::consume);
+    }
+
+    /**
+     * Атомарная запись файла размером с полезную нагрузку.
+     */
+    @Benchmark
+    public void writeFile() throws IOException {
+        AtomicFiles.write(workDir.resolve("issue.txt"), payload);
+    }
+
+    /**
+     * Запись задачи в хранилище NDJSON с групповой фиксацией; сравнивается с {@link #writeFile()}.
+     * <p>
+     * Каждый вызов записывает пакет задач и сбрасывает хранилище на диск, поэтому время одной операции
+     * включает ее долю сброса, а не только постановку записи в очередь.
+     * </p>
+     */
+    @Benchmark
+    @OperationsPerInvocation(NDJSON_BATCH)
+    public void writeNdjson() throws IOException {
+        for (int i = 0; i < NDJSON_BATCH; i++) {
+            ndjsonSink.write(new IssueRecord(record.key(), sequence++, record.fields()));
+        }
+        ndjsonSink.flush();
+    }
+}
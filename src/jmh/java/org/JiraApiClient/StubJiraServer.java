@@ -0,0 +1,207 @@
+package org.JiraApiClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальный сервер-заглушка Jira для тестов производительности.
+ * <p>
+ * Отдает заранее подготовленные ответы REST API (сессия, задача, поиск) и XML-выгрузки задач
+ * с настраиваемой задержкой и размером полезной нагрузки, поэтому тесты не требуют доступа к сети.
+ * </p>
+ *
+ * <p><b>Обрабатываемые пути:</b></p>
+ * <ul>
+ *   <li><code>/rest/auth/1/session</code> — текущая сессия;</li>
+ *   <li><code>/rest/api/2/issue/&lt;ключ&gt;</code> — задача;</li>
+ *   <li><code>/rest/api/2/search</code> — страница результатов поиска с параметрами <code>startAt</code> и <code>maxResults</code>;</li>
+ *   <li>параметр <code>fields</code> поиска и задачи ограничивает набор полей в ответе, как в Jira;</li>
+ *   <li><code>/si/jira.issueviews:issue-xml/...</code> — XML-выгрузка задачи.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class StubJiraServer implements AutoCloseable {
+
+    /** Ключ проекта, задачи которого отдает заглушка. */
+    public static final String PROJECT = "BENCH";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final int totalIssues;
+    private final int payloadBytes;
+    private final byte[] xmlExport;
+
+    /**
+     * Запускает сервер-заглушку на свободном локальном порту.
+     *
+     * @param latencyMillis искусственная задержка каждого ответа, мс
+     * @param payloadBytes  примерный размер описания задачи и XML-выгрузки, байт
+     * @param totalIssues   количество задач, возвращаемых поиском
+     * @throws IOException если не удалось открыть порт
+     */
+    public StubJiraServer(long latencyMillis, int payloadBytes, int totalIssues) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.payloadBytes = payloadBytes;
+        this.totalIssues = totalIssues;
+        this.xmlExport = buildXmlExport(payloadBytes);
+        // Без TCP_NODELAY заголовки и тело ответа уходят отдельными пакетами, и алгоритм Нейгла вместе
+        // с отложенным подтверждением добавляет к каждому ответу десятки миллисекунд
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/rest/auth/1/session", exchange -> respond(exchange, "application/json", sessionJson()));
+        server.createContext("/rest/api/2/issue/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String key = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, "application/json", ("{" + namesAndSchema() + ","
+                    + issueJson(key, fieldsParam(exchange.getRequestURI())).substring(1)).getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/rest/api/2/search", exchange -> respond(exchange, "application/json", searchJson(exchange.getRequestURI())));
+        server.createContext("/si/jira.issueviews:issue-xml/", exchange -> respond(exchange, "application/xml", xmlExport));
+        server.start();
+    }
+
+    /**
+     * Возвращает базовый URL сервера-заглушки.
+     *
+     * @return URL вида <code>http://127.0.0.1:&lt;порт&gt;</code>
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try (exchange) {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType + ";charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] sessionJson() {
+        return ("{\"self\":\"" + getUrl() + "/rest/api/2/user?username=bench\",\"name\":\"bench\","
+                + "\"loginInfo\":{\"failedLoginCount\":0,\"loginCount\":1,"
+                + "\"lastFailedLoginTime\":\"2024-01-01T00:00:00.000+0000\","
+                + "\"previousLoginTime\":\"2024-01-01T00:00:00.000+0000\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] searchJson(URI uri) {
+        int startAt = intParam(uri, "startAt", 0);
+        int maxResults = intParam(uri, "maxResults", 50);
+        Set<String> fields = fieldsParam(uri);
+        StringBuilder json = new StringBuilder("{\"expand\":\"names,schema\",\"startAt\":").append(startAt)
+                .append(",\"maxResults\":").append(maxResults)
+                .append(",\"total\":").append(totalIssues)
+                .append(',').append(namesAndSchema())
+                .append(",\"issues\":[");
+        for (int i = startAt; i < Math.min(totalIssues, startAt + maxResults); i++) {
+            if (i > startAt) {
+                json.append(',');
+            }
+            json.append(issueJson(PROJECT + "-" + (i + 1), fields));
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int intParam(URI uri, String name, int defaultValue) {
+        String value = param(uri, name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * Возвращает набор запрошенных полей или <code>null</code>, если запрошены все поля.
+     */
+    private static Set<String> fieldsParam(URI uri) {
+        String value = param(uri, "fields");
+        return value != null ? Set.of(value.split(",")) : null;
+    }
+
+    private static String param(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String namesAndSchema() {
+        return "\"names\":{\"summary\":\"Summary\",\"description\":\"Description\",\"updated\":\"Updated\","
+                + "\"created\":\"Created\",\"status\":\"Status\",\"issuetype\":\"Issue Type\",\"project\":\"Project\"},"
+                + "\"schema\":{\"summary\":{\"type\":\"string\",\"system\":\"summary\"},"
+                + "\"description\":{\"type\":\"string\",\"system\":\"description\"},"
+                + "\"updated\":{\"type\":\"datetime\",\"system\":\"updated\"},"
+                + "\"created\":{\"type\":\"datetime\",\"system\":\"created\"},"
+                + "\"status\":{\"type\":\"status\",\"system\":\"status\"},"
+                + "\"issuetype\":{\"type\":\"issuetype\",\"system\":\"issuetype\"},"
+                + "\"project\":{\"type\":\"project\",\"system\":\"project\"}}";
+    }
+
+    private String issueJson(String key, Set<String> fields) {
+        String base = getUrl() + "/rest/api/2/";
+        int id = 10000 + Math.abs(key.hashCode() % 10000);
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("summary", "\"Benchmark issue " + key + "\"");
+        values.put("description", "\"" + "x".repeat(Math.max(0, payloadBytes)) + "\"");
+        values.put("created", "\"2024-01-01T00:00:00.000+0000\"");
+        values.put("updated", "\"2024-01-02T00:00:00.000+0000\"");
+        values.put("issuetype", "{\"self\":\"" + base + "issuetype/1\",\"id\":\"1\",\"name\":\"Task\",\"subtask\":false,"
+                + "\"description\":\"Task\",\"iconUrl\":\"" + base + "task.png\"}");
+        values.put("project", "{\"self\":\"" + base + "project/1\",\"id\":\"1\",\"key\":\"" + PROJECT + "\",\"name\":\"Bench\"}");
+        values.put("status", "{\"self\":\"" + base + "status/1\",\"id\":\"1\",\"name\":\"Open\","
+                + "\"description\":\"Open\",\"iconUrl\":\"" + base + "open.png\"}");
+        StringBuilder json = new StringBuilder("{\"expand\":\"names,schema\",\"id\":\"").append(id)
+                .append("\",\"self\":\"").append(base).append("issue/").append(id)
+                .append("\",\"key\":\"").append(key).append("\",\"fields\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> field : values.entrySet()) {
+            if (fields == null || fields.contains(field.getKey())) {
+                json.append(first ? "" : ",").append('"').append(field.getKey()).append("\":").append(field.getValue());
+                first = false;
+            }
+        }
+        return json.append("}}").toString();
+    }
+
+    private static byte[] buildXmlExport(int payloadBytes) {
+        String body = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"0.92\">\n<channel>\n<item>\n"
+                + "<key>" + PROJECT + "-1</key>\n<summary>Benchmark issue</summary>\n<description>"
+                + "x".repeat(Math.max(0, payloadBytes)) + "</description>\n</item>\n</channel>\n</rss>\n";
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Останавливает сервер.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+}
@@ -0,0 +1,162 @@
+package org.JiraApiClient;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Адаптивный ограничитель количества одновременных запросов по схеме AIMD
+ * (additive increase, multiplicative decrease).
+ * <p>
+ * После каждого успешного запроса предел увеличивается на <code>1 / предел</code>, то есть примерно на единицу
+ * за каждый «раунд» запросов. При сигнале перегрузки (429, 503 или признак близости к лимиту) предел
+ * уменьшается вдвое. Так ограничитель сам находит наибольшую устойчивую степень параллелизма,
+ * которую выдерживает сервер.
+ * </p>
+ * <p>
+ * Одна перегрузка обычно приводит к нескольким отказам подряд у параллельных запросов, поэтому после уменьшения
+ * следующее уменьшение возможно не раньше чем через заданный интервал.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class AimdConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long decreaseIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    /** Текущий предел; дробная часть накапливает аддитивные приращения. */
+    private double limit;
+
+    /** Количество выполняющихся запросов. */
+    private int inFlight;
+
+    /** Момент последнего уменьшения предела, нс. */
+    private long decreasedAt;
+
+    /**
+     * Конструктор класса AimdConcurrencyLimiter.
+     *
+     * @param initialLimit           начальный предел
+     * @param minLimit               минимальный предел
+     * @param maxLimit               максимальный предел
+     * @param decreaseIntervalMillis минимальный интервал между уменьшениями предела, мс
+     */
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long decreaseIntervalMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.decreaseIntervalNanos = decreaseIntervalMillis * 1_000_000L;
+        this.decreasedAt = System.nanoTime() - decreaseIntervalNanos;
+    }
+
+    /**
+     * Ожидает, пока количество выполняющихся запросов станет меньше текущего предела, и занимает слот.
+     *
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает слот после успешного запроса и увеличивает предел.
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает слот после сигнала перегрузки и уменьшает предел вдвое.
+     */
+    public void onThrottle() {
+        lock.lock();
+        try {
+            decrease();
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Уменьшает предел вдвое, не освобождая слот. Используется, когда сервер сообщает о близости к лимиту
+     * в успешном ответе.
+     */
+    public void onNearLimit() {
+        lock.lock();
+        try {
+            decrease();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        if (now - decreasedAt >= decreaseIntervalNanos) {
+            limit = Math.max(minLimit, limit / 2);
+            decreasedAt = now;
+        }
+    }
+
+    /**
+     * Освобождает слот, не меняя предел (например, после ошибки, не связанной с перегрузкой).
+     */
+    public void onIgnore() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        released.signalAll();
+    }
+
+    /**
+     * Возвращает текущий предел одновременных запросов.
+     *
+     * @return предел
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество выполняющихся запросов.
+     *
+     * @return количество запросов
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.JiraApiClient;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Загрузка задач через общий держатель клиентов {@link JiraClientHolder}.
+ * <p>
+ * Поля задачи загружаются {@link IssueProjection}, XML-выгрузка — через общий пул keep-alive соединений
+ * Apache HttpClient.
+ * Перед первым запросом сессия проверяется один раз ({@link JiraClientHolder#ensureSession()}), а после ответа 401
+ * проверяется заново. Все запросы проходят через регулятор частоты держателя клиентов.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class ApacheIssueBackend implements IssueBackend {
+    private final JiraClientHolder clientHolder;
+    private final IssueProjection projection;
+    private final boolean ownsClientHolder;
+
+    /**
+     * Конструктор класса ApacheIssueBackend, создающий собственный держатель клиентов.
+     * Держатель клиентов закрывается вместе с экземпляром.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     */
+    public ApacheIssueBackend(JiraConnect jiraConnect) {
+        this(new JiraClientHolder(jiraConnect), jiraConnect, true);
+    }
+
+    private ApacheIssueBackend(JiraClientHolder clientHolder, JiraConnect jiraConnect, boolean ownsClientHolder) {
+        this(clientHolder, new IssueProjection(clientHolder, jiraConnect.getIssueFields()), ownsClientHolder);
+    }
+
+    /**
+     * Конструктор класса ApacheIssueBackend, использующий общий держатель клиентов.
+     *
+     * @param clientHolder     держатель клиентов Jira
+     * @param projection       загрузка выбранных полей задачи
+     * @param ownsClientHolder закрывать ли держатель клиентов вместе с экземпляром
+     */
+    ApacheIssueBackend(JiraClientHolder clientHolder, IssueProjection projection, boolean ownsClientHolder) {
+        this.clientHolder = clientHolder;
+        this.projection = projection;
+        this.ownsClientHolder = ownsClientHolder;
+    }
+
+    @Override
+    public IssueRecord fetchIssue(String issueKey) throws IOException {
+        try {
+            return projection.fetch(issueKey);
+        } catch (URISyntaxException e) {
+            throw new IOException("Некорректный URL задачи: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Загружает XML-выгрузку задачи и потоково записывает ее в файл.
+     * <p>
+     * Тело ответа переносится на диск через канал NIO блоками фиксированного размера, поэтому расход памяти
+     * не зависит от размера выгрузки. Сжатие gzip запрашивается и распаковывается HTTP-клиентом прозрачно,
+     * содержимое сохраняется байт в байт. Запись атомарна: файл появляется только после полной загрузки.
+     * Если задан обработчик, документ разбирается по мере загрузки.
+     * </p>
+     */
+    @Override
+    public long downloadIssueXml(String issueKey, Path target, Consumer<IssueXmlEntry> entries) throws IOException {
+        HttpGet request = new HttpGet(IssueBackend.xmlUri(clientHolder.getServerUri(), issueKey));
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        try (CloseableHttpResponse response = clientHolder.executeTransfer(JiraMetrics.Endpoint.ISSUE_XML, request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != 200) {
+                // Тело ответа дочитывается, чтобы соединение вернулось в пул
+                EntityUtils.consume(response.getEntity());
+                throw new JiraHttpException(statusCode);
+            }
+            try (InputStream in = response.getEntity().getContent()) {
+                long written = IssueXmlExtractor.saveAndExtract(target, in, entries);
+                JiraMetrics.getInstance().recordBytesDownloaded(written);
+                return written;
+            }
+        }
+    }
+
+    /**
+     * Закрывает держатель клиентов, если он был создан этим экземпляром.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsClientHolder) {
+            clientHolder.close();
+        }
+    }
+}
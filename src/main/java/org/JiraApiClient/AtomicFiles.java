@@ -0,0 +1,155 @@
+package org.JiraApiClient;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Вспомогательный класс для атомарной записи файлов.
+ * <p>
+ * Данные сначала записываются во временный файл в том же каталоге, сбрасываются на диск
+ * и только затем переименовываются в целевой файл. Поэтому читатель никогда не увидит
+ * частично записанный файл, а после успешного возврата из метода данные уже находятся на диске.
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class AtomicFiles {
+
+    /** Максимальный объем данных, переносимый за одну операцию канала. */
+    private static final long TRANSFER_CHUNK = 1 << 20;
+
+    /** Размер буфера записи для {@link #write(Path, ContentWriter)}. */
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Запись содержимого файла в выходной поток.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Записывает содержимое файла.
+         *
+         * @param out выходной поток временного файла; закрывается вызывающим кодом
+         * @throws IOException при ошибке записи; файл в этом случае не создается
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Потоково записывает содержимое входного потока в файл без промежуточной буферизации всего содержимого в памяти.
+     *
+     * @param target целевой файл
+     * @param in     входной поток; не закрывается этим методом
+     * @return количество записанных байт
+     * @throws IOException при ошибке чтения или записи
+     */
+    public static long write(Path target, InputStream in) throws IOException {
+        long startNanos = System.nanoTime();
+        Path temp = createTemp(target);
+        try {
+            long position = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(in);
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+                channel.force(true);
+            }
+            moveIntoPlace(temp, target);
+            JiraMetrics.getInstance().recordFileWrite(System.nanoTime() - startNanos, position);
+            return position;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Атомарно записывает в файл содержимое, формируемое вызывающим кодом.
+     * <p>Используется, когда данные записываются по мере их обработки, например при разборе загружаемого ответа.</p>
+     *
+     * @param target целевой файл
+     * @param writer запись содержимого
+     * @return количество записанных байт
+     * @throws IOException при ошибке записи или если ее сообщил <code>writer</code>
+     */
+    public static long write(Path target, ContentWriter writer) throws IOException {
+        long startNanos = System.nanoTime();
+        Path temp = createTemp(target);
+        try {
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER);
+                writer.writeTo(out);
+                out.flush();
+                size = channel.position();
+                channel.force(true);
+            }
+            moveIntoPlace(temp, target);
+            JiraMetrics.getInstance().recordFileWrite(System.nanoTime() - startNanos, size);
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Атомарно записывает массив байт в файл.
+     *
+     * @param target целевой файл
+     * @param data   данные для записи
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Path target, byte[] data) throws IOException {
+        long startNanos = System.nanoTime();
+        Path temp = createTemp(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            moveIntoPlace(temp, target);
+            JiraMetrics.getInstance().recordFileWrite(System.nanoTime() - startNanos, data.length);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Создает временный файл рядом с целевым, чтобы переименование оставалось в пределах одной файловой системы.
+     */
+    private static Path createTemp(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+    }
+
+    /**
+     * Переименовывает временный файл в целевой, по возможности атомарно.
+     */
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
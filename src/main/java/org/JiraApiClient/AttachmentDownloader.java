@@ -0,0 +1,619 @@
+package org.JiraApiClient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Загрузка вложений задач с возобновлением и дедупликацией.
+ * <p>
+ * Вложения берутся из сведений, извлекаемых из XML-выгрузок ({@link IssueXmlEntry.Attachment}), и сохраняются
+ * в файлы <code>&lt;каталог&gt;/&lt;ключ задачи&gt;/&lt;id&gt;_&lt;имя&gt;</code>.
+ * </p>
+ *
+ * <p><b>Особенности:</b></p>
+ * <ul>
+ *   <li>Большие файлы загружаются параллельно частями по <code>partSizeBytes</code> байт запросами с заголовком
+ *   <code>Range</code>. Если сервер не поддерживает диапазоны, файл загружается одним запросом.</li>
+ *   <li>Частично загруженный файл и файл состояния (<code>.partial/&lt;id&gt;.part</code> и
+ *   <code>.partial/&lt;id&gt;.state</code>) сохраняются после каждой части, поэтому после сбоя загружаются только
+ *   недостающие части. Заголовок <code>If-Range</code> гарантирует, что части не смешиваются с измененным файлом:
+ *   если сервер вернул файл целиком, остальные части прерываются, состояние сбрасывается и загрузка начинается
+ *   заново.</li>
+ *   <li>Размер загруженного файла сверяется с размером из выгрузки и заголовка <code>Content-Range</code>.</li>
+ *   <li>Содержимое хранится один раз под хешем SHA-256 (<code>blobs/</code>), а файлы задач являются жесткими
+ *   ссылками на него, поэтому одинаковые вложения разных задач занимают место один раз.</li>
+ *   <li>Одновременных передач не больше <code>parallelism</code>, а общая скорость ограничивается корзиной токенов
+ *   ({@link RateLimiter}), где токен — байт. Место в пределе параллелизма {@link JiraThrottle} освобождается после
+ *   получения заголовков, поэтому долгие передачи не занимают его и не вытесняют запросы REST.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class AttachmentDownloader implements Closeable {
+
+    /** Размер буфера чтения; по нему же запрашиваются токены ограничителя скорости. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Сколько раз загрузка начинается заново, если файл изменился на сервере во время загрузки. */
+    private static final int MAX_RESTARTS = 3;
+
+    private final JiraClientHolder clientHolder;
+    private final Path directory;
+    private final long partSize;
+    private final RateLimiter bandwidth;
+    private final Semaphore transfers;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Вложения, загрузка которых запущена методом {@link #submit}, по идентификатору. */
+    private final Map<String, CompletableFuture<Path>> submitted = new ConcurrentHashMap<>();
+
+    private final AtomicLong downloaded = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong resumedParts = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Статистика загрузки вложений.
+     *
+     * @param downloaded   загружено файлов
+     * @param deduplicated загруженных файлов, содержимое которых уже было сохранено
+     * @param skipped      файлов, уже загруженных ранее
+     * @param resumedParts частей, не загружавшихся повторно после сбоя
+     * @param missing      вложений, не найденных на сервере
+     * @param bytes        загружено байт
+     */
+    public record AttachmentStats(long downloaded, long deduplicated, long skipped, long resumedParts, long missing,
+                                  long bytes) {
+    }
+
+    /**
+     * Конструктор класса AttachmentDownloader.
+     *
+     * @param clientHolder      общий держатель клиентов Jira
+     * @param directory         каталог вложений
+     * @param parallelism       максимальное количество одновременных передач
+     * @param partSizeBytes     размер части при параллельной загрузке
+     * @param maxBytesPerSecond ограничение общей скорости загрузки, байт в секунду; 0 — без ограничения
+     * @throws IOException если не удалось создать каталог
+     */
+    public AttachmentDownloader(JiraClientHolder clientHolder, Path directory, int parallelism, long partSizeBytes,
+                                long maxBytesPerSecond) throws IOException {
+        this.clientHolder = clientHolder;
+        this.directory = directory;
+        this.partSize = Math.max(BUFFER_SIZE, partSizeBytes);
+        this.transfers = new Semaphore(Math.max(1, parallelism));
+        this.bandwidth = maxBytesPerSecond > 0 ? new RateLimiter(maxBytesPerSecond, maxBytesPerSecond) : null;
+        Files.createDirectories(directory.resolve(".partial"));
+    }
+
+    /**
+     * Создает загрузчик по параметрам <code>jira.attachments.*</code>.
+     *
+     * @param jiraConnect  экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param clientHolder общий держатель клиентов Jira
+     * @return загрузчик вложений
+     * @throws IOException если не удалось создать каталог
+     */
+    public static AttachmentDownloader create(JiraConnect jiraConnect, JiraClientHolder clientHolder) throws IOException {
+        return new AttachmentDownloader(clientHolder, Path.of(jiraConnect.getAttachmentsDir()),
+                jiraConnect.getAttachmentsParallelism(), jiraConnect.getAttachmentsPartSizeMegabytes() * 1024L * 1024L,
+                jiraConnect.getAttachmentsMaxBytesPerSecond());
+    }
+
+    /**
+     * Запускает загрузку вложения в фоне. Повторный вызов для того же вложения не запускает вторую загрузку.
+     * Подходит в качестве обработчика {@link JiraDataFetcher#setXmlEntryConsumer} для записей о вложениях.
+     *
+     * @param attachment сведения о вложении
+     */
+    public void submit(IssueXmlEntry.Attachment attachment) {
+        submitted.computeIfAbsent(attachment.id(), id -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return download(attachment);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+
+    /**
+     * Дожидается завершения всех загрузок, запущенных методом {@link #submit}.
+     *
+     * @throws IOException если хотя бы одна загрузка завершилась ошибкой; ее можно повторить, загруженные
+     *                     части сохраняются
+     */
+    public void awaitCompletion() throws IOException {
+        List<String> failed = new ArrayList<>();
+        IOException first = null;
+        for (Map.Entry<String, CompletableFuture<Path>> entry : submitted.entrySet()) {
+            try {
+                entry.getValue().join();
+            } catch (CompletionException e) {
+                failed.add(entry.getKey());
+                if (first == null) {
+                    first = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                }
+            }
+            submitted.remove(entry.getKey(), entry.getValue());
+        }
+        if (first != null) {
+            throw new IOException("Не удалось загрузить вложения " + failed + ": " + first.getMessage(), first);
+        }
+    }
+
+    /**
+     * Загружает вложение.
+     *
+     * @param attachment сведения о вложении
+     * @return файл вложения или <code>null</code>, если вложение не найдено на сервере
+     * @throws IOException при ошибке загрузки, несовпадении размера или ошибке записи
+     */
+    public Path download(IssueXmlEntry.Attachment attachment) throws IOException {
+        Path target = directory.resolve(safeName(attachment.issueKey()))
+                .resolve(safeName(attachment.id() + "_" + attachment.name()));
+        if (attachment.size() >= 0 && Files.isRegularFile(target) && Files.size(target) == attachment.size()) {
+            skipped.incrementAndGet();
+            return target;
+        }
+        Path part = directory.resolve(".partial").resolve(safeName(attachment.id()) + ".part");
+        Path stateFile = directory.resolve(".partial").resolve(safeName(attachment.id()) + ".state");
+        URI uri = clientHolder.getServerUri().resolve("/rest/api/2/attachment/content/" + attachment.id());
+
+        try {
+            PartialDownload state = PartialDownload.load(stateFile, attachment.size(), partSize);
+            if (state == null || !Files.exists(part)) {
+                state = new PartialDownload(attachment.size(), partSize, null, new BitSet());
+                allocate(part, attachment.size());
+            } else {
+                resumedParts.addAndGet(state.done().cardinality());
+            }
+            fetchParts(uri, part, stateFile, state);
+        } catch (JiraHttpException e) {
+            if (e.getStatusCode() == 404) {
+                missing.incrementAndGet();
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(stateFile);
+                System.err.println("Вложение не найдено: " + attachment.name() + " (" + attachment.issueKey() + ")");
+                System.err.println("Attachment not found: " + attachment.name() + " (" + attachment.issueKey() + ")");
+                return null;
+            }
+            throw e;
+        }
+
+        long size = Files.size(part);
+        if (attachment.size() >= 0 && size != attachment.size()) {
+            Files.deleteIfExists(stateFile);
+            throw new IOException("Размер вложения " + attachment.id() + " не совпадает: ожидалось "
+                    + attachment.size() + ", загружено " + size);
+        }
+        store(part, target);
+        Files.deleteIfExists(stateFile);
+        downloaded.incrementAndGet();
+        return target;
+    }
+
+    /**
+     * Создает файл частей сразу полного размера, чтобы части записывались на свои места.
+     */
+    private static void allocate(Path part, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (size > 0) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+        }
+    }
+
+    /**
+     * Загружает недостающие части. Если файл изменился на сервере во время загрузки, загрузка начинается заново.
+     */
+    private void fetchParts(URI uri, Path part, Path stateFile, PartialDownload state) throws IOException {
+        if (state.size() <= 0) {
+            fetchWhole(uri, part);
+            return;
+        }
+        for (int restarts = 0; !fetchRanges(uri, part, stateFile, state); restarts++) {
+            if (restarts >= MAX_RESTARTS) {
+                throw new IOException("Вложение " + uri + " изменяется во время загрузки");
+            }
+            // Уже загруженные части относятся к прежней версии файла
+            state.reset(stateFile);
+            allocate(part, state.size());
+        }
+    }
+
+    /**
+     * Загружает недостающие части. Первая часть загружается отдельно: по ответу видно, поддерживает ли сервер
+     * диапазоны; остальные части загружаются параллельно.
+     *
+     * @return <code>false</code>, если файл изменился на сервере и части нужно загрузить заново
+     */
+    private boolean fetchRanges(URI uri, Path part, Path stateFile, PartialDownload state) throws IOException {
+        int parts = state.partCount();
+        int first = state.done().nextClearBit(0);
+        if (first >= parts || !fetchPart(uri, part, stateFile, state, first, true)) {
+            return true;
+        }
+        List<Future<Boolean>> pending = new ArrayList<>();
+        for (int index = state.done().nextClearBit(first + 1); index < parts; index = state.done().nextClearBit(index + 1)) {
+            int partIndex = index;
+            pending.add(executor.submit(() -> fetchPart(uri, part, stateFile, state, partIndex, false)));
+        }
+        IOException failure = null;
+        for (Future<Boolean> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Загрузка вложения прервана", e);
+            }
+        }
+        if (state.isStale()) {
+            // Ошибки остальных частей не важны: все части загружаются заново
+            return false;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return true;
+    }
+
+    /**
+     * Загружает одну часть.
+     *
+     * @param leader <code>true</code> для части, загружаемой до остальных: если сервер вернет на нее файл целиком,
+     *               он записывается вместо частей
+     * @return <code>false</code>, если сервер вернул файл целиком и остальные части загружать не нужно
+     */
+    private boolean fetchPart(URI uri, Path part, Path stateFile, PartialDownload state, int index, boolean leader)
+            throws IOException {
+        if (state.isStale()) {
+            return false;
+        }
+        long from = index * state.partSize();
+        long to = Math.min(state.size(), from + state.partSize()) - 1;
+        HttpGet request = new HttpGet(uri);
+        request.setHeader(HttpHeaders.RANGE, "bytes=" + from + "-" + to);
+        String validator = state.validator();
+        if (validator != null) {
+            request.setHeader(HttpHeaders.IF_RANGE, validator);
+        }
+        acquireTransfer();
+        try (CloseableHttpResponse response = clientHolder.execute(JiraMetrics.Endpoint.ATTACHMENT, request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == 206) {
+                checkContentRange(response, from, to, state.size());
+                state.offerValidator(validatorOf(response));
+                if (write(response, part, from, to - from + 1, state)) {
+                    state.markDone(index, stateFile);
+                }
+                return true;
+            }
+            if (statusCode == 200 && leader) {
+                // Сервер не поддерживает диапазоны или файл изменился после загрузки части (If-Range):
+                // файл загружается заново целиком, прежние части больше не действительны
+                state.reset(stateFile);
+                write(response, part, 0, state.size(), null);
+                return false;
+            }
+            if (statusCode == 200) {
+                // Файл изменился, пока загружались параллельные части: тело не записывается поверх частей
+                // прежней версии, остальные части прерываются, и загрузка начинается заново
+                state.markStale();
+                return false;
+            }
+            EntityUtils.consumeQuietly(response.getEntity());
+            throw new JiraHttpException(statusCode);
+        } finally {
+            transfers.release();
+        }
+    }
+
+    private void fetchWhole(URI uri, Path part) throws IOException {
+        acquireTransfer();
+        try (CloseableHttpResponse response = clientHolder.execute(JiraMetrics.Endpoint.ATTACHMENT, new HttpGet(uri))) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != 200) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new JiraHttpException(statusCode);
+            }
+            write(response, part, 0, -1, null);
+        } finally {
+            transfers.release();
+        }
+    }
+
+    private void acquireTransfer() throws IOException {
+        try {
+            transfers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Загрузка вложения прервана", e);
+        }
+    }
+
+    private static void checkContentRange(CloseableHttpResponse response, long from, long to, long size) throws IOException {
+        Header header = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        String expected = "bytes " + from + "-" + to + "/" + size;
+        if (header == null || !header.getValue().trim().equals(expected)) {
+            throw new IOException("Неожиданный диапазон ответа: " + (header != null ? header.getValue() : null)
+                    + ", ожидался " + expected);
+        }
+    }
+
+    private static String validatorOf(CloseableHttpResponse response) {
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.getValue().startsWith("W/")) {
+            return etag.getValue();
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        return lastModified != null ? lastModified.getValue() : null;
+    }
+
+    /**
+     * Записывает тело ответа в файл с заданной позиции, соблюдая ограничение скорости.
+     *
+     * @param expected ожидаемое количество байт или -1, если оно неизвестно
+     * @param state    состояние загрузки, по которому запись прерывается, если файл изменился, или <code>null</code>
+     * @return <code>false</code>, если запись прервана
+     */
+    private boolean write(CloseableHttpResponse response, Path part, long position, long expected, PartialDownload state)
+            throws IOException {
+        long written = 0;
+        try (InputStream in = response.getEntity().getContent();
+             FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (expected < 0) {
+                channel.truncate(0);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (state != null && state.isStale()) {
+                    return false;
+                }
+                if (bandwidth != null) {
+                    bandwidth.acquire(read);
+                }
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                while (data.hasRemaining()) {
+                    channel.write(data, position + written + data.position());
+                }
+                written += read;
+            }
+            channel.force(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Загрузка вложения прервана", e);
+        } finally {
+            bytes.addAndGet(written);
+            JiraMetrics.getInstance().recordBytesDownloaded(written);
+        }
+        if (expected >= 0 && written != expected) {
+            throw new IOException("Получено " + written + " байт вместо " + expected);
+        }
+        return true;
+    }
+
+    /**
+     * Перемещает загруженный файл в хранилище содержимого и создает на него ссылку из каталога задачи.
+     */
+    private void store(Path part, Path target) throws IOException {
+        String hash = sha256(part);
+        Path blob = directory.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash);
+        Files.createDirectories(blob.getParent());
+        if (Files.exists(blob)) {
+            deduplicated.incrementAndGet();
+            Files.delete(part);
+        } else {
+            try {
+                Files.move(part, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // То же содержимое одновременно сохранено другой загрузкой
+                deduplicated.incrementAndGet();
+                Files.delete(part);
+            }
+        }
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // Файловая система без жестких ссылок: содержимое копируется
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Заменяет символы, недопустимые в именах файлов.
+     */
+    static String safeName(String name) {
+        String safe = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+        return safe.isEmpty() || safe.equals(".") || safe.equals("..") ? "_" : safe;
+    }
+
+    /**
+     * Возвращает статистику загрузки.
+     *
+     * @return статистика
+     */
+    public AttachmentStats getStats() {
+        return new AttachmentStats(downloaded.get(), deduplicated.get(), skipped.get(), resumedParts.get(),
+                missing.get(), bytes.get());
+    }
+
+    /**
+     * Дожидается завершения начатых загрузок и освобождает потоки.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Состояние частично загруженного файла, хранящееся рядом с ним.
+     */
+    private static final class PartialDownload {
+        private final long size;
+        private final long partSize;
+        private String validator;
+        private final BitSet done;
+
+        /** Признак того, что файл изменился на сервере и загруженные части больше не действительны. */
+        private volatile boolean stale;
+
+        PartialDownload(long size, long partSize, String validator, BitSet done) {
+            this.size = size;
+            this.partSize = partSize;
+            this.validator = validator;
+            this.done = done;
+        }
+
+        /**
+         * Читает состояние; возвращает <code>null</code>, если его нет или оно относится к файлу другого размера.
+         */
+        static PartialDownload load(Path file, long size, long partSize) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            if (Long.parseLong(properties.getProperty("size", "-1")) != size
+                    || Long.parseLong(properties.getProperty("partSize", "-1")) != partSize) {
+                return null;
+            }
+            BitSet done = new BitSet();
+            String parts = properties.getProperty("done", "");
+            if (!parts.isEmpty()) {
+                Arrays.stream(parts.split(",")).mapToInt(Integer::parseInt).forEach(done::set);
+            }
+            return new PartialDownload(size, partSize, properties.getProperty("validator"), done);
+        }
+
+        long size() {
+            return size;
+        }
+
+        long partSize() {
+            return partSize;
+        }
+
+        int partCount() {
+            return (int) ((size + partSize - 1) / partSize);
+        }
+
+        synchronized String validator() {
+            return validator;
+        }
+
+        synchronized BitSet done() {
+            return (BitSet) done.clone();
+        }
+
+        synchronized void offerValidator(String value) {
+            if (validator == null) {
+                validator = value;
+            }
+        }
+
+        boolean isStale() {
+            return stale;
+        }
+
+        void markStale() {
+            stale = true;
+        }
+
+        /**
+         * Забывает загруженные части и удаляет сохраненное состояние, чтобы загрузка началась заново.
+         */
+        synchronized void reset(Path file) throws IOException {
+            done.clear();
+            validator = null;
+            stale = false;
+            Files.deleteIfExists(file);
+        }
+
+        /**
+         * Отмечает часть загруженной и атомарно сохраняет состояние. Части прежней версии файла не отмечаются.
+         */
+        synchronized void markDone(int index, Path file) throws IOException {
+            if (stale) {
+                return;
+            }
+            done.set(index);
+            Properties properties = new Properties();
+            properties.setProperty("size", Long.toString(size));
+            properties.setProperty("partSize", Long.toString(partSize));
+            if (validator != null) {
+                properties.setProperty("validator", validator);
+            }
+            properties.setProperty("done", done.stream().mapToObj(Integer::toString).collect(Collectors.joining(",")));
+            StringWriter writer = new StringWriter();
+            properties.store(writer, "Состояние загрузки вложения");
+            AtomicFiles.write(file, writer.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
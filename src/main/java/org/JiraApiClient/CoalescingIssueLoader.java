@@ -0,0 +1,245 @@
+package org.JiraApiClient;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Объединение одновременных запросов задач.
+ * <p>
+ * Предназначен для сервисов, в которых много потоков одновременно запрашивают одни и те же или пересекающиеся задачи.
+ * </p>
+ *
+ * <p><b>Принцип работы:</b></p>
+ * <ul>
+ *   <li>Одновременные запросы одного ключа разделяют одну загрузку: пока она не завершилась, новые вызовы
+ *   присоединяются к ней вместо отправки нового запроса.</li>
+ *   <li>Разные ключи, поступившие в течение <code>maxWaitMillis</code> после первого, собираются в пакет и загружаются
+ *   одним вызовом (например, поиском <code>key in (...)</code>). Пакет отправляется сразу, как только в нем
+ *   набирается <code>maxBatchSize</code> ключей.</li>
+ *   <li>Каждый вызывающий получает собственный {@link CompletableFuture}: его отмена или завершение не влияет
+ *   на остальных.</li>
+ * </ul>
+ * <p>Результаты не кэшируются: после завершения загрузки следующий запрос того же ключа выполняется заново.</p>
+ *
+ * @version 1.0
+ */
+public class CoalescingIssueLoader implements Closeable {
+
+    /**
+     * Загрузка пакета задач.
+     */
+    @FunctionalInterface
+    public interface BatchLoader {
+
+        /**
+         * Загружает задачи с перечисленными ключами.
+         *
+         * @param keys различные ключи задач
+         * @return найденные задачи по ключам; отсутствующий ключ означает, что задача не найдена
+         * @throws Exception при ошибке загрузки; все запросы пакета завершаются этой ошибкой
+         */
+        Map<String, IssueRecord> load(List<String> keys) throws Exception;
+    }
+
+    /** Ключ, ожидающий отправки в пакете, и его общая загрузка. */
+    private record Pending(String key, CompletableFuture<IssueRecord> future) {
+    }
+
+    private final BatchLoader batchLoader;
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+    private final Map<String, CompletableFuture<IssueRecord>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private ScheduledFuture<?> pendingTimer;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+
+    /**
+     * Конструктор класса CoalescingIssueLoader.
+     *
+     * @param batchLoader   загрузка пакета задач
+     * @param maxBatchSize  максимальное количество ключей в пакете
+     * @param maxWaitMillis максимальное время ожидания других ключей перед отправкой пакета, мс
+     */
+    public CoalescingIssueLoader(BatchLoader batchLoader, int maxBatchSize, long maxWaitMillis) {
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "issue-loader-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Создает загрузчик, отправляющий пакеты поиском <code>key in (...)</code> с выбранными полями.
+     *
+     * @param projection    загрузка выбранных полей задач
+     * @param maxBatchSize  максимальное количество ключей в пакете
+     * @param maxWaitMillis максимальное время ожидания других ключей перед отправкой пакета, мс
+     * @return загрузчик задач
+     */
+    public static CoalescingIssueLoader forProjection(IssueProjection projection, int maxBatchSize, long maxWaitMillis) {
+        return new CoalescingIssueLoader(keys -> {
+            Map<String, IssueRecord> found = new HashMap<>();
+            projection.searchKeys(keys, record -> found.put(record.key(), record));
+            for (String key : keys) {
+                if (!found.containsKey(key)) {
+                    // Поиск возвращает перенесенную задачу под новым ключом, поэтому ее ищем по старому ключу отдельно
+                    try {
+                        found.put(key, projection.fetch(key));
+                    } catch (JiraHttpException e) {
+                        if (e.getStatusCode() != 404) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+            return found;
+        }, maxBatchSize, maxWaitMillis);
+    }
+
+    /**
+     * Запрашивает задачу. Если задача с этим ключом уже загружается, вызов присоединяется к текущей загрузке.
+     *
+     * @param issueKey ключ задачи
+     * @return собственный для вызывающего результат загрузки; завершается с {@link NoSuchElementException},
+     * если задача не найдена
+     */
+    public CompletableFuture<IssueRecord> load(String issueKey) {
+        requests.increment();
+        CompletableFuture<IssueRecord> created = new CompletableFuture<>();
+        CompletableFuture<IssueRecord> existing = inFlight.putIfAbsent(issueKey, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        created.whenComplete((record, error) -> inFlight.remove(issueKey, created));
+        enqueue(new Pending(issueKey, created));
+        return created.copy();
+    }
+
+    private void enqueue(Pending request) {
+        List<Pending> ready = null;
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                ready = takePending();
+            } else if (pending.size() == 1) {
+                pendingTimer = timer.schedule(this::flushPending, maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+    }
+
+    /**
+     * Забирает накопленные ключи; вызывается под блокировкой.
+     */
+    private List<Pending> takePending() {
+        if (pendingTimer != null) {
+            pendingTimer.cancel(false);
+            pendingTimer = null;
+        }
+        List<Pending> ready = pending;
+        pending = new ArrayList<>();
+        return ready;
+    }
+
+    private void flushPending() {
+        List<Pending> ready;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = takePending();
+        }
+        dispatch(ready);
+    }
+
+    private void dispatch(List<Pending> batch) {
+        batches.increment();
+        batchedKeys.add(batch.size());
+        executor.execute(() -> {
+            List<String> keys = new ArrayList<>(batch.size());
+            for (Pending request : batch) {
+                keys.add(request.key());
+            }
+            try {
+                Map<String, IssueRecord> found = batchLoader.load(keys);
+                for (Pending request : batch) {
+                    IssueRecord record = found.get(request.key());
+                    if (record != null) {
+                        request.future().complete(record);
+                    } else {
+                        request.future().completeExceptionally(new NoSuchElementException("Задача не найдена: " + request.key()));
+                    }
+                }
+            } catch (Throwable e) {
+                for (Pending request : batch) {
+                    request.future().completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Возвращает статистику объединения запросов.
+     *
+     * @return статистика
+     */
+    public LoaderStats getStats() {
+        return new LoaderStats(requests.sum(), coalesced.sum(), batches.sum(), batchedKeys.sum());
+    }
+
+    /**
+     * Отправляет накопленные ключи и дожидается завершения всех начатых загрузок.
+     */
+    @Override
+    public void close() {
+        flushPending();
+        timer.shutdownNow();
+        executor.close();
+    }
+
+    /**
+     * Статистика объединения запросов.
+     *
+     * @param requests    количество вызовов {@link #load(String)}
+     * @param coalesced   количество вызовов, присоединившихся к уже идущей загрузке
+     * @param batches     количество отправленных пакетов
+     * @param batchedKeys количество ключей во всех пакетах
+     */
+    public record LoaderStats(long requests, long coalesced, long batches, long batchedKeys) {
+
+        /**
+         * Возвращает средний размер пакета.
+         *
+         * @return среднее количество ключей в пакете
+         */
+        public double averageBatchSize() {
+            return batches == 0 ? 0 : (double) batchedKeys / batches;
+        }
+    }
+}
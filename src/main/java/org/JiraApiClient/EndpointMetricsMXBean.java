@@ -0,0 +1,24 @@
+package org.JiraApiClient;
+
+/**
+ * Интерфейс JMX метрик одной точки API Jira.
+ *
+ * @version 1.0
+ */
+public interface EndpointMetricsMXBean {
+    long getRequests();
+
+    long getErrors();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
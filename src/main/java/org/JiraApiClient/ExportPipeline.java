@@ -0,0 +1,408 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Конвейер выгрузки задач: поиск ключей → загрузка полей → загрузка XML → преобразование → запись.
+ * <p>
+ * Каждый этап выполняется своим набором потоков и связан со следующим ограниченной очередью. Пока одни потоки
+ * ждут ответа Jira, другие пишут на диск, поэтому сеть и диск работают одновременно. Если запись отстает,
+ * очередь перед ней заполняется, и предыдущие этапы блокируются на передаче результата — вплоть до загрузки
+ * страниц поиска. Так объем данных в памяти ограничен суммарной емкостью очередей.
+ * </p>
+ *
+ * <p><b>Этапы:</b></p>
+ * <ul>
+ *   <li><code>discover</code> — ключи задач: из поиска JQL (сразу с выбранными полями) или из заданного списка;</li>
+ *   <li><code>fetch</code> — загрузка выбранных полей задачи, если они не получены при поиске
+ *   (<code>jira.pipeline.fetchConcurrency</code>);</li>
+ *   <li><code>xml</code> — загрузка XML-выгрузки, если хранилище ее сохраняет или из нее нужны вложения и
+ *   комментарии для индекса (<code>jira.pipeline.xmlConcurrency</code>, 0 — этап отключен); ошибка загрузки XML учитывается на этапе, но запись задачи все равно сохраняется;</li>
+ *   <li><code>transform</code> — преобразование записи (<code>jira.pipeline.transformConcurrency</code>);</li>
+ *   <li><code>write</code> — запись в хранилище результатов (<code>jira.pipeline.writeConcurrency</code>).</li>
+ * </ul>
+ *
+ * <p><b>Наблюдаемость:</b> для каждого этапа доступны глубина очереди, количество обработанных элементов,
+ * пропускная способность, доля времени работы и доля времени ожидания следующего этапа (см. {@link #getStats()}).
+ * Узкое место — этап с высокой занятостью и полной входной очередью, у предыдущего этапа при этом растет время ожидания.
+ * Сводка выводится каждые <code>jira.pipeline.reportSeconds</code> секунд и по завершении.</p>
+ *
+ * @version 1.0
+ */
+public class ExportPipeline {
+
+    /** Отметка конца потока элементов. */
+    private static final Object END = new Object();
+
+    private final JiraConnect jiraConnect;
+    private final JiraDataFetcher dataFetcher;
+    private final IssueProjection projection;
+    private final UnaryOperator<IssueRecord> transform;
+    private final int queueCapacity;
+    private final int reportSeconds;
+    private final List<Stage<?, ?>> stages = new ArrayList<>();
+    private volatile long startNanos;
+
+    /**
+     * Конструктор класса ExportPipeline без преобразования записей.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param dataFetcher экземпляр JiraDataFetcher, предоставляющий клиент и хранилище результатов
+     */
+    public ExportPipeline(JiraConnect jiraConnect, JiraDataFetcher dataFetcher) {
+        this(jiraConnect, dataFetcher, UnaryOperator.identity());
+    }
+
+    /**
+     * Конструктор класса ExportPipeline.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param dataFetcher экземпляр JiraDataFetcher, предоставляющий клиент и хранилище результатов
+     * @param transform   потокобезопасное преобразование записи перед записью; <code>null</code> — пропустить задачу
+     */
+    public ExportPipeline(JiraConnect jiraConnect, JiraDataFetcher dataFetcher, UnaryOperator<IssueRecord> transform) {
+        this.jiraConnect = jiraConnect;
+        this.dataFetcher = dataFetcher;
+        this.projection = new IssueProjection(dataFetcher.getClientHolder(), jiraConnect.getIssueFields());
+        this.transform = transform;
+        this.queueCapacity = Math.max(1, jiraConnect.getPipelineQueueCapacity());
+        this.reportSeconds = jiraConnect.getPipelineReportSeconds();
+    }
+
+    /**
+     * Выгружает все задачи, найденные запросом JQL.
+     *
+     * @param jql запрос JQL
+     * @return итоги выгрузки
+     */
+    public PipelineResult exportJql(String jql) {
+        JiraBulkExporter exporter = new JiraBulkExporter(jiraConnect, dataFetcher.getClientHolder());
+        return run((ignored, out) -> {
+            JiraBulkExporter.ExportStats stats = exporter.exportRecords(jql, projection.getFields(),
+                    record -> emitUninterruptibly(out, new Item(record.key(), record)));
+            if (stats.failedPages() > 0) {
+                throw new IOException("Не загружено страниц поиска: " + stats.failedPages());
+            }
+        });
+    }
+
+    /**
+     * Выгружает задачи с заданными ключами.
+     *
+     * @param keys ключи задач
+     * @return итоги выгрузки
+     */
+    public PipelineResult exportKeys(Collection<String> keys) {
+        List<String> copy = List.copyOf(keys);
+        return run((ignored, out) -> {
+            for (String key : copy) {
+                out.emit(new Item(key, null));
+            }
+        });
+    }
+
+    /**
+     * Возвращает текущую статистику этапов последнего запуска.
+     *
+     * @return статистика этапов в порядке их следования
+     */
+    public List<StageStats> getStats() {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        List<StageStats> result = new ArrayList<>(stages.size());
+        for (Stage<?, ?> stage : stages) {
+            result.add(stage.stats(elapsedSeconds));
+        }
+        return result;
+    }
+
+    /**
+     * Строит этапы, запускает их и дожидается завершения.
+     */
+    private PipelineResult run(StageFunction<Object, Item> discovery) {
+        IssueSink sink = dataFetcher.getSink();
+        int xmlConcurrency = jiraConnect.getPipelineXmlConcurrency();
+
+        stages.clear();
+        Stage<Object, Item> discover = new Stage<>("discover", 1, 1, discovery);
+        // У этапа поиска один входной элемент, поэтому учитываются найденные задачи
+        discover.countEmitted = true;
+        Stage<Item, IssueRecord> fetch = new Stage<>("fetch", jiraConnect.getPipelineFetchConcurrency(), queueCapacity,
+                (item, out) -> out.emit(item.record() != null ? item.record() : projection.fetch(item.key())));
+        Stage<IssueRecord, IssueRecord> xml = new Stage<>("xml", xmlConcurrency, queueCapacity, (record, out) -> {
+            dataFetcher.downloadIssueXml(record.key(), sink.xmlPath(record.key()));
+            out.emit(record);
+        });
+        // Ошибка XML-выгрузки (например, 404 при отключенных XML-представлениях) учитывается на этапе xml,
+        // но запись задачи все равно передается дальше и сохраняется
+        xml.onFailure = record -> record;
+        Stage<IssueRecord, IssueRecord> transformStage = new Stage<>("transform", jiraConnect.getPipelineTransformConcurrency(),
+                queueCapacity, (record, out) -> {
+            IssueRecord transformed = transform.apply(record);
+            if (transformed != null) {
+                out.emit(transformed);
+            }
+        });
+        Stage<IssueRecord, Void> write = new Stage<>("write", jiraConnect.getPipelineWriteConcurrency(), queueCapacity,
+                (record, out) -> sink.write(record));
+
+        discover.next = fetch;
+        // Выгрузка разбирается без сохранения, если хранилище не сохраняет XML, но нужны вложения или индекс
+        if (xmlConcurrency > 0 && (sink.storesXml() || dataFetcher.parsesXml())) {
+            fetch.next = xml;
+            xml.next = transformStage;
+            stages.addAll(List.of(discover, fetch, xml, transformStage, write));
+        } else {
+            fetch.next = transformStage;
+            stages.addAll(List.of(discover, fetch, transformStage, write));
+        }
+        transformStage.next = write;
+
+        startNanos = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (Stage<?, ?> stage : stages) {
+            threads.addAll(stage.start());
+        }
+        Thread reporter = reportSeconds > 0 ? Thread.ofVirtual().name("pipeline-report").start(this::reportLoop) : null;
+
+        try {
+            discover.input.put(Boolean.TRUE);
+            discover.input.put(END);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.forEach(Thread::interrupt);
+            System.err.println("Конвейер выгрузки прерван.");
+            System.err.println("Export pipeline interrupted.");
+        } finally {
+            if (reporter != null) {
+                reporter.interrupt();
+            }
+        }
+
+        long flushFailures = 0;
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            flushFailures = 1;
+            System.err.println("Ошибка при сохранении результатов: " + e.getMessage());
+            System.err.println("Error saving results: " + e.getMessage());
+        }
+
+        List<StageStats> stats = getStats();
+        long failed = flushFailures;
+        for (StageStats stage : stats) {
+            failed += stage.failed();
+        }
+        PipelineResult result = new PipelineResult(stats, Duration.ofNanos(System.nanoTime() - startNanos),
+                write.processed.sum(), failed);
+        printStats(stats);
+        System.out.printf("Конвейер: записано задач %d за %.1f с, ошибок %d%n",
+                result.written(), result.elapsed().toMillis() / 1000.0, result.failed());
+        System.out.printf("Pipeline: %d issues written in %.1f s, %d failures%n",
+                result.written(), result.elapsed().toMillis() / 1000.0, result.failed());
+        return result;
+    }
+
+    private void reportLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(reportSeconds * 1000L);
+                printStats(getStats());
+            }
+        } catch (InterruptedException e) {
+            // Выгрузка завершена
+        }
+    }
+
+    private static void printStats(List<StageStats> stats) {
+        for (StageStats stage : stats) {
+            System.out.printf(Locale.ROOT, "Этап %-9s потоков %2d, очередь %4d/%-4d, обработано %7d (%.1f/с), ошибок %d, занятость %3.0f%%, ожидание выхода %3.0f%%%n",
+                    stage.name(), stage.workers(), stage.queueDepth(), stage.queueCapacity(), stage.processed(),
+                    stage.throughput(), stage.failed(), stage.busyRatio() * 100, stage.blockedRatio() * 100);
+            System.out.printf(Locale.ROOT, "Stage %-9s workers %2d, queue %4d/%-4d, processed %7d (%.1f/s), failed %d, busy %3.0f%%, blocked on output %3.0f%%%n",
+                    stage.name(), stage.workers(), stage.queueDepth(), stage.queueCapacity(), stage.processed(),
+                    stage.throughput(), stage.failed(), stage.busyRatio() * 100, stage.blockedRatio() * 100);
+        }
+    }
+
+    /**
+     * Передает элемент из потребителя, который не может бросать проверяемые исключения.
+     */
+    private static <O> void emitUninterruptibly(Emitter<O> out, O item) {
+        try {
+            out.emit(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Конвейер выгрузки прерван");
+        }
+    }
+
+    /**
+     * Задача, найденная на этапе поиска.
+     *
+     * @param key    ключ задачи
+     * @param record запись с выбранными полями или <code>null</code>, если поля нужно загрузить
+     */
+    private record Item(String key, IssueRecord record) {
+    }
+
+    /** Обработка одного элемента этапа. */
+    @FunctionalInterface
+    private interface StageFunction<I, O> {
+        void apply(I item, Emitter<O> out) throws Exception;
+    }
+
+    /** Передача результата следующему этапу; блокируется, если его очередь заполнена. */
+    @FunctionalInterface
+    private interface Emitter<O> {
+        void emit(O item) throws InterruptedException;
+    }
+
+    /**
+     * Этап конвейера: входная очередь и набор рабочих потоков.
+     */
+    private static final class Stage<I, O> {
+        private final String name;
+        private final int workers;
+        private final BlockingQueue<Object> input;
+        private final StageFunction<I, O> function;
+        private Stage<O, ?> next;
+        private boolean countEmitted;
+        /** Результат, передаваемый дальше при ошибке обработки элемента, или <code>null</code>, чтобы его отбросить. */
+        private Function<I, O> onFailure;
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+
+        Stage(String name, int workers, int capacity, StageFunction<I, O> function) {
+            this.name = name;
+            this.workers = Math.max(1, workers);
+            this.input = new ArrayBlockingQueue<>(capacity + this.workers);
+            this.function = function;
+        }
+
+        List<Thread> start() {
+            running.set(workers);
+            List<Thread> threads = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                threads.add(Thread.ofVirtual().name("pipeline-" + name + "-" + i).start(this::work));
+            }
+            return threads;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void work() {
+            Emitter<O> emitter = item -> {
+                if (next == null) {
+                    return;
+                }
+                long blockedStart = System.nanoTime();
+                next.input.put(item);
+                blockedNanos.add(System.nanoTime() - blockedStart);
+                if (countEmitted) {
+                    processed.increment();
+                }
+            };
+            try {
+                while (true) {
+                    Object item = input.take();
+                    if (item == END) {
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        function.apply((I) item, emitter);
+                        if (!countEmitted) {
+                            processed.increment();
+                        }
+                    } catch (InterruptedException | CancellationException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    } catch (Exception e) {
+                        failed.increment();
+                        System.err.println("Ошибка на этапе " + name + ": " + e.getMessage());
+                        System.err.println("Error in stage " + name + ": " + e.getMessage());
+                        if (onFailure != null) {
+                            emitter.emit(onFailure.apply((I) item));
+                        }
+                    } finally {
+                        busyNanos.add(System.nanoTime() - start);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Последний завершившийся поток сообщает о конце данных каждому потоку следующего этапа
+                if (running.decrementAndGet() == 0 && next != null) {
+                    for (int i = 0; i < next.workers; i++) {
+                        if (!next.input.offer(END)) {
+                            putEnd(next.input);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void putEnd(BlockingQueue<Object> queue) {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        StageStats stats(double elapsedSeconds) {
+            double workerSeconds = Math.max(1e-9, elapsedSeconds * workers);
+            double blocked = blockedNanos.sum() / 1e9;
+            double busy = busyNanos.sum() / 1e9 - blocked;
+            long done = processed.sum();
+            return new StageStats(name, workers, input.size(), input.remainingCapacity() + input.size(), done,
+                    failed.sum(), elapsedSeconds > 0 ? done / elapsedSeconds : 0,
+                    Math.min(1, Math.max(0, busy / workerSeconds)), Math.min(1, blocked / workerSeconds));
+        }
+    }
+
+    /**
+     * Статистика этапа конвейера.
+     *
+     * @param name          имя этапа
+     * @param workers       количество потоков этапа
+     * @param queueDepth    текущее количество элементов во входной очереди
+     * @param queueCapacity емкость входной очереди
+     * @param processed     количество обработанных элементов
+     * @param failed        количество элементов, обработка которых завершилась ошибкой
+     * @param throughput    обработано элементов в секунду
+     * @param busyRatio     доля времени потоков, занятая обработкой (без ожидания следующего этапа)
+     * @param blockedRatio  доля времени потоков, проведенная в ожидании места в очереди следующего этапа
+     */
+    public record StageStats(String name, int workers, int queueDepth, int queueCapacity, long processed, long failed,
+                             double throughput, double busyRatio, double blockedRatio) {
+    }
+
+    /**
+     * Итоги работы конвейера.
+     *
+     * @param stages  статистика этапов
+     * @param elapsed общее время работы
+     * @param written количество записанных задач
+     * @param failed  общее количество ошибок
+     */
+    public record PipelineResult(List<StageStats> stages, Duration elapsed, long written, long failed) {
+    }
+}
@@ -0,0 +1,67 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Хранилище результатов, записывающее каждую задачу в отдельные файлы.
+ * <p>
+ * Текстовые данные сохраняются в <code>&lt;ключ&gt;.txt</code>, XML-выгрузка — в <code>&lt;ключ&gt;_details.xml</code>.
+ * Каждый файл записывается атомарно и сбрасывается на диск сразу, поэтому {@link #flush()} ничего не делает.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class FilePerIssueSink implements IssueSink {
+    private final Path directory;
+
+    /**
+     * Конструктор класса FilePerIssueSink.
+     *
+     * @param directory каталог для файлов задач
+     */
+    public FilePerIssueSink(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(IssueRecord record) throws IOException {
+        AtomicFiles.write(directory.resolve(record.key() + ".txt"), issueText(record).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean storesXml() {
+        return true;
+    }
+
+    @Override
+    public Path xmlPath(String issueKey) {
+        return directory.resolve(issueKey + "_details.xml");
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Формирует текстовое представление задачи: заголовок и затем остальные поля по одному на строку.
+     *
+     * @param record запись задачи
+     * @return текст для сохранения в файл
+     */
+    static String issueText(IssueRecord record) {
+        StringBuilder text = new StringBuilder("Задача: ").append(record.field("summary"));
+        for (Map.Entry<String, String> field : record.fields().entrySet()) {
+            if (!field.getKey().equals("summary")) {
+                text.append('\n').append(field.getKey()).append(": ").append(field.getValue());
+            }
+        }
+        return text.toString();
+    }
+}
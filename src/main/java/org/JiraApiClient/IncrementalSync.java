@@ -0,0 +1,181 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс для инкрементальной синхронизации задач проекта Jira.
+ * <p>
+ * При каждом запуске выгружаются только задачи, измененные после сохраненной контрольной точки
+ * (<code>updated &gt;= watermark</code>). Поскольку JQL сравнивает даты с точностью до минуты,
+ * запрос возвращает надмножество, а уже синхронизированные задачи отсеиваются по точному времени
+ * обновления и списку ключей, сохраненному вместе с контрольной точкой.
+ * </p>
+ *
+ * <p><b>Гарантии:</b></p>
+ * <ul>
+ *   <li>Контрольная точка сдвигается только после того, как все задачи сброшены на диск хранилищем результатов.</li>
+ *   <li>Верхняя граница запроса фиксируется по началу текущей минуты, поэтому набор результатов не пополняется
+ *   во время выгрузки. Если задача покинула набор (была изменена во время выгрузки) и страницы сместились,
+ *   это обнаруживается по расхождению с общим количеством, и контрольная точка не сдвигается.</li>
+ *   <li>Повторная выгрузка после сбоя безопасна: файлы задач перезаписываются атомарно.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class IncrementalSync {
+
+    /** Формат даты, принимаемый JQL. */
+    private static final DateTimeFormatter JQL_DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+
+    private final JiraDataFetcher dataFetcher;
+    private final JiraBulkExporter exporter;
+    private final SyncCheckpointStore checkpointStore;
+    private final ZoneId jqlZone;
+    private final List<String> fields;
+
+    /**
+     * Конструктор класса IncrementalSync, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param dataFetcher экземпляр JiraDataFetcher, через который сохраняются задачи
+     */
+    public IncrementalSync(JiraConnect jiraConnect, JiraDataFetcher dataFetcher) {
+        this.dataFetcher = dataFetcher;
+        this.exporter = new JiraBulkExporter(jiraConnect, dataFetcher.getClientHolder());
+        this.checkpointStore = new SyncCheckpointStore(Path.of(jiraConnect.getSyncCheckpointDir()));
+        this.jqlZone = ZoneId.of(jiraConnect.getSyncTimeZone());
+        this.fields = jiraConnect.getIssueFields();
+    }
+
+    /**
+     * Синхронизирует задачи проекта, измененные с момента последней контрольной точки.
+     *
+     * @param projectKey ключ проекта
+     * @return <code>true</code>, если синхронизация завершилась без ошибок и контрольная точка сохранена
+     */
+    public boolean sync(String projectKey) {
+        SyncCheckpointStore.Checkpoint checkpoint;
+        try {
+            checkpoint = checkpointStore.load(projectKey);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при чтении контрольной точки проекта " + projectKey + ": " + e.getMessage());
+            System.err.println("Error reading checkpoint for project " + projectKey + ": " + e.getMessage());
+            return false;
+        }
+
+        ZonedDateTime upperBound = ZonedDateTime.now(jqlZone).truncatedTo(ChronoUnit.MINUTES);
+        String jql = buildJql(projectKey, checkpoint, upperBound);
+
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        WatermarkTracker tracker = new WatermarkTracker(checkpoint);
+
+        JiraBulkExporter.ExportStats stats = exporter.exportRecords(jql, fields, issue -> {
+            if (checkpoint != null && checkpoint.covers(issue.key(), issue.updated())) {
+                skipped.incrementAndGet();
+                return;
+            }
+            try {
+                dataFetcher.storeIssue(issue);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            written.incrementAndGet();
+            tracker.record(issue);
+        });
+
+        System.out.println("Синхронизация " + projectKey + ": записано " + written.get() + ", пропущено " + skipped.get());
+        System.out.println("Sync " + projectKey + ": written " + written.get() + ", skipped " + skipped.get());
+
+        if (stats.failedPages() > 0 || stats.issues() != stats.total()) {
+            System.err.println("Синхронизация не завершена, контрольная точка не изменена. Повторите запуск.");
+            System.err.println("Sync incomplete, checkpoint left unchanged. Please run again.");
+            return false;
+        }
+
+        SyncCheckpointStore.Checkpoint next = tracker.checkpoint();
+        try {
+            // Хранилище может буферизовать записи; контрольная точка не должна опережать данные на диске
+            dataFetcher.flushOutput();
+        } catch (IOException e) {
+            System.err.println("Ошибка при сохранении задач проекта " + projectKey + ": " + e.getMessage());
+            System.err.println("Error saving issues for project " + projectKey + ": " + e.getMessage());
+            return false;
+        }
+        if (next == null || next.equals(checkpoint)) {
+            return true;
+        }
+        try {
+            checkpointStore.save(projectKey, next);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ошибка при сохранении контрольной точки проекта " + projectKey + ": " + e.getMessage());
+            System.err.println("Error saving checkpoint for project " + projectKey + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Формирует запрос JQL для выгрузки изменений проекта.
+     *
+     * @param projectKey ключ проекта
+     * @param checkpoint предыдущая контрольная точка или <code>null</code>
+     * @param upperBound верхняя граница (не включительно) по времени обновления
+     * @return запрос JQL
+     */
+    String buildJql(String projectKey, SyncCheckpointStore.Checkpoint checkpoint, ZonedDateTime upperBound) {
+        StringBuilder jql = new StringBuilder("project = \"").append(projectKey).append('"');
+        if (checkpoint != null) {
+            // JQL сравнивает с точностью до минуты, поэтому нижняя граница округляется вниз
+            ZonedDateTime lowerBound = Instant.ofEpochMilli(checkpoint.watermark()).atZone(jqlZone)
+                    .truncatedTo(ChronoUnit.MINUTES);
+            jql.append(" AND updated >= \"").append(JQL_DATE.format(lowerBound)).append('"');
+        }
+        jql.append(" AND updated < \"").append(JQL_DATE.format(upperBound)).append('"');
+        return jql.append(" ORDER BY updated ASC, key ASC").toString();
+    }
+
+    /**
+     * Отслеживает максимальное время обновления среди записанных задач и ключи, обновленные в этот момент.
+     */
+    private static final class WatermarkTracker {
+        private long watermark;
+        private final Set<String> keys = new HashSet<>();
+
+        WatermarkTracker(SyncCheckpointStore.Checkpoint previous) {
+            if (previous != null) {
+                watermark = previous.watermark();
+                keys.addAll(previous.keysAtWatermark());
+            } else {
+                watermark = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void record(IssueRecord issue) {
+            if (issue.updated() > watermark) {
+                watermark = issue.updated();
+                keys.clear();
+            }
+            if (issue.updated() == watermark) {
+                keys.add(issue.key());
+            }
+        }
+
+        synchronized SyncCheckpointStore.Checkpoint checkpoint() {
+            return watermark == Long.MIN_VALUE ? null : new SyncCheckpointStore.Checkpoint(watermark, Set.copyOf(keys));
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемый сегмент локального индекса задач ({@link IssueIndex}).
+ * <p>
+ * Сегмент хранится в отдельном каталоге. Колонки и списки документов отображаются в память
+ * ({@link FileChannel#map}), поэтому открытие сегмента не читает их целиком, а повторные запросы
+ * обслуживаются из страничного кэша ОС. В куче находятся только словарь терминов и словари значений колонок.
+ * </p>
+ *
+ * <p><b>Файлы сегмента:</b></p>
+ * <ul>
+ *   <li><code>keys.bin</code> — ключи задач: смещения и байты UTF-8;</li>
+ *   <li><code>updated.bin</code> — время обновления задач, <code>long</code> на документ;</li>
+ *   <li><code>col-&lt;имя&gt;.bin</code> и <code>col-&lt;имя&gt;.dict</code> — порядковые номера значений колонки
+ *   (<code>int</code> на документ, -1 — нет значения) и словарь значений;</li>
+ *   <li><code>terms.bin</code> и <code>postings.bin</code> — упорядоченный словарь терминов и списки документов.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+final class IndexSegment {
+    private final String name;
+    private final int size;
+    private final IntBuffer keyOffsets;
+    private final ByteBuffer keyBytes;
+    private final LongBuffer updated;
+    private final Map<String, Column> columns = new HashMap<>();
+    private final String[] terms;
+    private final int[] postingOffsets;
+    private final int[] postingCounts;
+    private final IntBuffer postings;
+
+    /** Колонка со значениями, закодированными словарем. */
+    private record Column(String[] values, Map<String, Integer> ordinals, IntBuffer data) {
+    }
+
+    private IndexSegment(Path directory, List<String> columnNames) throws IOException {
+        this.name = directory.getFileName().toString();
+        ByteBuffer keys = map(directory.resolve("keys.bin"));
+        this.size = keys.getInt(0);
+        this.keyOffsets = keys.slice(4, (size + 1) * 4).asIntBuffer();
+        this.keyBytes = keys.slice(4 + (size + 1) * 4, keys.capacity() - 4 - (size + 1) * 4);
+        this.updated = map(directory.resolve("updated.bin")).asLongBuffer();
+        for (String column : columnNames) {
+            Path data = directory.resolve("col-" + column + ".bin");
+            if (Files.exists(data)) {
+                String[] values = Files.readAllLines(directory.resolve("col-" + column + ".dict"), StandardCharsets.UTF_8)
+                        .toArray(new String[0]);
+                Map<String, Integer> ordinals = new HashMap<>();
+                for (int i = 0; i < values.length; i++) {
+                    ordinals.put(values[i], i);
+                }
+                columns.put(column, new Column(values, ordinals, map(data).asIntBuffer()));
+            }
+        }
+        ByteBuffer termData = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("terms.bin")));
+        int termCount = termData.getInt();
+        this.terms = new String[termCount];
+        this.postingOffsets = new int[termCount];
+        this.postingCounts = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            byte[] term = new byte[termData.getShort() & 0xFFFF];
+            termData.get(term);
+            terms[i] = new String(term, StandardCharsets.UTF_8);
+            postingOffsets[i] = termData.getInt();
+            postingCounts[i] = termData.getInt();
+        }
+        this.postings = map(directory.resolve("postings.bin")).asIntBuffer();
+    }
+
+    /**
+     * Открывает сегмент.
+     *
+     * @param directory   каталог сегмента
+     * @param columnNames имена колонок индекса
+     * @return сегмент
+     * @throws IOException при ошибке чтения
+     */
+    static IndexSegment open(Path directory, List<String> columnNames) throws IOException {
+        return new IndexSegment(directory, columnNames);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String key(int doc) {
+        int start = keyOffsets.get(doc);
+        byte[] bytes = new byte[keyOffsets.get(doc + 1) - start];
+        keyBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long updated(int doc) {
+        return updated.get(doc);
+    }
+
+    /**
+     * Возвращает значение колонки документа.
+     *
+     * @return значение или <code>null</code>
+     */
+    String column(String column, int doc) {
+        Column data = columns.get(column);
+        if (data == null) {
+            return null;
+        }
+        int ordinal = data.data().get(doc);
+        return ordinal < 0 ? null : data.values()[ordinal];
+    }
+
+    /**
+     * Возвращает документы, содержащие термин.
+     */
+    BitSet postings(String term) {
+        BitSet docs = new BitSet(size);
+        int index = Arrays.binarySearch(terms, term);
+        if (index >= 0) {
+            for (int i = 0, offset = postingOffsets[index]; i < postingCounts[index]; i++) {
+                docs.set(postings.get(offset + i));
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * Возвращает термины с заданным префиксом, которые содержит документ.
+     */
+    List<String> terms(int doc, String prefix) {
+        List<String> found = new ArrayList<>();
+        int from = Arrays.binarySearch(terms, prefix);
+        for (int i = from >= 0 ? from : -from - 1; i < terms.length && terms[i].startsWith(prefix); i++) {
+            // Списки документов упорядочены по возрастанию
+            int low = postingOffsets[i];
+            int high = low + postingCounts[i] - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int value = postings.get(middle);
+                if (value < doc) {
+                    low = middle + 1;
+                } else if (value > doc) {
+                    high = middle - 1;
+                } else {
+                    found.add(terms[i]);
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Возвращает документы, у которых значение колонки равно заданному. Колонка просматривается целиком.
+     */
+    BitSet columnEquals(String column, String value) {
+        BitSet docs = new BitSet(size);
+        Column data = columns.get(column);
+        Integer ordinal = data != null ? data.ordinals().get(value) : null;
+        if (ordinal != null) {
+            IntBuffer values = data.data();
+            for (int doc = 0; doc < size; doc++) {
+                if (values.get(doc) == ordinal) {
+                    docs.set(doc);
+                }
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * Возвращает документы со временем обновления в диапазоне <code>[from, to)</code>.
+     */
+    BitSet updatedBetween(long from, long to) {
+        BitSet docs = new BitSet(size);
+        for (int doc = 0; doc < size; doc++) {
+            long value = updated.get(doc);
+            if (value >= from && value < to) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * Переносит живые документы сегмента в построитель нового сегмента.
+     *
+     * @param live    живые документы
+     * @param builder построитель нового сегмента
+     */
+    void copyTo(BitSet live, Builder builder) {
+        int[] remap = new int[size];
+        Arrays.fill(remap, -1);
+        for (int doc = live.nextSetBit(0); doc >= 0 && doc < size; doc = live.nextSetBit(doc + 1)) {
+            Map<String, String> values = new HashMap<>();
+            for (String column : columns.keySet()) {
+                values.put(column, column(column, doc));
+            }
+            remap[doc] = builder.addDocument(key(doc), updated(doc), values);
+        }
+        for (int i = 0; i < terms.length; i++) {
+            for (int j = 0, offset = postingOffsets[i]; j < postingCounts[i]; j++) {
+                int doc = remap[postings.get(offset + j)];
+                if (doc >= 0) {
+                    builder.addPosting(terms[i], doc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Построитель сегмента в памяти.
+     */
+    static final class Builder {
+        private final List<String> columnNames;
+        private final List<String> keys = new ArrayList<>();
+        private long[] updated = new long[64];
+        private final Map<String, List<String>> columnValues = new HashMap<>();
+        private final TreeMap<String, IntArray> postings = new TreeMap<>();
+
+        Builder(List<String> columnNames) {
+            this.columnNames = columnNames;
+            for (String column : columnNames) {
+                columnValues.put(column, new ArrayList<>());
+            }
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        /**
+         * Добавляет документ.
+         *
+         * @return номер документа в сегменте
+         */
+        int addDocument(String key, long updatedMillis, Map<String, String> values) {
+            int doc = keys.size();
+            keys.add(key);
+            if (doc == updated.length) {
+                updated = Arrays.copyOf(updated, doc * 2);
+            }
+            updated[doc] = updatedMillis;
+            for (String column : columnNames) {
+                columnValues.get(column).add(values.get(column));
+            }
+            return doc;
+        }
+
+        /**
+         * Добавляет документ в список термина. Документы должны добавляться в порядке возрастания номеров.
+         */
+        void addPosting(String term, int doc) {
+            postings.computeIfAbsent(term, t -> new IntArray()).addIfLast(doc);
+        }
+
+        /**
+         * Записывает сегмент в каталог и сбрасывает файлы на диск.
+         *
+         * @param directory каталог сегмента; создается
+         * @throws IOException при ошибке записи
+         */
+        void write(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            int size = keys.size();
+
+            List<byte[]> keyBytes = new ArrayList<>(size);
+            int total = 0;
+            for (String key : keys) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                keyBytes.add(bytes);
+                total += bytes.length;
+            }
+            ByteBuffer keyData = ByteBuffer.allocate(4 + (size + 1) * 4 + total);
+            keyData.putInt(size);
+            int offset = 0;
+            for (byte[] bytes : keyBytes) {
+                keyData.putInt(offset);
+                offset += bytes.length;
+            }
+            keyData.putInt(offset);
+            keyBytes.forEach(keyData::put);
+            writeFile(directory.resolve("keys.bin"), keyData);
+
+            ByteBuffer updatedData = ByteBuffer.allocate(size * 8);
+            updatedData.asLongBuffer().put(updated, 0, size);
+            updatedData.position(size * 8);
+            writeFile(directory.resolve("updated.bin"), updatedData);
+
+            for (String column : columnNames) {
+                Map<String, Integer> ordinals = new HashMap<>();
+                List<String> dictionary = new ArrayList<>();
+                ByteBuffer data = ByteBuffer.allocate(size * 4);
+                for (String value : columnValues.get(column)) {
+                    if (value == null) {
+                        data.putInt(-1);
+                    } else {
+                        // Словарь хранится построчно, поэтому переводы строк в значениях заменяются пробелами
+                        String normalized = value.replace('\n', ' ').replace('\r', ' ');
+                        data.putInt(ordinals.computeIfAbsent(normalized, v -> {
+                            dictionary.add(v);
+                            return dictionary.size() - 1;
+                        }));
+                    }
+                }
+                writeFile(directory.resolve("col-" + column + ".bin"), data);
+                StringBuilder lines = new StringBuilder();
+                dictionary.forEach(value -> lines.append(value).append('\n'));
+                byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+                writeFile(directory.resolve("col-" + column + ".dict"), ByteBuffer.allocate(bytes.length).put(bytes));
+            }
+
+            int termBytes = 4;
+            int postingTotal = 0;
+            for (Map.Entry<String, IntArray> entry : postings.entrySet()) {
+                termBytes += 2 + entry.getKey().getBytes(StandardCharsets.UTF_8).length + 8;
+                postingTotal += entry.getValue().size;
+            }
+            ByteBuffer termData = ByteBuffer.allocate(termBytes);
+            ByteBuffer postingData = ByteBuffer.allocate(postingTotal * 4);
+            termData.putInt(postings.size());
+            for (Map.Entry<String, IntArray> entry : postings.entrySet()) {
+                byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                termData.putShort((short) term.length).put(term);
+                termData.putInt(postingData.position() / 4).putInt(entry.getValue().size);
+                postingData.asIntBuffer().put(entry.getValue().values, 0, entry.getValue().size);
+                postingData.position(postingData.position() + entry.getValue().size * 4);
+            }
+            writeFile(directory.resolve("terms.bin"), termData);
+            writeFile(directory.resolve("postings.bin"), postingData);
+        }
+
+        private static void writeFile(Path file, ByteBuffer data) throws IOException {
+            data.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Растущий массив номеров документов.
+     */
+    private static final class IntArray {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.JiraApiClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Способ загрузки задач из Jira.
+ * <p>
+ * Выбирается параметром <code>jira.backend</code> и используется при выгрузке одной задачи.
+ * </p>
+ *
+ * <p><b>Реализации:</b></p>
+ * <ul>
+ *   <li>{@link ApacheIssueBackend} (<code>apache</code>) — общий держатель клиентов {@link JiraClientHolder}:
+ *   пул соединений Apache HttpClient, через который проверяется сессия и загружаются поля и XML-выгрузки;</li>
+ *   <li>{@link JdkHttpIssueBackend} (<code>jdk</code>) — встроенный в JDK {@link java.net.http.HttpClient}
+ *   с HTTP/2 и потоковым разбором JSON; не загружает Apache HttpClient, поэтому короткий запуск
+ *   тратит заметно меньше времени на загрузку классов.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public interface IssueBackend extends Closeable {
+
+    /**
+     * Загружает поля задачи, перечисленные в параметре <code>jira.fields</code>.
+     *
+     * @param issueKey ключ задачи
+     * @return запись задачи
+     * @throws IOException при ошибке загрузки или ответе с кодом, отличным от 200
+     */
+    IssueRecord fetchIssue(String issueKey) throws IOException;
+
+    /**
+     * Загружает XML-выгрузку задачи и атомарно записывает ее в файл.
+     *
+     * @param issueKey ключ задачи
+     * @param target   файл для сохранения
+     * @return количество записанных байт
+     * @throws IOException при ошибке загрузки, записи или ответе с кодом, отличным от 200
+     */
+    default long downloadIssueXml(String issueKey, Path target) throws IOException {
+        return downloadIssueXml(issueKey, target, null);
+    }
+
+    /**
+     * Загружает XML-выгрузку задачи, атомарно записывает ее в файл и одновременно разбирает
+     * (см. {@link IssueXmlExtractor#saveAndExtract}).
+     *
+     * @param issueKey ключ задачи
+     * @param target   файл для сохранения или <code>null</code>, чтобы только разобрать выгрузку
+     * @param entries  обработчик извлеченных записей или <code>null</code>, чтобы только сохранить файл
+     * @return количество записанных байт
+     * @throws IOException при ошибке загрузки, записи, разбора или ответе с кодом, отличным от 200
+     */
+    long downloadIssueXml(String issueKey, Path target, Consumer<IssueXmlEntry> entries) throws IOException;
+
+    /**
+     * Формирует адрес XML-выгрузки задачи.
+     *
+     * @param serverUri базовый URL Jira
+     * @param issueKey  ключ задачи
+     * @return адрес выгрузки
+     * @throws IOException если адрес некорректен
+     */
+    static URI xmlUri(URI serverUri, String issueKey) throws IOException {
+        try {
+            return new URI(serverUri + "/si/jira.issueviews:issue-xml/" + issueKey + "/" + issueKey + ".xml");
+        } catch (URISyntaxException e) {
+            throw new IOException("Некорректный URL XML-выгрузки: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Создает способ загрузки, выбранный параметром <code>jira.backend</code>.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @return способ загрузки задач
+     */
+    static IssueBackend create(JiraConnect jiraConnect) {
+        String type = jiraConnect.getBackend();
+        return switch (type) {
+            case "apache" -> new ApacheIssueBackend(jiraConnect);
+            case "jdk" -> new JdkHttpIssueBackend(jiraConnect);
+            default -> throw new IllegalArgumentException("Неизвестный способ загрузки задач: " + type);
+        };
+    }
+}
@@ -0,0 +1,305 @@
+package org.JiraApiClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Двухуровневый кэш задач Jira.
+ * <p>
+ * Первый уровень — ограниченный по размеру LRU-кэш разобранных задач в памяти. Второй уровень — каталог на диске,
+ * в котором данные задачи хранятся под ключом «ключ задачи + время обновления», поэтому запись на диске
+ * никогда не устаревает: изменившаяся задача просто получает новый ключ, а файлы прежних версий удаляются.
+ * Кэшируется запись с полями из <code>jira.fields</code>; в имя ее файла входит хеш набора полей, поэтому после
+ * изменения <code>jira.fields</code> записи с прежним набором полей не используются. XML-выгрузка добавляется
+ * в кэш, только когда она нужна хранилищу результатов.
+ * </p>
+ * <p>
+ * Запись в памяти считается свежей в течение <code>jira.cache.ttlSeconds</code> после последней проверки.
+ * Устаревшие записи не загружаются заново целиком, а перепроверяются легким запросом времени обновления
+ * (см. {@link JiraDataFetcher#getIssue(String)}).
+ * </p>
+ *
+ * <p><b>Структура каталога:</b></p>
+ * <ul>
+ *   <li><code>&lt;каталог&gt;/&lt;ключ&gt;/&lt;время&gt;.&lt;хеш полей&gt;.json</code> — запись задачи;</li>
+ *   <li><code>&lt;каталог&gt;/&lt;ключ&gt;/&lt;время&gt;.xml</code> — XML-выгрузка задачи, если она загружалась.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class IssueCache {
+
+    /** Имя файла версии задачи: время обновления, необязательный хеш полей и расширение. */
+    private static final Pattern VERSION_FILE = Pattern.compile("(\\d+)(?:\\.[0-9a-f]+)?\\.(?:json|xml)");
+
+    private final Path directory;
+    private final String fieldsHash;
+    private final long ttlNanos;
+
+    /** Записи в памяти в порядке доступа; самая давно использованная вытесняется первой. */
+    private final LinkedHashMap<String, Entry> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong revalidatedHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Конструктор класса IssueCache, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     */
+    public IssueCache(JiraConnect jiraConnect) {
+        this(Path.of(jiraConnect.getCacheDir()), jiraConnect.getCacheMaxEntries(), jiraConnect.getCacheTtlSeconds(),
+                jiraConnect.getIssueFields());
+    }
+
+    /**
+     * Конструктор класса IssueCache для записей без выбранных полей.
+     *
+     * @param directory  каталог дискового уровня
+     * @param maxEntries максимальное количество записей в памяти
+     * @param ttlSeconds время, в течение которого запись в памяти не перепроверяется
+     */
+    public IssueCache(Path directory, int maxEntries, long ttlSeconds) {
+        this(directory, maxEntries, ttlSeconds, List.of());
+    }
+
+    /**
+     * Конструктор класса IssueCache.
+     *
+     * @param directory  каталог дискового уровня
+     * @param maxEntries максимальное количество записей в памяти
+     * @param ttlSeconds время, в течение которого запись в памяти не перепроверяется
+     * @param fields     поля, которые содержат кэшируемые записи
+     */
+    public IssueCache(Path directory, int maxEntries, long ttlSeconds, Collection<String> fields) {
+        this.directory = directory;
+        this.fieldsHash = String.format("%08x", String.join(",", new TreeSet<>(fields)).hashCode());
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        int capacity = Math.max(1, maxEntries);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает запись из памяти, если она проверялась не позднее <code>ttl</code> назад.
+     *
+     * @param issueKey ключ задачи
+     * @return свежая запись или <code>null</code>
+     */
+    public synchronized CachedIssue getFresh(String issueKey) {
+        Entry entry = memory.get(issueKey);
+        if (entry != null && System.nanoTime() - entry.validatedAt < ttlNanos) {
+            memoryHits.incrementAndGet();
+            return entry.issue;
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает запись из памяти без учета свежести и без изменения счетчиков.
+     * Используется для перепроверки устаревших записей.
+     *
+     * @param issueKey ключ задачи
+     * @return запись или <code>null</code>
+     */
+    public synchronized CachedIssue peek(String issueKey) {
+        Entry entry = memory.get(issueKey);
+        return entry == null ? null : entry.issue;
+    }
+
+    /**
+     * Отмечает запись в памяти как перепроверенную: задача на сервере не изменилась.
+     *
+     * @param issue перепроверенная запись
+     */
+    public synchronized void markValidated(CachedIssue issue) {
+        memory.put(issue.key(), new Entry(issue, System.nanoTime()));
+        revalidatedHits.incrementAndGet();
+    }
+
+    /**
+     * Проверяет, есть ли в кэше какая-либо версия задачи. Если версий нет, задачу можно загружать сразу,
+     * без предварительного запроса времени обновления.
+     *
+     * @param issueKey ключ задачи
+     * @return <code>true</code>, если задача есть в памяти или на диске
+     */
+    public boolean contains(String issueKey) {
+        return peek(issueKey) != null || Files.isDirectory(directory.resolve(issueKey));
+    }
+
+    /**
+     * Загружает запись с диска по ключу и времени обновления и помещает ее в память.
+     *
+     * @param issueKey ключ задачи
+     * @param updated  время обновления задачи, мс с начала эпохи
+     * @param etag     значение ETag последнего ответа или <code>null</code>
+     * @return запись или <code>null</code>, если на диске нет полной записи для этой версии задачи
+     * @throws IOException при ошибке чтения
+     */
+    public CachedIssue loadFromDisk(String issueKey, long updated, String etag) throws IOException {
+        Path recordFile = recordPath(issueKey, updated);
+        if (!Files.exists(recordFile)) {
+            return null;
+        }
+        byte[] data = Files.readAllBytes(recordFile);
+        CachedIssue issue = new CachedIssue(JiraJson.readIssueRecord(data, 0, data.length), etag);
+        synchronized (this) {
+            memory.put(issueKey, new Entry(issue, System.nanoTime()));
+        }
+        diskHits.incrementAndGet();
+        return issue;
+    }
+
+    /**
+     * Сохраняет загруженную задачу в оба уровня кэша и удаляет с диска файлы прежних версий задачи.
+     * <p>
+     * Удаляются только записи и выгрузки более старых версий, а также записи этой версии с другим набором полей.
+     * Временные файлы параллельной записи и файлы более новых версий, сохраненных другим потоком, не удаляются.
+     * </p>
+     *
+     * @param issue загруженная задача
+     * @throws IOException при ошибке записи
+     */
+    public void put(CachedIssue issue) throws IOException {
+        misses.incrementAndGet();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        JiraJson.writeIssueRecord(json, issue.record());
+        Path recordFile = recordPath(issue.key(), issue.updated());
+        AtomicFiles.write(recordFile, json.toByteArray());
+        synchronized (this) {
+            memory.put(issue.key(), new Entry(issue, System.nanoTime()));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(recordFile.getParent())) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                // Временные файлы AtomicFiles начинаются с точки и не подходят под шаблон
+                Matcher matcher = VERSION_FILE.matcher(name);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long version = Long.parseLong(matcher.group(1));
+                boolean staleRecord = version == issue.updated() && name.endsWith(".json")
+                        && !file.equals(recordFile);
+                if (version < issue.updated() || staleRecord) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает путь, по которому хранится XML-выгрузка заданной версии задачи.
+     *
+     * @param issueKey ключ задачи
+     * @param updated  время обновления задачи, мс с начала эпохи
+     * @return путь к файлу XML
+     */
+    public Path xmlPath(String issueKey, long updated) {
+        return directory.resolve(issueKey).resolve(updated + ".xml");
+    }
+
+    private Path recordPath(String issueKey, long updated) {
+        return directory.resolve(issueKey).resolve(updated + "." + fieldsHash + ".json");
+    }
+
+    /**
+     * Возвращает счетчики кэша.
+     *
+     * @return статистика кэша
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(memoryHits.get(), revalidatedHits.get(), diskHits.get(), misses.get(),
+                evictions.get(), memory.size());
+    }
+
+    /**
+     * Разобранные данные задачи, хранящиеся в кэше.
+     *
+     * @param record запись задачи с полями из <code>jira.fields</code>
+     * @param etag   значение ETag последнего ответа сервера или <code>null</code>
+     */
+    public record CachedIssue(IssueRecord record, String etag) {
+
+        /**
+         * Создает запись, содержащую только заголовок задачи.
+         *
+         * @param key     ключ задачи
+         * @param updated время обновления задачи, мс с начала эпохи
+         * @param summary заголовок задачи
+         * @param etag    значение ETag последнего ответа сервера или <code>null</code>
+         */
+        public CachedIssue(String key, long updated, String summary, String etag) {
+            this(IssueRecord.ofSummary(key, updated, summary), etag);
+        }
+
+        /**
+         * Возвращает ключ задачи.
+         *
+         * @return ключ задачи
+         */
+        public String key() {
+            return record.key();
+        }
+
+        /**
+         * Возвращает время обновления задачи.
+         *
+         * @return время обновления, мс с начала эпохи
+         */
+        public long updated() {
+            return record.updated();
+        }
+
+        /**
+         * Возвращает заголовок задачи.
+         *
+         * @return заголовок или <code>null</code>, если поле summary не загружалось
+         */
+        public String summary() {
+            return record.field("summary");
+        }
+    }
+
+    /**
+     * Статистика кэша.
+     *
+     * @param memoryHits      попадания в свежие записи в памяти
+     * @param revalidatedHits попадания в записи, подтвержденные легким запросом
+     * @param diskHits        попадания в дисковый уровень
+     * @param misses          промахи, потребовавшие полной загрузки задачи
+     * @param evictions       вытеснения из памяти
+     * @param size            текущее количество записей в памяти
+     */
+    public record CacheStats(long memoryHits, long revalidatedHits, long diskHits, long misses,
+                             long evictions, int size) {
+    }
+
+    /**
+     * Запись в памяти вместе со временем последней проверки.
+     */
+    private record Entry(CachedIssue issue, long validatedAt) {
+    }
+}
@@ -0,0 +1,694 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Локальный индекс выгруженных задач.
+ * <p>
+ * Позволяет выполнять простые поиски по выгруженным данным без обращения к Jira. Индекс содержит
+ * инвертированный список терминов заголовка, описания и комментариев задач, а также колонки
+ * (время обновления и поля из параметра <code>jira.index.columns</code>, например статус и исполнитель),
+ * хранящиеся в отображаемых в память файлах.
+ * </p>
+ *
+ * <p><b>Обновление:</b></p>
+ * <ul>
+ *   <li>Задачи добавляются методами {@link #add(IssueRecord)} и {@link #addXmlEntry(IssueXmlEntry)} и становятся
+ *   доступными для поиска после {@link #commit()}, который записывает их в новый неизменяемый сегмент
+ *   ({@link IndexSegment}).</li>
+ *   <li>Повторно добавленная задача заменяет предыдущую версию: в более старых сегментах документ скрывается.</li>
+ *   <li>Когда количество сегментов превышает <code>jira.index.maxSegments</code>, объединяются самые новые
+ *   сегменты вместе с более старыми, не превышающими их по размеру, так что крупные старые сегменты переписываются
+ *   редко; скрытые документы при этом удаляются. {@link #compact()} объединяет все сегменты в один.</li>
+ *   <li>Список сегментов записывается атомарно в файл <code>segments</code>; сегменты, не попавшие в список
+ *   (например, после сбоя), удаляются при открытии индекса.</li>
+ * </ul>
+ *
+ * <p><b>Поиск:</b></p>
+ * <p>
+ * Запрос ({@link Query}) состоит из условий по терминам, равенства колонки значению и диапазона времени
+ * обновления, объединенных через <code>and</code>, <code>or</code> и <code>not</code>. Результаты упорядочены
+ * по времени обновления, начиная с самых свежих.
+ * </p>
+ *
+ * <p>
+ * Комментарии извлекаются из XML-выгрузок, которые разбираются и тогда, когда хранилище их не сохраняет.
+ * Комментарии, полученные раньше записи задачи, ждут ее несколько фиксаций ({@link #MAX_COMMENT_CARRY}), а затем
+ * отбрасываются. Если новая версия задачи добавлена без разбора XML-выгрузки, она сохраняет комментарии
+ * предыдущей версии.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class IssueIndex {
+
+    /** Текстовые поля, по которым строится инвертированный индекс. */
+    public static final List<String> TEXT_FIELDS = List.of("summary", "description", "comment");
+
+    /** Максимальная длина индексируемого термина. */
+    private static final int MAX_TERM_LENGTH = 64;
+
+    /** Количество фиксаций, которые комментарии без записи задачи ждут ее, прежде чем будут отброшены. */
+    static final int MAX_COMMENT_CARRY = 8;
+
+    private final Path directory;
+    private final List<String> columns;
+    private final int maxSegments;
+
+    /** Задачи, добавленные после последней фиксации. */
+    private final Map<String, PendingDocument> pending = new LinkedHashMap<>();
+
+    /** Текущее состояние индекса; заменяется целиком при фиксации. */
+    private volatile View view;
+
+    /** Последняя версия каждой задачи: номер сегмента в старших 32 битах, номер документа в младших. */
+    private final Map<String, Long> latest = new HashMap<>();
+
+    /** Номер следующего сегмента. */
+    private long nextSegment;
+
+    /**
+     * Сегменты индекса и признаки живых документов в них.
+     */
+    private record View(List<IndexSegment> segments, List<BitSet> live) {
+    }
+
+    /**
+     * Задача, ожидающая фиксации.
+     */
+    private static final class PendingDocument {
+        IssueRecord record;
+        final List<String> comments = new ArrayList<>();
+        /** Количество фиксаций, пережитых комментариями без записи задачи. */
+        int carried;
+    }
+
+    /**
+     * Результат поиска.
+     *
+     * @param key     ключ задачи
+     * @param updated время обновления задачи, мс с начала эпохи
+     * @param columns значения колонок индекса; значение может быть <code>null</code>
+     */
+    public record Hit(String key, long updated, Map<String, String> columns) {
+    }
+
+    /**
+     * Открывает индекс в каталоге, создавая его при необходимости.
+     *
+     * @param directory   каталог индекса
+     * @param columns     имена полей, хранящихся в колонках
+     * @param maxSegments количество сегментов, при превышении которого сегменты объединяются
+     * @throws IOException при ошибке чтения индекса
+     */
+    public IssueIndex(Path directory, List<String> columns, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.columns = List.copyOf(columns);
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+
+        Path list = directory.resolve("segments");
+        List<String> names = Files.exists(list) ? Files.readAllLines(list, StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isBlank()).toList() : List.of();
+        deleteUnlisted(names);
+
+        List<IndexSegment> segments = new ArrayList<>();
+        List<BitSet> live = new ArrayList<>();
+        for (String name : names) {
+            IndexSegment segment = IndexSegment.open(directory.resolve(name), this.columns);
+            segments.add(segment);
+            live.add(new BitSet(segment.size()));
+            markLive(segments, live, segments.size() - 1);
+            nextSegment = Math.max(nextSegment, Long.parseLong(name.substring(4)) + 1);
+        }
+        this.view = new View(List.copyOf(segments), live);
+    }
+
+    /**
+     * Создает индекс по параметрам <code>jira.index.*</code>.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @return индекс
+     * @throws IOException при ошибке чтения индекса
+     */
+    public static IssueIndex create(JiraConnect jiraConnect) throws IOException {
+        return new IssueIndex(Path.of(jiraConnect.getIndexDir()), jiraConnect.getIndexColumns(),
+                jiraConnect.getIndexMaxSegments());
+    }
+
+    private void deleteUnlisted(List<String> names) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : entries.filter(Files::isDirectory).toList()) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith("seg-") && !names.contains(name)) {
+                    deleteRecursively(entry);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Отмечает документы сегмента живыми и скрывает предыдущие версии тех же задач в более старых сегментах.
+     */
+    private void markLive(List<IndexSegment> segments, List<BitSet> live, int segmentIndex) {
+        IndexSegment segment = segments.get(segmentIndex);
+        BitSet bits = live.get(segmentIndex);
+        for (int doc = 0; doc < segment.size(); doc++) {
+            bits.set(doc);
+            Long previous = latest.put(segment.key(doc), ((long) segmentIndex << 32) | doc);
+            if (previous != null) {
+                live.get((int) (previous >>> 32)).clear((int) (long) previous);
+            }
+        }
+    }
+
+    /**
+     * Добавляет или заменяет задачу. Задача становится доступной для поиска после {@link #commit()}.
+     *
+     * @param record запись задачи
+     */
+    public void add(IssueRecord record) {
+        synchronized (pending) {
+            pending.computeIfAbsent(record.key(), key -> new PendingDocument()).record = record;
+        }
+    }
+
+    /**
+     * Добавляет запись, извлеченную из XML-выгрузки. Учитываются только комментарии.
+     * Подходит в качестве обработчика {@link JiraDataFetcher#setXmlEntryConsumer}.
+     *
+     * @param entry запись XML-выгрузки
+     */
+    public void addXmlEntry(IssueXmlEntry entry) {
+        if (entry instanceof IssueXmlEntry.Comment comment && comment.body() != null) {
+            synchronized (pending) {
+                pending.computeIfAbsent(comment.issueKey(), key -> new PendingDocument()).comments.add(comment.body());
+            }
+        }
+    }
+
+    /**
+     * Записывает добавленные задачи в новый сегмент и делает их доступными для поиска.
+     * <p>
+     * Комментарии, для которых еще нет записи задачи (например, фиксация выполнена между разбором XML-выгрузки
+     * и записью задачи), остаются ожидать следующей фиксации.
+     * </p>
+     *
+     * @throws IOException при ошибке записи
+     */
+    public synchronized void commit() throws IOException {
+        List<PendingDocument> documents = new ArrayList<>();
+        synchronized (pending) {
+            for (Iterator<PendingDocument> it = pending.values().iterator(); it.hasNext(); ) {
+                PendingDocument document = it.next();
+                if (document.record != null) {
+                    documents.add(document);
+                    it.remove();
+                } else if (++document.carried > MAX_COMMENT_CARRY) {
+                    // Запись задачи так и не пришла, например ее сохранение завершилось ошибкой
+                    it.remove();
+                }
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        IndexSegment.Builder builder = new IndexSegment.Builder(columns);
+        View current = view;
+        for (PendingDocument document : documents) {
+            IssueRecord record = document.record;
+            int doc = builder.addDocument(record.key(), record.updated(), record.fields());
+            for (String field : List.of("summary", "description")) {
+                String text = record.field(field);
+                if (text != null) {
+                    tokenize(text, false, term -> builder.addPosting(field + ':' + term, doc));
+                }
+            }
+            for (String comment : document.comments) {
+                tokenize(comment, true, term -> builder.addPosting("comment:" + term, doc));
+            }
+            Long previous = latest.get(record.key());
+            if (document.comments.isEmpty() && previous != null) {
+                // Задача добавлена без разбора XML-выгрузки: комментарии переносятся из предыдущей версии
+                IndexSegment segment = current.segments().get((int) (previous >>> 32));
+                for (String term : segment.terms(previous.intValue(), "comment:")) {
+                    builder.addPosting(term, doc);
+                }
+            }
+        }
+        addSegment(builder);
+        if (view.segments().size() > maxSegments) {
+            mergeTier();
+        }
+    }
+
+    /**
+     * Возвращает количество задач, ожидающих фиксации. Комментарии без записи задачи не учитываются.
+     *
+     * @return количество задач, добавленных после последней фиксации
+     */
+    int pendingCount() {
+        synchronized (pending) {
+            return (int) pending.values().stream().filter(document -> document.record != null).count();
+        }
+    }
+
+    /**
+     * Объединяет самые новые сегменты: к двум последним добавляются более старые сегменты, пока их количество
+     * живых документов не превышает суммарного размера уже выбранных.
+     *
+     * @throws IOException при ошибке записи
+     */
+    private void mergeTier() throws IOException {
+        View current = view;
+        int to = current.segments().size();
+        int from = to - 2;
+        long size = current.live().get(from).cardinality() + current.live().get(to - 1).cardinality();
+        while (from > 0 && current.live().get(from - 1).cardinality() <= size) {
+            from--;
+            size += current.live().get(from).cardinality();
+        }
+        merge(from, to);
+    }
+
+    /**
+     * Объединяет все сегменты в один, удаляя скрытые версии задач.
+     *
+     * @throws IOException при ошибке записи
+     */
+    public synchronized void compact() throws IOException {
+        if (view.segments().size() >= 2) {
+            merge(0, view.segments().size());
+        }
+    }
+
+    /**
+     * Заменяет подряд идущие сегменты одним, сохраняя порядок сегментов, от которого зависит выбор последней
+     * версии задачи.
+     *
+     * @param from номер первого объединяемого сегмента
+     * @param to   номер сегмента, следующего за последним объединяемым
+     * @throws IOException при ошибке записи
+     */
+    private void merge(int from, int to) throws IOException {
+        View current = view;
+        IndexSegment.Builder builder = new IndexSegment.Builder(columns);
+        for (int i = from; i < to; i++) {
+            current.segments().get(i).copyTo(current.live().get(i), builder);
+        }
+        String name = segmentName(nextSegment++);
+        builder.write(directory.resolve(name));
+        IndexSegment merged = IndexSegment.open(directory.resolve(name), columns);
+
+        List<IndexSegment> segments = new ArrayList<>(current.segments().subList(0, from));
+        segments.add(merged);
+        segments.addAll(current.segments().subList(to, current.segments().size()));
+        // Номера сегментов сдвигаются, поэтому признаки живых документов пересчитываются в памяти
+        latest.clear();
+        List<BitSet> live = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            live.add(new BitSet(segments.get(i).size()));
+            markLive(segments, live, i);
+        }
+        publish(segments, live);
+        // Старые сегменты удаляются после записи нового списка; отображенные файлы остаются доступны
+        // выполняющимся запросам до сборки мусора
+        for (IndexSegment segment : current.segments().subList(from, to)) {
+            deleteRecursively(directory.resolve(segment.name()));
+        }
+    }
+
+    private void addSegment(IndexSegment.Builder builder) throws IOException {
+        String name = segmentName(nextSegment++);
+        builder.write(directory.resolve(name));
+        IndexSegment segment = IndexSegment.open(directory.resolve(name), columns);
+        List<IndexSegment> segments = new ArrayList<>(view.segments());
+        List<BitSet> live = new ArrayList<>();
+        for (BitSet bits : view.live()) {
+            live.add((BitSet) bits.clone());
+        }
+        segments.add(segment);
+        live.add(new BitSet(segment.size()));
+        markLive(segments, live, segments.size() - 1);
+        publish(segments, live);
+    }
+
+    private void publish(List<IndexSegment> segments, List<BitSet> live) throws IOException {
+        StringBuilder list = new StringBuilder();
+        for (IndexSegment segment : segments) {
+            list.append(segment.name()).append('\n');
+        }
+        AtomicFiles.write(directory.resolve("segments"), list.toString().getBytes(StandardCharsets.UTF_8));
+        view = new View(List.copyOf(segments), List.copyOf(live));
+    }
+
+    private static String segmentName(long number) {
+        return String.format("seg-%06d", number);
+    }
+
+    /**
+     * Выполняет поиск.
+     *
+     * @param query запрос
+     * @param limit максимальное количество результатов
+     * @return найденные задачи, начиная с самых свежих
+     */
+    public List<Hit> search(Query query, int limit) {
+        View current = view;
+        Comparator<Hit> order = Comparator.comparingLong(Hit::updated).thenComparing(Hit::key, Comparator.reverseOrder());
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.comparingLong(ref -> ref[0]));
+        List<BitSet> matches = new ArrayList<>();
+        for (int i = 0; i < current.segments().size(); i++) {
+            IndexSegment segment = current.segments().get(i);
+            BitSet docs = evaluate(query, segment);
+            docs.and(current.live().get(i));
+            matches.add(docs);
+            // Отбор по времени обновления без чтения ключей: в куче остаются limit самых свежих документов
+            for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+                long updated = segment.updated(doc);
+                if (top.size() < limit) {
+                    top.add(new long[]{updated, i, doc});
+                } else if (limit > 0 && top.peek()[0] < updated) {
+                    top.poll();
+                    top.add(new long[]{updated, i, doc});
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top.size());
+        for (long[] ref : top) {
+            IndexSegment segment = current.segments().get((int) ref[1]);
+            int doc = (int) ref[2];
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String column : columns) {
+                values.put(column, segment.column(column, doc));
+            }
+            hits.add(new Hit(segment.key(doc), ref[0], values));
+        }
+        hits.sort(order.reversed());
+        return hits;
+    }
+
+    /**
+     * Возвращает количество задач, удовлетворяющих запросу.
+     *
+     * @param query запрос
+     * @return количество задач
+     */
+    public int count(Query query) {
+        View current = view;
+        int count = 0;
+        for (int i = 0; i < current.segments().size(); i++) {
+            BitSet docs = evaluate(query, current.segments().get(i));
+            docs.and(current.live().get(i));
+            count += docs.cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * Возвращает количество задач в индексе без учета незафиксированных.
+     *
+     * @return количество задач
+     */
+    public int size() {
+        View current = view;
+        return current.live().stream().mapToInt(BitSet::cardinality).sum();
+    }
+
+    /**
+     * Возвращает количество сегментов индекса.
+     *
+     * @return количество сегментов
+     */
+    public int segmentCount() {
+        return view.segments().size();
+    }
+
+    private BitSet evaluate(Query query, IndexSegment segment) {
+        return switch (query) {
+            case Query.Term term -> {
+                BitSet result = null;
+                for (String token : tokens(term.text())) {
+                    BitSet any = new BitSet(segment.size());
+                    for (String field : term.field() != null ? List.of(term.field()) : TEXT_FIELDS) {
+                        any.or(segment.postings(field + ':' + token));
+                    }
+                    if (result == null) {
+                        result = any;
+                    } else {
+                        result.and(any);
+                    }
+                }
+                yield result != null ? result : new BitSet();
+            }
+            case Query.FieldEquals equals -> segment.columnEquals(equals.column(), equals.value());
+            case Query.UpdatedRange range -> segment.updatedBetween(range.from(), range.to());
+            case Query.And and -> {
+                BitSet result = null;
+                for (Query operand : and.operands()) {
+                    BitSet docs = evaluate(operand, segment);
+                    if (result == null) {
+                        result = docs;
+                    } else {
+                        result.and(docs);
+                    }
+                }
+                yield result != null ? result : allDocuments(segment);
+            }
+            case Query.Or or -> {
+                BitSet result = new BitSet(segment.size());
+                for (Query operand : or.operands()) {
+                    result.or(evaluate(operand, segment));
+                }
+                yield result;
+            }
+            case Query.Not not -> {
+                BitSet result = evaluate(not.operand(), segment);
+                result.flip(0, segment.size());
+                yield result;
+            }
+        };
+    }
+
+    private static BitSet allDocuments(IndexSegment segment) {
+        BitSet all = new BitSet(segment.size());
+        all.set(0, segment.size());
+        return all;
+    }
+
+    /**
+     * Разбивает текст на термины: последовательности букв и цифр в нижнем регистре.
+     * В HTML (тексты комментариев из XML-выгрузки) пропускается разметка: тегом считается <code>&lt;</code>,
+     * за которым следует буква, <code>/</code> или <code>!</code>. В обычном тексте <code>&lt;</code> — разделитель.
+     *
+     * @param text     текст
+     * @param html     <code>true</code>, если текст содержит HTML-разметку
+     * @param consumer обработчик терминов
+     */
+    static void tokenize(String text, boolean html, Consumer<String> consumer) {
+        StringBuilder term = new StringBuilder();
+        boolean inTag = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (html && c == '<' && i + 1 < text.length() && isTagStart(text.charAt(i + 1))) {
+                inTag = true;
+            } else if (c == '>' && inTag) {
+                inTag = false;
+                c = ' ';
+            }
+            if (!inTag && Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (!term.isEmpty()) {
+                if (term.length() <= MAX_TERM_LENGTH) {
+                    consumer.accept(term.toString().toLowerCase(Locale.ROOT));
+                }
+                term.setLength(0);
+            }
+        }
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!';
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, false, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * Запрос к индексу.
+     */
+    public sealed interface Query {
+
+        /**
+         * Все термины текста встречаются в заголовке, описании или комментариях задачи
+         * (в любом из полей или в заданном).
+         *
+         * @param field текстовое поле из {@link #TEXT_FIELDS} или <code>null</code> для любого поля
+         * @param text  текст запроса
+         */
+        record Term(String field, String text) implements Query {
+        }
+
+        /**
+         * Значение колонки равно заданному.
+         *
+         * @param column имя колонки
+         * @param value  значение
+         */
+        record FieldEquals(String column, String value) implements Query {
+        }
+
+        /**
+         * Время обновления задачи в диапазоне <code>[from, to)</code>, мс с начала эпохи.
+         *
+         * @param from нижняя граница включительно
+         * @param to   верхняя граница не включительно
+         */
+        record UpdatedRange(long from, long to) implements Query {
+        }
+
+        /**
+         * Выполняются все условия.
+         *
+         * @param operands условия
+         */
+        record And(List<Query> operands) implements Query {
+        }
+
+        /**
+         * Выполняется хотя бы одно условие.
+         *
+         * @param operands условия
+         */
+        record Or(List<Query> operands) implements Query {
+        }
+
+        /**
+         * Условие не выполняется.
+         *
+         * @param operand условие
+         */
+        record Not(Query operand) implements Query {
+        }
+
+        static Query term(String text) {
+            return new Term(null, text);
+        }
+
+        static Query term(String field, String text) {
+            if (!TEXT_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Поле не индексируется как текст: " + field);
+            }
+            return new Term(field, text);
+        }
+
+        static Query field(String column, String value) {
+            return new FieldEquals(column, value);
+        }
+
+        static Query updatedBetween(long from, long to) {
+            return new UpdatedRange(from, to);
+        }
+
+        static Query and(Query... operands) {
+            return new And(List.of(operands));
+        }
+
+        static Query or(Query... operands) {
+            return new Or(List.of(operands));
+        }
+
+        static Query not(Query operand) {
+            return new Not(operand);
+        }
+    }
+
+    /**
+     * Хранилище результатов, которое передает записи задач в индекс.
+     * <p>
+     * Оборачивает основное хранилище: каждая запись сохраняется в нем и добавляется в индекс.
+     * При {@link #flush()} индекс фиксируется, только если накопилось <code>commitDocuments</code> задач или
+     * с прошлой фиксации прошло <code>commitIntervalMillis</code> мс, чтобы частые сбросы (например, на каждый
+     * веб-хук) не создавали сегмент из одного документа. При закрытии индекс фиксируется всегда.
+     * </p>
+     */
+    static final class IndexingSink implements IssueSink {
+        private final IssueSink delegate;
+        private final IssueIndex index;
+        private final int commitDocuments;
+        private final long commitIntervalNanos;
+
+        /** Время последней фиксации индекса по {@link System#nanoTime()}. */
+        private volatile long lastCommitNanos = System.nanoTime();
+
+        IndexingSink(IssueSink delegate, IssueIndex index, int commitDocuments, long commitIntervalMillis) {
+            this.delegate = delegate;
+            this.index = index;
+            this.commitDocuments = commitDocuments;
+            this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis);
+        }
+
+        @Override
+        public void write(IssueRecord record) throws IOException {
+            delegate.write(record);
+            index.add(record);
+        }
+
+        @Override
+        public boolean storesXml() {
+            return delegate.storesXml();
+        }
+
+        @Override
+        public Path xmlPath(String issueKey) {
+            return delegate.xmlPath(issueKey);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+            long now = System.nanoTime();
+            if (index.pendingCount() >= commitDocuments || now - lastCommitNanos >= commitIntervalNanos) {
+                index.commit();
+                lastCommitNanos = now;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                delegate.close();
+            } finally {
+                index.commit();
+            }
+        }
+    }
+}
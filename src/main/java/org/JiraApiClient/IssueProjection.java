@@ -0,0 +1,229 @@
+package org.JiraApiClient;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.util.EntityUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Облегченная загрузка задач с выбором полей.
+ * <p>
+ * Запрашивает у REST API только перечисленные поля (параметр <code>fields</code>) и разбирает ответ потоковым
+ * парсером JSON сразу в компактные записи {@link IssueRecord}, без построения полной доменной модели задачи.
+ * Это сокращает объем передаваемых данных, затраты процессора на разбор и нагрузку на сборщик мусора,
+ * что особенно заметно при пакетной выгрузке. Запросы выполняются через общий пул соединений и регулятор
+ * {@link JiraClientHolder}.
+ * </p>
+ *
+ * <p><b>Значения полей:</b></p>
+ * <ul>
+ *   <li>строки, числа и даты сохраняются в исходном текстовом виде;</li>
+ *   <li>у объектов (статус, исполнитель, тип задачи и т.п.) сохраняется отображаемое имя
+ *   (<code>displayName</code>, <code>name</code>, <code>value</code> или <code>key</code>);</li>
+ *   <li>массивы (метки, компоненты) сохраняются перечислением через запятую.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class IssueProjection {
+    private final JiraClientHolder clientHolder;
+    private final List<String> fields;
+    private final String fieldsParam;
+
+    /**
+     * Конструктор класса IssueProjection.
+     *
+     * @param clientHolder общий держатель клиентов Jira
+     * @param fields       имена загружаемых полей, например <code>summary, status, assignee, updated</code>
+     */
+    public IssueProjection(JiraClientHolder clientHolder, List<String> fields) {
+        this.clientHolder = clientHolder;
+        this.fields = List.copyOf(fields);
+        this.fieldsParam = fieldsParam(this.fields);
+    }
+
+    /**
+     * Формирует значение параметра <code>fields</code>. Время обновления запрашивается всегда:
+     * оно нужно для записи задачи.
+     *
+     * @param fields имена загружаемых полей
+     * @return имена полей через запятую
+     */
+    static String fieldsParam(Collection<String> fields) {
+        Set<String> requested = new LinkedHashSet<>(fields);
+        requested.add("updated");
+        return String.join(",", requested);
+    }
+
+    /**
+     * Возвращает имена загружаемых полей.
+     *
+     * @return имена полей
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Загружает выбранные поля одной задачи.
+     *
+     * @param issueKey ключ задачи
+     * @return запись задачи
+     * @throws IOException        при ошибке загрузки или ответе с кодом, отличным от 200
+     * @throws URISyntaxException если URL Jira некорректен
+     */
+    public IssueRecord fetch(String issueKey) throws IOException, URISyntaxException {
+        URI uri = endpoint("/rest/api/2/issue/" + issueKey).addParameter("fields", fieldsParam).build();
+        try (InputStream in = open(JiraMetrics.Endpoint.ISSUE, uri);
+             JsonParser parser = JiraJson.FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект JSON");
+            }
+            return JiraJson.readProjectedIssue(parser, fields);
+        }
+    }
+
+    /**
+     * Загружает страницу результатов поиска JQL, передавая задачи потребителю по мере разбора ответа.
+     *
+     * @param jql        запрос JQL
+     * @param startAt    номер первой задачи страницы
+     * @param maxResults размер страницы
+     * @param consumer   обработчик задач
+     * @return сведения о странице
+     * @throws IOException        при ошибке загрузки или ответе с кодом, отличным от 200
+     * @throws URISyntaxException если URL Jira некорректен
+     */
+    public SearchPage search(String jql, int startAt, int maxResults, Consumer<IssueRecord> consumer)
+            throws IOException, URISyntaxException {
+        return search(jql, startAt, maxResults, "strict", consumer);
+    }
+
+    /**
+     * Загружает задачи с перечисленными ключами одним поиском <code>key in (...)</code>.
+     * <p>
+     * Запрос выполняется с <code>validateQuery=warn</code>: несуществующий ключ не приводит к ошибке всего поиска,
+     * такая задача просто отсутствует в результатах. Перенесенная в другой проект задача возвращается под новым ключом.
+     * </p>
+     *
+     * @param keys     ключи задач
+     * @param consumer обработчик найденных задач
+     * @return сведения о странице
+     * @throws IOException        при ошибке загрузки или ответе с кодом, отличным от 200
+     * @throws URISyntaxException если URL Jira некорректен
+     */
+    public SearchPage searchKeys(Collection<String> keys, Consumer<IssueRecord> consumer)
+            throws IOException, URISyntaxException {
+        StringBuilder jql = new StringBuilder("key in (");
+        for (String key : keys) {
+            if (jql.length() > 8) {
+                jql.append(',');
+            }
+            jql.append('"').append(key.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        jql.append(')');
+        return search(jql.toString(), 0, keys.size(), "warn", consumer);
+    }
+
+    private SearchPage search(String jql, int startAt, int maxResults, String validateQuery, Consumer<IssueRecord> consumer)
+            throws IOException, URISyntaxException {
+        URI uri = endpoint("/rest/api/2/search")
+                .addParameter("jql", jql)
+                .addParameter("startAt", Integer.toString(startAt))
+                .addParameter("maxResults", Integer.toString(maxResults))
+                .addParameter("fields", fieldsParam)
+                .addParameter("validateQuery", validateQuery)
+                .build();
+        try (InputStream in = open(JiraMetrics.Endpoint.SEARCH, uri)) {
+            return JiraJson.readSearchPage(in, fields, consumer);
+        }
+    }
+
+    private URIBuilder endpoint(String path) {
+        URI server = clientHolder.getServerUri();
+        String basePath = server.getPath() == null ? "" : server.getPath().replaceAll("/+$", "");
+        return new URIBuilder(server).setPath(basePath + path);
+    }
+
+    /**
+     * Проверяет сессию, если это первый запрос или предыдущий завершился ошибкой аутентификации,
+     * выполняет запрос и возвращает поток тела ответа; закрытие потока возвращает соединение в пул
+     * и учитывает прочитанные байты в метриках.
+     */
+    private InputStream open(JiraMetrics.Endpoint endpoint, URI uri) throws IOException {
+        clientHolder.ensureSession();
+        HttpGet request = new HttpGet(uri);
+        request.setHeader(HttpHeaders.ACCEPT, "application/json");
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        CloseableHttpResponse response = clientHolder.execute(endpoint, request);
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode != 200) {
+            try (response) {
+                EntityUtils.consume(response.getEntity());
+            }
+            throw new JiraHttpException(statusCode);
+        }
+        InputStream content;
+        try {
+            content = response.getEntity().getContent();
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        return new FilterInputStream(content) {
+            private long bytesRead;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesRead += n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                    JiraMetrics.getInstance().recordBytesDownloaded(bytesRead);
+                }
+            }
+        };
+    }
+
+    /**
+     * Сведения о странице результатов поиска.
+     *
+     * @param total      общее количество найденных задач
+     * @param maxResults размер страницы, установленный сервером
+     * @param issues     количество задач на странице
+     */
+    public record SearchPage(long total, int maxResults, int issues) {
+    }
+}
@@ -0,0 +1,41 @@
+package org.JiraApiClient;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Компактное представление задачи для сохранения в хранилище результатов.
+ * <p>
+ * Содержит только ключ, время обновления и значения выбранных полей в виде строк,
+ * без полной доменной модели задачи Jira.
+ * </p>
+ *
+ * @param key     ключ задачи
+ * @param updated время обновления задачи, мс с начала эпохи
+ * @param fields  значения полей по именам; значение может быть <code>null</code>
+ * @version 1.0
+ */
+public record IssueRecord(String key, long updated, Map<String, String> fields) {
+
+    /**
+     * Создает запись, содержащую только заголовок задачи.
+     *
+     * @param key     ключ задачи
+     * @param updated время обновления задачи, мс с начала эпохи
+     * @param summary заголовок задачи
+     * @return запись с заголовком задачи
+     */
+    public static IssueRecord ofSummary(String key, long updated, String summary) {
+        return new IssueRecord(key, updated, Collections.singletonMap("summary", summary));
+    }
+
+    /**
+     * Возвращает значение поля.
+     *
+     * @param name имя поля
+     * @return значение поля или <code>null</code>, если поле отсутствует
+     */
+    public String field(String name) {
+        return fields.get(name);
+    }
+}
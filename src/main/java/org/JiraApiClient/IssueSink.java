@@ -0,0 +1,82 @@
+package org.JiraApiClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Хранилище результатов выгрузки задач.
+ * <p>
+ * Реализации определяют, как записи задач размещаются на диске. Запись может буферизоваться;
+ * гарантированно сохраненными на диске данные становятся после {@link #flush()} или {@link #close()}.
+ * </p>
+ *
+ * <p><b>Реализации:</b></p>
+ * <ul>
+ *   <li>{@link FilePerIssueSink} — отдельные файлы <code>&lt;ключ&gt;.txt</code> и <code>&lt;ключ&gt;_details.xml</code>;</li>
+ *   <li>{@link NdjsonSegmentSink} — сегменты NDJSON с групповой фиксацией и индексом по ключу;</li>
+ *   <li>{@link SnapshotStore.SnapshotWriter} — снимок в хранилище с адресацией по содержимому: неизмененные задачи
+ *   не записываются повторно.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public interface IssueSink extends Closeable {
+
+    /**
+     * Принимает запись задачи. Метод потокобезопасен.
+     *
+     * @param record запись задачи
+     * @throws IOException при ошибке записи
+     */
+    void write(IssueRecord record) throws IOException;
+
+    /**
+     * Сообщает, сохраняет ли хранилище XML-выгрузки задач.
+     *
+     * @return <code>true</code>, если {@link #xmlPath(String)} возвращает путь для XML-выгрузки
+     */
+    default boolean storesXml() {
+        return false;
+    }
+
+    /**
+     * Возвращает файл для XML-выгрузки задачи.
+     *
+     * @param issueKey ключ задачи
+     * @return путь к файлу или <code>null</code>, если хранилище не сохраняет XML-выгрузки
+     */
+    default Path xmlPath(String issueKey) {
+        return null;
+    }
+
+    /**
+     * Дожидается, пока все принятые записи будут сброшены на диск.
+     *
+     * @throws IOException если запись хотя бы одной принятой записи завершилась ошибкой
+     */
+    void flush() throws IOException;
+
+    /**
+     * Создает хранилище, выбранное параметром <code>jira.output.sink</code>.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @return хранилище результатов
+     * @throws IOException если не удалось открыть каталог хранилища
+     */
+    static IssueSink create(JiraConnect jiraConnect) throws IOException {
+        Path directory = Path.of(jiraConnect.getOutputDir());
+        String type = jiraConnect.getOutputSink();
+        return switch (type) {
+            case "files" -> new FilePerIssueSink(directory);
+            case "ndjson" -> new NdjsonSegmentSink(directory,
+                    jiraConnect.getOutputSegmentMaxMegabytes() * 1024L * 1024L,
+                    NdjsonSegmentSink.Compression.valueOf(jiraConnect.getOutputCompression().toUpperCase()),
+                    jiraConnect.getOutputGroupCommitMaxRecords());
+            case "snapshot" -> new SnapshotStore(directory, jiraConnect.isSnapshotDeltas(),
+                    jiraConnect.getSnapshotMaxDeltaChain())
+                    .begin(jiraConnect.isSnapshotCarryForward());
+            default -> throw new IllegalArgumentException("Неизвестный тип хранилища результатов: " + type);
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package org.JiraApiClient;
+
+import java.util.List;
+
+/**
+ * Структурированная запись, извлеченная из XML-выгрузки задачи ({@link IssueXmlExtractor}).
+ * <p>
+ * Каждая запись содержит ключ задачи, к которой она относится. Время указывается в миллисекундах с начала эпохи,
+ * <code>-1</code> означает, что время отсутствует или не распознано.
+ * </p>
+ *
+ * @version 1.0
+ */
+public sealed interface IssueXmlEntry {
+
+    /**
+     * Возвращает ключ задачи.
+     *
+     * @return ключ задачи или <code>null</code>, если элемент <code>key</code> не встретился до записи
+     */
+    String issueKey();
+
+    /**
+     * Комментарий к задаче.
+     *
+     * @param issueKey ключ задачи
+     * @param id       идентификатор комментария
+     * @param author   имя пользователя автора
+     * @param created  время создания
+     * @param body     текст комментария (HTML, как в выгрузке)
+     */
+    record Comment(String issueKey, String id, String author, long created, String body) implements IssueXmlEntry {
+    }
+
+    /**
+     * Запись о затраченном времени.
+     *
+     * @param issueKey         ключ задачи
+     * @param id               идентификатор записи
+     * @param author           имя пользователя автора
+     * @param started          время начала работы
+     * @param timeSpentSeconds затраченное время в секундах
+     * @param comment          комментарий к записи
+     */
+    record Worklog(String issueKey, String id, String author, long started, long timeSpentSeconds,
+                   String comment) implements IssueXmlEntry {
+    }
+
+    /**
+     * Значение пользовательского поля.
+     *
+     * @param issueKey ключ задачи
+     * @param id       идентификатор поля, например <code>customfield_10016</code>
+     * @param type     тип поля (атрибут <code>key</code>)
+     * @param name     отображаемое имя поля
+     * @param values   значения поля
+     */
+    record CustomField(String issueKey, String id, String type, String name, List<String> values) implements IssueXmlEntry {
+    }
+
+    /**
+     * Связь с другой задачей.
+     *
+     * @param issueKey    ключ задачи
+     * @param type        имя типа связи, например <code>Blocks</code>
+     * @param description описание направления связи, например <code>is blocked by</code>
+     * @param outward     <code>true</code> для исходящей связи
+     * @param targetKey   ключ связанной задачи
+     */
+    record Link(String issueKey, String type, String description, boolean outward, String targetKey) implements IssueXmlEntry {
+    }
+
+    /**
+     * Сведения о вложении (без содержимого).
+     *
+     * @param issueKey ключ задачи
+     * @param id       идентификатор вложения
+     * @param name     имя файла
+     * @param size     размер в байтах или <code>-1</code>
+     * @param author   имя пользователя автора
+     * @param created  время загрузки
+     */
+    record Attachment(String issueKey, String id, String name, long size, String author, long created) implements IssueXmlEntry {
+    }
+}
@@ -0,0 +1,395 @@
+package org.JiraApiClient;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый разбор XML-выгрузки задач Jira (формат <code>issue-xml</code> и <code>searchrequest-xml</code>).
+ * <p>
+ * Документ читается парсером StAX по одному событию, поэтому расход памяти не зависит от размера выгрузки:
+ * в памяти находится только текущий извлекаемый элемент. Комментарии, записи о затраченном времени,
+ * пользовательские поля, связи и сведения о вложениях передаются обработчику в виде записей {@link IssueXmlEntry}
+ * по мере чтения документа. Остальные элементы пропускаются.
+ * </p>
+ *
+ * <p><b>Извлекаемые элементы <code>item</code>:</b></p>
+ * <ul>
+ *   <li><code>comments/comment</code> — {@link IssueXmlEntry.Comment};</li>
+ *   <li><code>worklogs/worklog</code> — {@link IssueXmlEntry.Worklog}, если учет времени включен;</li>
+ *   <li><code>customfields/customfield</code> — {@link IssueXmlEntry.CustomField};</li>
+ *   <li><code>issuelinks/issuelinktype</code> — {@link IssueXmlEntry.Link} для каждой связанной задачи;</li>
+ *   <li><code>attachments/attachment</code> — {@link IssueXmlEntry.Attachment}.</li>
+ * </ul>
+ * <p>Внешние сущности и DTD не обрабатываются.</p>
+ *
+ * @version 1.0
+ */
+public final class IssueXmlExtractor {
+
+    /** Фабрика парсеров StAX; после настройки потокобезопасна. */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private IssueXmlExtractor() {
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Обработчик дочернего элемента; должен дочитать элемент до его закрывающего тега.
+     */
+    @FunctionalInterface
+    private interface ChildHandler {
+        void handle(String name) throws XMLStreamException;
+    }
+
+    /**
+     * Разбирает XML-выгрузку и передает извлеченные записи обработчику.
+     *
+     * @param in       XML-документ; не закрывается этим методом
+     * @param consumer обработчик записей
+     * @throws IOException если документ не является корректным XML
+     */
+    public static void extract(InputStream in, Consumer<IssueXmlEntry> consumer) throws IOException {
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("item")) {
+                        readItem(reader, consumer);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Некорректная XML-выгрузка: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Атомарно записывает XML-выгрузку в файл, одновременно разбирая ее.
+     * <p>
+     * Парсер читает данные прямо из входного потока (например, из тела HTTP-ответа), и каждый прочитанный блок
+     * сразу записывается в файл, поэтому разбор идет по мере поступления ответа, а документ не буферизуется целиком.
+     * Файл сохраняется байт в байт; если документ некорректен, файл не создается. Если файл не задан,
+     * документ только разбирается.
+     * </p>
+     *
+     * @param target   целевой файл или <code>null</code>, чтобы не сохранять выгрузку
+     * @param in       XML-документ; не закрывается этим методом
+     * @param consumer обработчик записей или <code>null</code>, чтобы только сохранить файл
+     * @return количество записанных или, если файл не задан, прочитанных байт
+     * @throws IOException при ошибке чтения, записи или разбора
+     */
+    public static long saveAndExtract(Path target, InputStream in, Consumer<IssueXmlEntry> consumer) throws IOException {
+        if (target == null) {
+            long[] count = {0};
+            InputStream tee = new TeeInputStream(in, new OutputStream() {
+                @Override
+                public void write(int b) {
+                    count[0]++;
+                }
+
+                @Override
+                public void write(byte[] buffer, int offset, int length) {
+                    count[0] += length;
+                }
+            });
+            if (consumer != null) {
+                extract(tee, consumer);
+            }
+            tee.transferTo(OutputStream.nullOutputStream());
+            return count[0];
+        }
+        if (consumer == null) {
+            return AtomicFiles.write(target, in);
+        }
+        return AtomicFiles.write(target, out -> {
+            InputStream tee = new TeeInputStream(in, out);
+            extract(tee, consumer);
+            // Парсер может остановиться до конца потока: остаток дописывается, чтобы файл совпадал с ответом
+            tee.transferTo(OutputStream.nullOutputStream());
+        });
+    }
+
+    private static void readItem(XMLStreamReader reader, Consumer<IssueXmlEntry> consumer) throws XMLStreamException {
+        String[] issueKey = {null};
+        children(reader, name -> {
+            switch (name) {
+                case "key" -> issueKey[0] = readText(reader);
+                case "comments" -> children(reader, child -> {
+                    if (child.equals("comment")) {
+                        String id = attribute(reader, "id");
+                        String author = attribute(reader, "author");
+                        long created = parseDate(attribute(reader, "created"));
+                        consumer.accept(new IssueXmlEntry.Comment(issueKey[0], id, author, created, readText(reader)));
+                    } else {
+                        skip(reader);
+                    }
+                });
+                case "worklogs" -> children(reader, child -> {
+                    if (child.equals("worklog")) {
+                        consumer.accept(readWorklog(reader, issueKey[0]));
+                    } else {
+                        skip(reader);
+                    }
+                });
+                case "customfields" -> children(reader, child -> {
+                    if (child.equals("customfield")) {
+                        consumer.accept(readCustomField(reader, issueKey[0]));
+                    } else {
+                        skip(reader);
+                    }
+                });
+                case "issuelinks" -> children(reader, child -> {
+                    if (child.equals("issuelinktype")) {
+                        readLinkType(reader, issueKey[0], consumer);
+                    } else {
+                        skip(reader);
+                    }
+                });
+                case "attachments" -> children(reader, child -> {
+                    if (child.equals("attachment")) {
+                        consumer.accept(new IssueXmlEntry.Attachment(issueKey[0], attribute(reader, "id"),
+                                attribute(reader, "name"), parseLong(attribute(reader, "size")),
+                                attribute(reader, "author"), parseDate(attribute(reader, "created"))));
+                    }
+                    skip(reader);
+                });
+                default -> skip(reader);
+            }
+        });
+    }
+
+    /**
+     * Читает запись о затраченном времени. Значения берутся из атрибутов или одноименных дочерних элементов.
+     */
+    private static IssueXmlEntry.Worklog readWorklog(XMLStreamReader reader, String issueKey) throws XMLStreamException {
+        String[] values = {attribute(reader, "id"), attribute(reader, "author"),
+                firstNonNull(attribute(reader, "startDate"), attribute(reader, "created")),
+                attribute(reader, "timeSpentSeconds"), null};
+        StringBuilder text = new StringBuilder();
+        readMixed(reader, text, name -> {
+            switch (name) {
+                case "author" -> values[1] = readText(reader);
+                case "startDate", "started" -> values[2] = readText(reader);
+                case "timeSpentSeconds" -> values[3] = readText(reader);
+                case "comment" -> values[4] = readText(reader);
+                default -> skip(reader);
+            }
+        });
+        String comment = values[4] != null ? values[4] : text.toString().trim();
+        return new IssueXmlEntry.Worklog(issueKey, values[0], values[1], parseDate(values[2]), parseLong(values[3]), comment);
+    }
+
+    private static IssueXmlEntry.CustomField readCustomField(XMLStreamReader reader, String issueKey) throws XMLStreamException {
+        String id = attribute(reader, "id");
+        String type = attribute(reader, "key");
+        String[] fieldName = {null};
+        List<String> values = new ArrayList<>();
+        children(reader, name -> {
+            switch (name) {
+                case "customfieldname" -> fieldName[0] = readText(reader);
+                case "customfieldvalues" -> children(reader, value -> values.add(readText(reader).trim()));
+                default -> skip(reader);
+            }
+        });
+        return new IssueXmlEntry.CustomField(issueKey, id, type, fieldName[0], List.copyOf(values));
+    }
+
+    private static void readLinkType(XMLStreamReader reader, String issueKey, Consumer<IssueXmlEntry> consumer)
+            throws XMLStreamException {
+        String[] typeName = {null};
+        children(reader, name -> {
+            switch (name) {
+                case "name" -> typeName[0] = readText(reader);
+                case "outwardlinks", "inwardlinks" -> {
+                    boolean outward = name.equals("outwardlinks");
+                    String description = attribute(reader, "description");
+                    children(reader, link -> children(reader, child -> {
+                        if (child.equals("issuekey")) {
+                            consumer.accept(new IssueXmlEntry.Link(issueKey, typeName[0], description, outward,
+                                    readText(reader)));
+                        } else {
+                            skip(reader);
+                        }
+                    }));
+                }
+                default -> skip(reader);
+            }
+        });
+    }
+
+    /**
+     * Перебирает дочерние элементы текущего элемента до его закрывающего тега.
+     */
+    private static void children(XMLStreamReader reader, ChildHandler handler) throws XMLStreamException {
+        readMixed(reader, null, handler);
+    }
+
+    /**
+     * Перебирает дочерние элементы текущего элемента, собирая его собственный текст.
+     *
+     * @param text буфер для текста или <code>null</code>, если текст не нужен
+     */
+    private static void readMixed(XMLStreamReader reader, StringBuilder text, ChildHandler handler) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> handler.handle(reader.getLocalName());
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return;
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                    if (text != null) {
+                        text.append(reader.getText());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Читает весь текст текущего элемента, включая текст вложенных элементов.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Пропускает текущий элемент вместе с вложенными элементами.
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    private static String firstNonNull(String first, String second) {
+        return first != null ? first : second;
+    }
+
+    /**
+     * Разбирает дату выгрузки в формате RFC 1123, например <code>Tue, 2 Jan 2024 10:00:00 +0000</code>.
+     *
+     * @return миллисекунды с начала эпохи или <code>-1</code>
+     */
+    static long parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Входной поток, копирующий все прочитанные данные в выходной поток.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        /** Признак достигнутого конца: тело HTTP-ответа закрывается само и не допускает повторного чтения. */
+        private boolean eof;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (eof) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                copy.write(b);
+            } else {
+                eof = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                copy.write(buffer, offset, n);
+            } else if (n < 0) {
+                eof = true;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Пропуск без копирования нарушил бы совпадение файла с ответом
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.JiraApiClient;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Облегченная загрузка задач через встроенный в JDK {@link HttpClient}.
+ * <p>
+ * Предназначена для коротких запусков, в которых время старта JVM и загрузки классов превышает время самих запросов:
+ * класс не использует Apache HttpClient. Ответы разбираются потоковым парсером JSON ({@link JiraJson})
+ * в компактные записи {@link IssueRecord}.
+ * </p>
+ *
+ * <p><b>Особенности:</b></p>
+ * <ul>
+ *   <li>Клиент предпочитает HTTP/2: по HTTPS протокол согласуется через ALPN, и параллельные запросы
+ *   (например, поля задачи и XML-выгрузка) мультиплексируются в одном соединении; при отказе сервера
+ *   используется HTTP/1.1.</li>
+ *   <li>Запросы проходят через собственный регулятор {@link JiraThrottle}: ответы 429 и 503 повторяются
+ *   с учетом <code>Retry-After</code>.</li>
+ *   <li>Сжатие gzip XML-выгрузки распаковывается при записи, содержимое сохраняется байт в байт;
+ *   при необходимости выгрузка разбирается по мере поступления ({@link IssueXmlExtractor}).</li>
+ *   <li>Длительность и результат каждой попытки учитываются в {@link JiraMetrics}.</li>
+ * </ul>
+ * <p>Экземпляр потокобезопасен.</p>
+ *
+ * @version 1.0
+ */
+public class JdkHttpIssueBackend implements IssueBackend {
+    private final URI serverUri;
+    private final String authorization;
+    private final List<String> fields;
+    private final String fieldsParam;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final JiraThrottle throttle;
+    private final JiraMetrics metrics = JiraMetrics.getInstance();
+
+    /**
+     * Конструктор класса JdkHttpIssueBackend, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     */
+    public JdkHttpIssueBackend(JiraConnect jiraConnect) {
+        this.serverUri = URI.create(jiraConnect.getJiraUrl());
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (jiraConnect.getJiraUsername() + ":" + jiraConnect.getJiraApiToken()).getBytes(StandardCharsets.UTF_8));
+        this.fields = List.copyOf(jiraConnect.getIssueFields());
+        this.fieldsParam = IssueProjection.fieldsParam(fields);
+        this.requestTimeout = Duration.ofSeconds(jiraConnect.getHttpTimeoutSeconds());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.throttle = new JiraThrottle(jiraConnect);
+    }
+
+    @Override
+    public IssueRecord fetchIssue(String issueKey) throws IOException {
+        URI uri = URI.create(serverUri + "/rest/api/2/issue/" + encode(issueKey) + "?fields=" + encode(fieldsParam));
+        HttpResponse<InputStream> response = send(JiraMetrics.Endpoint.ISSUE, request(uri).header("Accept", "application/json"));
+        byte[] body;
+        try (InputStream in = response.body()) {
+            body = in.readAllBytes();
+        }
+        metrics.recordBytesDownloaded(body.length);
+        try (JsonParser parser = JiraJson.FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект JSON");
+            }
+            return JiraJson.readProjectedIssue(parser, fields);
+        }
+    }
+
+    @Override
+    public long downloadIssueXml(String issueKey, Path target, Consumer<IssueXmlEntry> entries) throws IOException {
+        URI uri = IssueBackend.xmlUri(serverUri, issueKey);
+        HttpResponse<InputStream> response = send(JiraMetrics.Endpoint.ISSUE_XML, request(uri).header("Accept-Encoding", "gzip"));
+        boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+        try (InputStream body = response.body(); InputStream in = gzip ? new GZIPInputStream(body) : body) {
+            long written = IssueXmlExtractor.saveAndExtract(target, in, entries);
+            metrics.recordBytesDownloaded(written);
+            return written;
+        }
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(requestTimeout).header("Authorization", authorization).GET();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Выполняет запрос через регулятор частоты и проверяет код ответа.
+     *
+     * @param endpoint точка API для учета в метриках
+     * @param builder  подготовленный запрос
+     * @return ответ с кодом 200; тело необходимо закрыть, чтобы освободить место в пределе параллелизма
+     * @throws ThrottledException если попытки исчерпаны, а сервер продолжает ограничивать частоту
+     * @throws JiraHttpException  при ответе с кодом, отличным от 200
+     * @throws IOException        при ошибке ввода-вывода
+     */
+    private HttpResponse<InputStream> send(JiraMetrics.Endpoint endpoint, HttpRequest.Builder builder) throws IOException {
+        HttpRequest request = builder.build();
+        return throttle.call(() -> {
+            long startNanos = System.nanoTime();
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException e) {
+                metrics.recordRequest(endpoint, System.nanoTime() - startNanos, JiraMetrics.TRANSPORT_ERROR);
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Запрос прерван: " + request.uri());
+            }
+            // Учитывается время до получения заголовков ответа; тело читается вызывающим кодом
+            int statusCode = response.statusCode();
+            metrics.recordRequest(endpoint, System.nanoTime() - startNanos, statusCode);
+            HttpHeaders headers = response.headers();
+            throttle.observeRateLimitHeaders(headers.firstValue("X-RateLimit-Remaining").orElse(null),
+                    headers.firstValue("X-RateLimit-Reset").orElse(null),
+                    headers.firstValue("X-RateLimit-NearLimit").orElse(null));
+            if (statusCode == 200) {
+                return response;
+            }
+            response.body().close();
+            if (statusCode == 429 || statusCode == 503) {
+                throw new ThrottledException(statusCode,
+                        JiraThrottle.parseRetryAfterMillis(headers.firstValue("Retry-After").orElse(null)));
+            }
+            throw new JiraHttpException(statusCode);
+        }, ReleasingResponse::of);
+    }
+
+    /**
+     * Ответ, тело которого при закрытии освобождает место в пределе параллелизма регулятора:
+     * ограничение распространяется и на чтение тела ответа.
+     *
+     * @param response исходный ответ
+     * @param body     тело ответа, закрытие которого освобождает место
+     */
+    private record ReleasingResponse(HttpResponse<InputStream> response, InputStream body)
+            implements HttpResponse<InputStream> {
+
+        static HttpResponse<InputStream> of(HttpResponse<InputStream> response, Runnable release) {
+            return new ReleasingResponse(response, new FilterInputStream(response.body()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return response.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
+    /**
+     * Закрывает HTTP-клиент, дождавшись завершения начатых запросов.
+     */
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+}
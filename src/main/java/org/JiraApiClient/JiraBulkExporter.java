@@ -0,0 +1,142 @@
+package org.JiraApiClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Класс для пакетной выгрузки задач Jira по запросу JQL.
+ * <p>
+ * Выполняет постраничный поиск через <code>/rest/api/2/search</code>. Первая страница
+ * загружается синхронно, чтобы узнать общее количество задач и фактический размер страницы,
+ * остальные страницы загружаются параллельно в виртуальных потоках. Количество одновременно
+ * загружаемых страниц ограничивается параметром <code>jira.bulk.parallelism</code>, а частота запросов —
+ * общим регулятором {@link JiraThrottle}.
+ * </p>
+ * <p>
+ * Запрашиваются только указанные поля, страницы разбираются потоковым парсером в компактные записи
+ * (см. {@link IssueProjection}).
+ * </p>
+ * <p>
+ * Задачи передаются потребителю сразу по мере получения каждой страницы и не накапливаются в памяти,
+ * поэтому потребитель должен быть потокобезопасным. По завершении выводится пропускная способность
+ * (задач в секунду).
+ * </p>
+ *
+ * @version 1.0
+ */
+public class JiraBulkExporter {
+    private final JiraClientHolder clientHolder;
+    private final int parallelism;
+    private final int pageSize;
+
+    /**
+     * Конструктор класса JiraBulkExporter, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect  экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param clientHolder общий держатель клиентов Jira
+     */
+    public JiraBulkExporter(JiraConnect jiraConnect, JiraClientHolder clientHolder) {
+        this.clientHolder = clientHolder;
+        this.parallelism = Math.max(1, jiraConnect.getBulkParallelism());
+        this.pageSize = Math.max(1, jiraConnect.getBulkPageSize());
+    }
+
+    /**
+     * Выгружает выбранные поля всех задач, удовлетворяющих запросу JQL, передавая записи потребителю
+     * по мере разбора ответов.
+     *
+     * @param jql      запрос JQL
+     * @param fields   имена загружаемых полей
+     * @param consumer потокобезопасный обработчик полученных записей
+     * @return статистика выгрузки
+     */
+    public ExportStats exportRecords(String jql, List<String> fields, Consumer<IssueRecord> consumer) {
+        IssueProjection projection = new IssueProjection(clientHolder, fields);
+        long startNanos = System.nanoTime();
+        AtomicLong issueCount = new AtomicLong();
+        AtomicLong pageCount = new AtomicLong();
+        AtomicLong failedPages = new AtomicLong();
+        long total = 0;
+
+        try {
+            // Первая страница определяет общее количество задач и размер страницы, установленный сервером
+            IssueProjection.SearchPage first = projection.search(jql, 0, pageSize, consumer);
+            pageCount.incrementAndGet();
+            issueCount.addAndGet(first.issues());
+
+            total = first.total();
+            int step = first.maxResults() > 0 ? first.maxResults() : pageSize;
+
+            Semaphore permits = new Semaphore(parallelism);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int startAt = step; startAt < total; startAt += step) {
+                    permits.acquire();
+                    int pageStart = startAt;
+                    executor.submit(() -> {
+                        try {
+                            IssueProjection.SearchPage page = projection.search(jql, pageStart, step, consumer);
+                            pageCount.incrementAndGet();
+                            issueCount.addAndGet(page.issues());
+                        } catch (Exception e) {
+                            failedPages.incrementAndGet();
+                            System.err.println("Ошибка при получении страницы " + pageStart + ": " + e.getMessage());
+                            System.err.println("Error retrieving page " + pageStart + ": " + e.getMessage());
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+        } catch (JiraHttpException e) {
+            failedPages.incrementAndGet();
+            if (e.getStatusCode() == 401) {
+                clientHolder.invalidateSession();
+            }
+            System.err.println("Ошибка при выполнении поиска JQL: " + e.getMessage());
+            System.err.println("Error executing JQL search: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Пакетная выгрузка прервана.");
+            System.err.println("Bulk export interrupted.");
+        } catch (Exception e) {
+            failedPages.incrementAndGet();
+            System.err.println("Ошибка при попытке подключения к Jira или при получении данных: " + e.getMessage());
+            System.err.println("Error attempting to connect to Jira or retrieve data: " + e.getMessage());
+        }
+
+        ExportStats stats = new ExportStats(total, issueCount.get(), pageCount.get(), failedPages.get(),
+                Duration.ofNanos(System.nanoTime() - startNanos));
+        System.out.printf("Выгружено задач: %d за %.1f с (%.1f задач/с), ошибок страниц: %d%n",
+                stats.issues(), stats.elapsed().toMillis() / 1000.0, stats.issuesPerSecond(), stats.failedPages());
+        System.out.printf("Exported issues: %d in %.1f s (%.1f issues/s), failed pages: %d%n",
+                stats.issues(), stats.elapsed().toMillis() / 1000.0, stats.issuesPerSecond(), stats.failedPages());
+        return stats;
+    }
+
+    /**
+     * Статистика пакетной выгрузки.
+     *
+     * @param total       количество задач, найденных запросом, по данным первой страницы
+     * @param issues      количество выгруженных задач
+     * @param pages       количество успешно загруженных страниц
+     * @param failedPages количество страниц, загрузка которых завершилась ошибкой
+     * @param elapsed     общее время выгрузки
+     */
+    public record ExportStats(long total, long issues, long pages, long failedPages, Duration elapsed) {
+
+        /**
+         * Возвращает пропускную способность выгрузки.
+         *
+         * @return количество задач в секунду
+         */
+        public double issuesPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : issues * 1_000_000_000.0 / nanos;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.JiraApiClient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потокобезопасный держатель долгоживущих клиентов Jira.
+ * <p>
+ * Вместо создания нового клиента и нового соединения на каждый вызов класс хранит один HTTP-клиент
+ * на основе пула keep-alive соединений, который разделяется между всеми потоками.
+ * Сессия проверяется один раз при первом обращении и повторно только после ошибки аутентификации
+ * (см. {@link #ensureSession()} и {@link #invalidateSession()}).
+ * </p>
+ *
+ * <p><b>Пул соединений:</b></p>
+ * <ul>
+ *   <li>Запросы REST и выгрузки XML идут через общий пул, размер которого ограничен
+ *   параметрами <code>jira.http.maxConnections</code> и <code>jira.http.maxConnectionsPerRoute</code>.</li>
+ *   <li>Статистика пула и доля переиспользованных соединений доступны через {@link #getPoolStats()}.</li>
+ * </ul>
+ * <p>
+ * Все запросы проходят через общий регулятор {@link JiraThrottle}, который ограничивает частоту и параллелизм и повторяет ответы 429 и 503.
+ * Длительность и результат каждой попытки учитываются в {@link JiraMetrics}.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class JiraClientHolder implements Closeable {
+    private final URI serverUri;
+
+    /** Пул соединений для прямых HTTP-запросов. */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /** HTTP-клиент, работающий поверх общего пула. */
+    private final CloseableHttpClient httpClient;
+
+    /** Общий регулятор частоты запросов. */
+    private final JiraThrottle throttle;
+
+    /** Метрики запросов. */
+    private final JiraMetrics metrics = JiraMetrics.getInstance();
+
+    /** Количество выполненных HTTP-запросов. */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /** Количество открытых физических соединений. */
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    /** Признак того, что сессия уже проверена. */
+    private volatile boolean sessionValidated;
+
+    /**
+     * Конструктор класса JiraClientHolder, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     */
+    public JiraClientHolder(JiraConnect jiraConnect) {
+        try {
+            this.serverUri = new URI(jiraConnect.getJiraUrl());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Некорректный URL Jira: " + jiraConnect.getJiraUrl(), e);
+        }
+        this.throttle = new JiraThrottle(jiraConnect);
+
+        // Фабрика соединений подсчитывает каждое новое физическое соединение
+        ManagedHttpClientConnectionFactory connectionFactory = new ManagedHttpClientConnectionFactory() {
+            @Override
+            public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+                connectionsOpened.incrementAndGet();
+                return super.create(route, config);
+            }
+        };
+        this.connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                connectionFactory);
+        connectionManager.setMaxTotal(Math.max(1, jiraConnect.getHttpMaxConnections()));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, jiraConnect.getHttpMaxConnectionsPerRoute()));
+
+        String credentials = Base64.getEncoder().encodeToString(
+                (jiraConnect.getJiraUsername() + ":" + jiraConnect.getJiraApiToken()).getBytes(StandardCharsets.UTF_8));
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultHeaders(List.of(new BasicHeader(HttpHeaders.AUTHORIZATION, "Basic " + credentials)))
+                .evictIdleConnections(jiraConnect.getHttpKeepAliveSeconds(), TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * Возвращает базовый URL Jira.
+     *
+     * @return URL Jira
+     */
+    public URI getServerUri() {
+        return serverUri;
+    }
+
+    /**
+     * Возвращает общий регулятор частоты запросов.
+     *
+     * @return регулятор запросов
+     */
+    public JiraThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Проверяет сессию через общий пул соединений, если она еще не проверена или была сброшена после ошибки
+     * аутентификации. Вызывается перед первым запросом к Jira.
+     *
+     * @throws JiraHttpException если Jira не подтвердила сессию, например ответила 401
+     * @throws IOException       при ошибке ввода-вывода
+     */
+    public void ensureSession() throws IOException {
+        if (sessionValidated) {
+            return;
+        }
+        synchronized (this) {
+            if (sessionValidated) {
+                return;
+            }
+            HttpGet request = new HttpGet(serverUri.toString().replaceAll("/+$", "") + "/rest/auth/1/session");
+            request.setHeader(HttpHeaders.ACCEPT, "application/json");
+            try (CloseableHttpResponse response = execute(JiraMetrics.Endpoint.SESSION, request)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (statusCode != 200) {
+                    throw new JiraHttpException(statusCode);
+                }
+            }
+            sessionValidated = true;
+        }
+    }
+
+    /**
+     * Сбрасывает признак проверенной сессии, чтобы при следующем обращении она была проверена заново.
+     * Вызывается после ошибок аутентификации.
+     */
+    public void invalidateSession() {
+        sessionValidated = false;
+    }
+
+    /**
+     * Выполняет HTTP-запрос через общий пул соединений. Заголовок авторизации добавляется автоматически.
+     * <p>
+     * Запрос проходит через регулятор частоты; ответы 429 и 503 повторяются с учетом <code>Retry-After</code>,
+     * а ответ 401 сбрасывает признак проверенной сессии.
+     * Ответ необходимо закрыть, чтобы соединение вернулось в пул. Место в пределе параллелизма регулятора
+     * освобождается после получения заголовков: тела ответов REST разбираются потоково, и обработчики записей
+     * могут ждать другие запросы. Для передачи больших тел используется {@link #executeTransfer}.
+     * </p>
+     *
+     * @param endpoint точка API для учета в метриках
+     * @param request  HTTP-запрос
+     * @return ответ сервера
+     * @throws ThrottledException если попытки исчерпаны, а сервер продолжает ограничивать частоту
+     * @throws IOException        при ошибке ввода-вывода
+     */
+    public CloseableHttpResponse execute(JiraMetrics.Endpoint endpoint, HttpUriRequest request) throws IOException {
+        return execute(endpoint, request, false);
+    }
+
+    /**
+     * Выполняет HTTP-запрос, тело ответа которого передается целиком (XML-выгрузки).
+     * <p>
+     * В отличие от {@link #execute(JiraMetrics.Endpoint, HttpUriRequest)} место в пределе параллелизма регулятора
+     * занято до закрытия ответа, поэтому регулятор ограничивает и одновременные передачи тел. Пока ответ
+     * не закрыт, нельзя ждать других запросов через этот же держатель клиентов.
+     * </p>
+     *
+     * @param endpoint точка API для учета в метриках
+     * @param request  HTTP-запрос
+     * @return ответ сервера; его необходимо закрыть
+     * @throws ThrottledException если попытки исчерпаны, а сервер продолжает ограничивать частоту
+     * @throws IOException        при ошибке ввода-вывода
+     */
+    public CloseableHttpResponse executeTransfer(JiraMetrics.Endpoint endpoint, HttpUriRequest request) throws IOException {
+        return execute(endpoint, request, true);
+    }
+
+    private CloseableHttpResponse execute(JiraMetrics.Endpoint endpoint, HttpUriRequest request, boolean holdUntilClosed)
+            throws IOException {
+        return throttle.call(() -> {
+            requestCount.incrementAndGet();
+            long startNanos = System.nanoTime();
+            CloseableHttpResponse response;
+            try {
+                response = httpClient.execute(request);
+            } catch (IOException e) {
+                metrics.recordRequest(endpoint, System.nanoTime() - startNanos, JiraMetrics.TRANSPORT_ERROR);
+                throw e;
+            }
+            // Учитывается время до получения заголовков ответа; тело читается вызывающим кодом
+            metrics.recordRequest(endpoint, System.nanoTime() - startNanos, response.getStatusLine().getStatusCode());
+            throttle.observeRateLimitHeaders(headerValue(response, "X-RateLimit-Remaining"),
+                    headerValue(response, "X-RateLimit-Reset"), headerValue(response, "X-RateLimit-NearLimit"));
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == 401) {
+                // Учетные данные больше не принимаются: сессия будет проверена заново перед следующим запросом
+                invalidateSession();
+            }
+            if (statusCode == 429 || statusCode == 503) {
+                long retryAfter = JiraThrottle.parseRetryAfterMillis(headerValue(response, HttpHeaders.RETRY_AFTER));
+                EntityUtils.consumeQuietly(response.getEntity());
+                response.close();
+                throw new ThrottledException(statusCode, retryAfter);
+            }
+            return response;
+        }, holdUntilClosed ? JiraClientHolder::releaseOnClose : null);
+    }
+
+    /**
+     * Оборачивает ответ так, чтобы место в пределе параллелизма регулятора освобождалось при закрытии ответа,
+     * то есть после чтения тела, а не сразу после получения заголовков.
+     */
+    private static CloseableHttpResponse releaseOnClose(CloseableHttpResponse response, Runnable release) {
+        return (CloseableHttpResponse) Proxy.newProxyInstance(CloseableHttpResponse.class.getClassLoader(),
+                new Class<?>[]{CloseableHttpResponse.class}, (proxy, method, args) -> {
+                    boolean close = method.getName().equals("close") && method.getParameterCount() == 0;
+                    try {
+                        return method.invoke(response, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (close) {
+                            release.run();
+                        }
+                    }
+                });
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * Возвращает текущую статистику общего пула соединений.
+     *
+     * @return статистика пула
+     */
+    public ConnectionPoolStats getPoolStats() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax(),
+                requestCount.get(), connectionsOpened.get());
+    }
+
+    /**
+     * Закрывает общий пул соединений.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Статистика пула соединений.
+     *
+     * @param leased            количество соединений, занятых запросами
+     * @param available         количество свободных соединений в пуле
+     * @param pending           количество запросов, ожидающих соединение
+     * @param max               максимальный размер пула
+     * @param requests          количество выполненных запросов
+     * @param connectionsOpened количество открытых физических соединений
+     */
+    public record ConnectionPoolStats(int leased, int available, int pending, int max,
+                                      long requests, long connectionsOpened) {
+
+        /**
+         * Возвращает долю запросов, выполненных на уже открытых соединениях.
+         *
+         * @return доля переиспользования от 0 до 1
+         */
+        public double reuseRate() {
+            return requests == 0 ? 0 : Math.max(0, requests - connectionsOpened) / (double) requests;
+        }
+    }
+}
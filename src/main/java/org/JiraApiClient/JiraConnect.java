@@ -31,6 +31,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Класс для извлечения данных из конфигурационного файла JIRA.
@@ -52,6 +55,9 @@ public class JiraConnect {
     /** Токен API JIRA. */
     private String jiraApiToken;
 
+    /** Загруженная конфигурация, из которой читаются дополнительные параметры. */
+    private final PropertiesConfiguration config;
+
     /** Имя конфигурационного файла. */
     private static final String CONFIG_FILE = "src/main/resources/config.properties";
 
@@ -60,10 +66,20 @@ public class JiraConnect {
      * Если файл отсутствует, он создается с параметрами по умолчанию.
      */
     public JiraConnect() {
-        PropertiesConfiguration config = loadConfiguration();
-        this.jiraUrl = config.getString("jira.url", "https://example.atlassian.net");
-        this.jiraUsername = config.getString("jira.username", "defaultUsername");
-        this.jiraApiToken = config.getString("jira.api.token", "defaultApiToken");
+        this(null);
+    }
+
+    /**
+     * Конструктор, использующий уже загруженную конфигурацию вместо конфигурационного файла.
+     * Используется, например, в тестах производительности с локальным сервером-заглушкой.
+     *
+     * @param config конфигурация; если <code>null</code>, настройки загружаются из конфигурационного файла
+     */
+    public JiraConnect(PropertiesConfiguration config) {
+        this.config = config != null ? config : loadConfiguration();
+        this.jiraUrl = this.config.getString("jira.url", "https://example.atlassian.net");
+        this.jiraUsername = this.config.getString("jira.username", "defaultUsername");
+        this.jiraApiToken = this.config.getString("jira.api.token", "defaultApiToken");
     }
 
     /**
@@ -156,4 +172,566 @@ public class JiraConnect {
         return jiraApiToken;
     }
 
+    /**
+     * Возвращает количество страниц поиска, загружаемых одновременно в пакетном режиме.
+     *
+     * @return степень параллелизма пакетной выгрузки
+     */
+    public int getBulkParallelism() {
+        return config.getInt("jira.bulk.parallelism", 8);
+    }
+
+    /**
+     * Возвращает запрашиваемый размер страницы результатов поиска JQL.
+     * <p>Jira может ограничить это значение сверху; фактический размер берется из ответа сервера.</p>
+     *
+     * @return размер страницы поиска
+     */
+    public int getBulkPageSize() {
+        return config.getInt("jira.bulk.pageSize", 100);
+    }
+
+    /**
+     * Возвращает максимальное количество соединений в общем пуле HTTP.
+     *
+     * @return размер пула соединений
+     */
+    public int getHttpMaxConnections() {
+        return config.getInt("jira.http.maxConnections", 20);
+    }
+
+    /**
+     * Возвращает максимальное количество соединений пула на один хост.
+     *
+     * @return ограничение соединений на хост
+     */
+    public int getHttpMaxConnectionsPerRoute() {
+        return config.getInt("jira.http.maxConnectionsPerRoute", 20);
+    }
+
+    /**
+     * Возвращает время, в течение которого простаивающее соединение остается в пуле.
+     *
+     * @return время жизни простаивающего соединения в секундах
+     */
+    public int getHttpKeepAliveSeconds() {
+        return config.getInt("jira.http.keepAliveSeconds", 30);
+    }
+
+    /**
+     * Возвращает каталог, в котором хранятся контрольные точки инкрементальной синхронизации.
+     *
+     * @return путь к каталогу контрольных точек
+     */
+    public String getSyncCheckpointDir() {
+        return config.getString("jira.sync.checkpointDir", "checkpoints");
+    }
+
+    /**
+     * Возвращает часовой пояс, в котором Jira интерпретирует даты в запросах JQL
+     * (часовой пояс профиля пользователя).
+     *
+     * @return идентификатор часового пояса
+     */
+    public String getSyncTimeZone() {
+        return config.getString("jira.sync.timeZone", ZoneId.systemDefault().getId());
+    }
+
+    /**
+     * Возвращает признак включенного кэша задач.
+     *
+     * @return <code>true</code>, если кэш задач включен
+     */
+    public boolean isCacheEnabled() {
+        return config.getBoolean("jira.cache.enabled", false);
+    }
+
+    /**
+     * Возвращает каталог дискового уровня кэша задач.
+     *
+     * @return путь к каталогу кэша
+     */
+    public String getCacheDir() {
+        return config.getString("jira.cache.dir", "cache");
+    }
+
+    /**
+     * Возвращает максимальное количество задач в кэше в памяти.
+     *
+     * @return размер кэша в памяти
+     */
+    public int getCacheMaxEntries() {
+        return config.getInt("jira.cache.maxEntries", 1000);
+    }
+
+    /**
+     * Возвращает время, в течение которого задача из кэша не перепроверяется на сервере.
+     *
+     * @return время свежести записи в секундах
+     */
+    public long getCacheTtlSeconds() {
+        return config.getLong("jira.cache.ttlSeconds", 60);
+    }
+
+    /**
+     * Возвращает среднюю допустимую скорость запросов к Jira.
+     *
+     * @return запросов в секунду
+     */
+    public double getRateRequestsPerSecond() {
+        return config.getDouble("jira.rate.requestsPerSecond", 10);
+    }
+
+    /**
+     * Возвращает допустимый всплеск запросов сверх средней скорости.
+     *
+     * @return емкость корзины токенов
+     */
+    public double getRateBurst() {
+        return config.getDouble("jira.rate.burst", 20);
+    }
+
+    /**
+     * Возвращает начальный предел одновременных запросов для контроллера AIMD.
+     *
+     * @return начальный предел параллелизма
+     */
+    public int getRateInitialConcurrency() {
+        return config.getInt("jira.rate.initialConcurrency", 4);
+    }
+
+    /**
+     * Возвращает максимальный предел одновременных запросов для контроллера AIMD.
+     *
+     * @return максимальный предел параллелизма
+     */
+    public int getRateMaxConcurrency() {
+        return config.getInt("jira.rate.maxConcurrency", 32);
+    }
+
+    /**
+     * Возвращает максимальное количество попыток запроса при ограничении частоты.
+     *
+     * @return количество попыток
+     */
+    public int getRetryMaxAttempts() {
+        return config.getInt("jira.retry.maxAttempts", 5);
+    }
+
+    /**
+     * Возвращает базовую задержку перед повтором запроса.
+     *
+     * @return задержка в миллисекундах
+     */
+    public long getRetryBaseDelayMillis() {
+        return config.getLong("jira.retry.baseDelayMillis", 500);
+    }
+
+    /**
+     * Возвращает максимальную задержку перед повтором запроса.
+     *
+     * @return задержка в миллисекундах
+     */
+    public long getRetryMaxDelayMillis() {
+        return config.getLong("jira.retry.maxDelayMillis", 30000);
+    }
+
+    /**
+     * Возвращает максимальную задержку из <code>Retry-After</code> или <code>X-RateLimit-Reset</code>, которую
+     * стоит ждать. Если сервер требует ждать дольше, запрос завершается ошибкой, а не повторяется раньше срока.
+     *
+     * @return задержка в миллисекундах
+     */
+    public long getRetryMaxServerDelayMillis() {
+        return config.getLong("jira.retry.maxServerDelayMillis", 300000);
+    }
+
+    /**
+     * Возвращает порт HTTP-сервера метрик в формате Prometheus.
+     *
+     * @return номер порта; 0 — сервер метрик отключен
+     */
+    public int getMetricsPort() {
+        return config.getInt("jira.metrics.port", 0);
+    }
+
+    /**
+     * Возвращает адрес, на котором слушает HTTP-сервер метрик.
+     *
+     * @return адрес сервера метрик
+     */
+    public String getMetricsHost() {
+        return config.getString("jira.metrics.host", "127.0.0.1");
+    }
+
+    /**
+     * Возвращает признак публикации метрик через JMX.
+     *
+     * @return <code>true</code>, если метрики публикуются через JMX
+     */
+    public boolean isMetricsJmxEnabled() {
+        return config.getBoolean("jira.metrics.jmx", true);
+    }
+
+    /**
+     * Возвращает тип хранилища результатов выгрузки.
+     *
+     * @return <code>files</code> — отдельные файлы на задачу, <code>ndjson</code> — сегменты NDJSON
+     */
+    public String getOutputSink() {
+        return config.getString("jira.output.sink", "files");
+    }
+
+    /**
+     * Возвращает каталог для результатов выгрузки.
+     *
+     * @return путь к каталогу
+     */
+    public String getOutputDir() {
+        return config.getString("jira.output.dir", ".");
+    }
+
+    /**
+     * Возвращает размер, после которого сегмент NDJSON закрывается и начинается новый.
+     *
+     * @return размер сегмента в мегабайтах
+     */
+    public int getOutputSegmentMaxMegabytes() {
+        return config.getInt("jira.output.segmentMaxMegabytes", 64);
+    }
+
+    /**
+     * Возвращает способ сжатия сегментов NDJSON.
+     *
+     * @return <code>none</code> или <code>gzip</code>
+     */
+    public String getOutputCompression() {
+        return config.getString("jira.output.compression", "none");
+    }
+
+    /**
+     * Возвращает максимальное количество записей, фиксируемых на диске одной операцией.
+     *
+     * @return размер групповой фиксации
+     */
+    public int getOutputGroupCommitMaxRecords() {
+        return config.getInt("jira.output.groupCommitMaxRecords", 512);
+    }
+
+    /**
+     * Возвращает имена полей задачи, загружаемых при выгрузке.
+     *
+     * @return имена полей, например <code>summary, status, assignee, updated</code>
+     */
+    public List<String> getIssueFields() {
+        return Arrays.stream(config.getString("jira.fields", "summary").split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Возвращает емкость очереди перед каждым этапом конвейера выгрузки.
+     *
+     * @return количество элементов в очереди
+     */
+    public int getPipelineQueueCapacity() {
+        return config.getInt("jira.pipeline.queueCapacity", 256);
+    }
+
+    /**
+     * Возвращает количество потоков этапа загрузки полей задач.
+     *
+     * @return количество потоков
+     */
+    public int getPipelineFetchConcurrency() {
+        return config.getInt("jira.pipeline.fetchConcurrency", 8);
+    }
+
+    /**
+     * Возвращает количество потоков этапа загрузки XML-выгрузок.
+     *
+     * @return количество потоков; 0 — XML-выгрузки не загружаются
+     */
+    public int getPipelineXmlConcurrency() {
+        return config.getInt("jira.pipeline.xmlConcurrency", 4);
+    }
+
+    /**
+     * Возвращает количество потоков этапа преобразования записей.
+     *
+     * @return количество потоков
+     */
+    public int getPipelineTransformConcurrency() {
+        return config.getInt("jira.pipeline.transformConcurrency", 1);
+    }
+
+    /**
+     * Возвращает количество потоков этапа записи в хранилище результатов.
+     *
+     * @return количество потоков
+     */
+    public int getPipelineWriteConcurrency() {
+        return config.getInt("jira.pipeline.writeConcurrency", 2);
+    }
+
+    /**
+     * Возвращает период вывода статистики конвейера.
+     *
+     * @return период в секундах; 0 — статистика выводится только по завершении
+     */
+    public int getPipelineReportSeconds() {
+        return config.getInt("jira.pipeline.reportSeconds", 10);
+    }
+
+    /**
+     * Возвращает максимальное количество ключей в одном пакетном запросе при объединении запросов задач.
+     *
+     * @return размер пакета
+     */
+    public int getCoalesceMaxBatchSize() {
+        return config.getInt("jira.coalesce.maxBatchSize", 50);
+    }
+
+    /**
+     * Возвращает время, в течение которого ключи собираются в пакет перед отправкой.
+     *
+     * @return время ожидания в миллисекундах
+     */
+    public long getCoalesceMaxWaitMillis() {
+        return config.getLong("jira.coalesce.maxWaitMillis", 5);
+    }
+
+    /**
+     * Возвращает способ загрузки задач: <code>apache</code> (пул соединений Apache HttpClient)
+     * или <code>jdk</code> (встроенный в JDK HTTP-клиент).
+     * Системное свойство <code>-Djira.backend</code> имеет приоритет над файлом конфигурации; его задает, например,
+     * задача сборки <code>generateCdsArchive</code>.
+     *
+     * @return способ загрузки задач
+     */
+    public String getBackend() {
+        return System.getProperty("jira.backend", config.getString("jira.backend", "apache"));
+    }
+
+    /**
+     * Возвращает время ожидания соединения и ответа для встроенного в JDK HTTP-клиента.
+     *
+     * @return время ожидания в секундах
+     */
+    public int getHttpTimeoutSeconds() {
+        return config.getInt("jira.http.timeoutSeconds", 30);
+    }
+
+    /**
+     * Проверяет, хранятся ли измененные задачи в снимках как разность с предыдущей версией.
+     *
+     * @return <code>true</code>, если разности включены
+     */
+    public boolean isSnapshotDeltas() {
+        return config.getBoolean("jira.snapshot.deltas", true);
+    }
+
+    /**
+     * Возвращает максимальную длину цепочки разностей в хранилище снимков (не больше 127).
+     *
+     * @return длина цепочки
+     */
+    public int getSnapshotMaxDeltaChain() {
+        return config.getInt("jira.snapshot.maxDeltaChain", 8);
+    }
+
+    /**
+     * Проверяет, переносятся ли в новый снимок задачи предыдущего снимка, не выгруженные в этот раз.
+     *
+     * @return <code>true</code>, если задачи переносятся
+     */
+    public boolean isSnapshotCarryForward() {
+        return config.getBoolean("jira.snapshot.carryForward", true);
+    }
+
+    /**
+     * Проверяет, включен ли локальный индекс выгруженных задач.
+     *
+     * @return <code>true</code>, если индекс обновляется при выгрузке
+     */
+    public boolean isIndexEnabled() {
+        return config.getBoolean("jira.index.enabled", false);
+    }
+
+    /**
+     * Возвращает каталог локального индекса задач.
+     *
+     * @return путь к каталогу индекса
+     */
+    public String getIndexDir() {
+        return config.getString("jira.index.dir", "index");
+    }
+
+    /**
+     * Возвращает поля, хранящиеся в колонках локального индекса.
+     *
+     * @return список имен полей
+     */
+    public List<String> getIndexColumns() {
+        return Arrays.stream(config.getString("jira.index.columns", "status,assignee").split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Возвращает количество сегментов локального индекса, при превышении которого сегменты объединяются.
+     *
+     * @return количество сегментов
+     */
+    public int getIndexMaxSegments() {
+        return config.getInt("jira.index.maxSegments", 16);
+    }
+
+    /**
+     * Возвращает количество новых задач, при котором сброс хранилища фиксирует локальный индекс.
+     *
+     * @return количество задач
+     */
+    public int getIndexCommitDocuments() {
+        return config.getInt("jira.index.commitDocuments", 1000);
+    }
+
+    /**
+     * Возвращает интервал, после которого сброс хранилища фиксирует локальный индекс независимо от количества
+     * новых задач.
+     *
+     * @return интервал в секундах
+     */
+    public int getIndexCommitSeconds() {
+        return config.getInt("jira.index.commitSeconds", 30);
+    }
+
+    /**
+     * Возвращает адрес, на котором принимаются веб-хуки Jira в режиме <code>server</code>.
+     *
+     * @return адрес для прослушивания
+     */
+    public String getWebhookHost() {
+        return config.getString("jira.webhook.host", "127.0.0.1");
+    }
+
+    /**
+     * Возвращает порт, на котором принимаются веб-хуки Jira.
+     *
+     * @return номер порта
+     */
+    public int getWebhookPort() {
+        return config.getInt("jira.webhook.port", 8090);
+    }
+
+    /**
+     * Возвращает путь, по которому принимаются веб-хуки Jira.
+     *
+     * @return путь
+     */
+    public String getWebhookPath() {
+        return config.getString("jira.webhook.path", "/webhook");
+    }
+
+    /**
+     * Возвращает секрет для проверки подписи веб-хуков.
+     *
+     * @return секрет или пустая строка, если подпись не проверяется
+     */
+    public String getWebhookSecret() {
+        return config.getString("jira.webhook.secret", "");
+    }
+
+    /**
+     * Возвращает время без новых событий задачи, после которого она повторно выгружается.
+     *
+     * @return время в миллисекундах
+     */
+    public long getWebhookDebounceMillis() {
+        return config.getLong("jira.webhook.debounceMillis", 2000);
+    }
+
+    /**
+     * Возвращает максимальную задержку повторной выгрузки задачи после первого события.
+     *
+     * @return время в миллисекундах
+     */
+    public long getWebhookMaxDelayMillis() {
+        return config.getLong("jira.webhook.maxDelayMillis", 30000);
+    }
+
+    /**
+     * Возвращает период сверки с Jira в режиме <code>server</code>.
+     *
+     * @return период в минутах; 0 — сверка отключена
+     */
+    public int getWebhookReconcileMinutes() {
+        return config.getInt("jira.webhook.reconcileMinutes", 15);
+    }
+
+    /**
+     * Проверяет, включена ли загрузка вложений задач.
+     *
+     * @return <code>true</code>, если вложения загружаются вместе с XML-выгрузками
+     */
+    public boolean isAttachmentsEnabled() {
+        return config.getBoolean("jira.attachments.enabled", false);
+    }
+
+    /**
+     * Возвращает каталог для вложений задач.
+     *
+     * @return путь к каталогу
+     */
+    public String getAttachmentsDir() {
+        return config.getString("jira.attachments.dir", "attachments");
+    }
+
+    /**
+     * Возвращает максимальное количество одновременных передач вложений.
+     *
+     * @return количество передач
+     */
+    public int getAttachmentsParallelism() {
+        return config.getInt("jira.attachments.parallelism", 4);
+    }
+
+    /**
+     * Возвращает размер части, которыми параллельно загружаются большие вложения.
+     *
+     * @return размер части в мегабайтах
+     */
+    public int getAttachmentsPartSizeMegabytes() {
+        return config.getInt("jira.attachments.partSizeMegabytes", 8);
+    }
+
+    /**
+     * Возвращает ограничение общей скорости загрузки вложений.
+     *
+     * @return байт в секунду; 0 — без ограничения
+     */
+    public long getAttachmentsMaxBytesPerSecond() {
+        return config.getLong("jira.attachments.maxBytesPerSecond", 0);
+    }
+
+    /**
+     * Возвращает путь к файлу именованных профилей подключения.
+     *
+     * @return путь к файлу профилей
+     */
+    public String getProfilesFile() {
+        return config.getString("jira.profiles.file", "src/main/resources/profiles.properties");
+    }
+
+    /**
+     * Возвращает загруженную конфигурацию, на основе которой строятся конфигурации профилей подключения.
+     *
+     * @return конфигурация
+     */
+    PropertiesConfiguration getConfiguration() {
+        return config;
+    }
+
 }
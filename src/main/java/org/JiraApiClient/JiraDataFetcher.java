@@ -1,15 +1,20 @@
 package org.JiraApiClient;
 
-import com.atlassian.jira.rest.client.api.JiraRestClient;
-import com.atlassian.jira.rest.client.api.domain.Issue;
-import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
-import com.atlassian.jira.rest.client.api.RestClientException;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
 
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Класс для извлечения данных из Jira.
@@ -25,62 +30,253 @@ import java.nio.charset.StandardCharsets;
  *   <li>Сообщает о необходимости проверки файла конфигурации в случае неудачи.</li>
  * </ul>
  *
+ * <p>
+ * Загружаются только поля, перечисленные в параметре <code>jira.fields</code> (см. {@link IssueProjection}).
+ * Результаты записываются в хранилище {@link IssueSink}, выбранное параметром <code>jira.output.sink</code>.
+ * </p>
+ *
  * <p><b>Конфигурационный файл:</b></p>
  * <p>Файл конфигурации должен находиться по следующему пути: <code>src/main/resources/config.properties</code></p>
  *
  * @version 1.0
  */
-public class JiraDataFetcher {
+public class JiraDataFetcher implements Closeable {
     private final String jiraUrl;
-    private final String jiraUsername;
-    private final String jiraApiToken;
+
+    /** Общий держатель клиентов Jira. */
+    private final JiraClientHolder clientHolder;
+
+    /** Признак того, что держатель клиентов создан этим экземпляром и должен быть им закрыт. */
+    private final boolean ownsClientHolder;
+
+    /** Кэш задач или <code>null</code>, если кэширование отключено. */
+    private final IssueCache cache;
+
+    /** Хранилище результатов выгрузки. */
+    private final IssueSink sink;
+
+    /** Загрузка выбранных полей задачи. */
+    private final IssueProjection projection;
+
+    /** Загрузка задачи и XML-выгрузки через общий держатель клиентов. */
+    private final ApacheIssueBackend backend;
+
+    /** Объединение одновременных запросов задач; создается при первом обращении (см. {@link #getLoader()}). */
+    private volatile CoalescingIssueLoader loader;
+
+    /** Максимальное количество ключей в одном объединенном запросе. */
+    private final int coalesceMaxBatchSize;
+
+    /** Максимальное время ожидания других запросов перед объединенным запросом, мс. */
+    private final long coalesceMaxWaitMillis;
+
+    /** Локальный индекс выгруженных задач или <code>null</code>, если индекс отключен. */
+    private final IssueIndex index;
+
+    /** Загрузка вложений или <code>null</code>, если она отключена. */
+    private final AttachmentDownloader attachments;
+
+    /** Обработчик записей, извлекаемых из XML-выгрузок, или <code>null</code>. */
+    private volatile Consumer<IssueXmlEntry> xmlEntryConsumer;
 
     /**
      * Конструктор класса JiraDataFetcher, использующий конфигурацию из переданного экземпляра JiraConnect.
+     * Создает собственный держатель клиентов, который закрывается вместе с экземпляром.
      *
      * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
      */
     public JiraDataFetcher(JiraConnect jiraConnect) {
+        this(jiraConnect, new JiraClientHolder(jiraConnect), true);
+    }
+
+    /**
+     * Конструктор класса JiraDataFetcher, использующий общий держатель клиентов.
+     * Держатель клиентов не закрывается при закрытии экземпляра.
+     *
+     * @param jiraConnect  экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param clientHolder общий держатель клиентов Jira
+     */
+    public JiraDataFetcher(JiraConnect jiraConnect, JiraClientHolder clientHolder) {
+        this(jiraConnect, clientHolder, false);
+    }
+
+    private JiraDataFetcher(JiraConnect jiraConnect, JiraClientHolder clientHolder, boolean ownsClientHolder) {
         this.jiraUrl = jiraConnect.getJiraUrl();
-        this.jiraUsername = jiraConnect.getJiraUsername();
-        this.jiraApiToken = jiraConnect.getJiraApiToken();
+        this.clientHolder = clientHolder;
+        this.ownsClientHolder = ownsClientHolder;
+        this.cache = jiraConnect.isCacheEnabled() ? new IssueCache(jiraConnect) : null;
+        this.projection = new IssueProjection(clientHolder, jiraConnect.getIssueFields());
+        this.backend = new ApacheIssueBackend(clientHolder, projection, false);
+        this.coalesceMaxBatchSize = jiraConnect.getCoalesceMaxBatchSize();
+        this.coalesceMaxWaitMillis = jiraConnect.getCoalesceMaxWaitMillis();
+        try {
+            this.attachments = jiraConnect.isAttachmentsEnabled()
+                    ? AttachmentDownloader.create(jiraConnect, clientHolder) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть каталог вложений: " + e.getMessage(), e);
+        }
+        try {
+            this.index = jiraConnect.isIndexEnabled() ? IssueIndex.create(jiraConnect) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть индекс задач: " + e.getMessage(), e);
+        }
+        if ((attachments != null || index != null) && jiraConnect.getPipelineXmlConcurrency() == 0) {
+            // Вложения и комментарии берутся только из XML-выгрузок, а конвейер без этапа xml их не загружает
+            System.err.println("Предупреждение: этап xml конвейера отключен (jira.pipeline.xmlConcurrency=0), "
+                    + "вложения и комментарии при конвейерной выгрузке не загружаются.");
+            System.err.println("Warning: the pipeline xml stage is disabled (jira.pipeline.xmlConcurrency=0), "
+                    + "attachments and comments are not loaded by pipeline exports.");
+        }
+        try {
+            // Индекс обновляется вместе с хранилищем: записи добавляются в него и фиксируются при сбросе по порогу
+            IssueSink output = IssueSink.create(jiraConnect);
+            this.sink = index != null ? new IssueIndex.IndexingSink(output, index,
+                    jiraConnect.getIndexCommitDocuments(), jiraConnect.getIndexCommitSeconds() * 1000L) : output;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть хранилище результатов: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Возвращает держатель клиентов, используемый этим экземпляром.
+     *
+     * @return держатель клиентов Jira
+     */
+    public JiraClientHolder getClientHolder() {
+        return clientHolder;
     }
 
     /**
-     * Извлекает данные задачи по ее ключу и сохраняет их в файл.
+     * Возвращает кэш задач.
+     *
+     * @return кэш задач или <code>null</code>, если кэширование отключено
+     */
+    public IssueCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Возвращает хранилище результатов выгрузки.
+     *
+     * @return хранилище результатов
+     */
+    public IssueSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Возвращает локальный индекс выгруженных задач.
+     *
+     * @return индекс или <code>null</code>, если индекс отключен параметром <code>jira.index.enabled</code>
+     */
+    public IssueIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Задает обработчик записей, извлекаемых из XML-выгрузок задач.
+     * <p>
+     * Если обработчик задан, каждая загружаемая XML-выгрузка разбирается парсером StAX по мере поступления ответа
+     * ({@link IssueXmlExtractor}): комментарии, записи о затраченном времени, пользовательские поля, связи и
+     * сведения о вложениях передаются обработчику, а исходный XML по-прежнему сохраняется в файл.
+     * Обработчик может вызываться одновременно из нескольких потоков.
+     * </p>
+     *
+     * @param consumer обработчик записей или <code>null</code>, чтобы отключить разбор
+     */
+    public void setXmlEntryConsumer(Consumer<IssueXmlEntry> consumer) {
+        this.xmlEntryConsumer = consumer;
+    }
+
+    /**
+     * Асинхронно загружает выбранные поля задачи.
+     * <p>
+     * Предназначен для многопоточного использования: одновременные запросы одного ключа разделяют одну загрузку,
+     * а разные ключи, запрошенные почти одновременно, загружаются одним поиском (см. {@link CoalescingIssueLoader}).
+     * </p>
+     *
+     * @param issueKey Ключ задачи в Jira
+     * @return результат загрузки; завершается с {@link java.util.NoSuchElementException}, если задача не найдена
+     */
+    public CompletableFuture<IssueRecord> loadIssue(String issueKey) {
+        return getLoader().load(issueKey);
+    }
+
+    /**
+     * Возвращает загрузчик, объединяющий одновременные запросы задач.
+     * <p>Загрузчик запускает собственные потоки, поэтому создается только при первом обращении.</p>
+     *
+     * @return загрузчик задач
+     */
+    public CoalescingIssueLoader getLoader() {
+        CoalescingIssueLoader current = loader;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (loader == null) {
+                loader = CoalescingIssueLoader.forProjection(projection, coalesceMaxBatchSize, coalesceMaxWaitMillis);
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * Извлекает данные задачи по ее ключу и сохраняет их в хранилище результатов.
+     * <p>Метод потокобезопасен: все вызовы используют общий клиент и пул соединений.</p>
      *
      * @param issueKey Ключ задачи в Jira
      */
     public void fetchIssueData(String issueKey) {
-        JiraRestClient client = null;
         try {
-            // Создание URI для подключения
-            URI uri = new URI(jiraUrl);
-            client = new AsynchronousJiraRestClientFactory()
-                    .createWithBasicHttpAuthentication(uri, jiraUsername, jiraApiToken);
-
-            // Проверка подключения к Jira
-            if (client.getSessionClient().getCurrentSession().claim() == null) {
-                System.err.println("Ошибка: Не удалось подключиться к Jira. Проверьте параметры конфигурации.");
-                System.err.println("Error: Failed to connect to Jira. Please check the configuration settings.");
-                System.err.println("Пожалуйста, проверьте настройки файла конфигурации подключения.");
-                System.err.println("Please check the connection configuration file settings.");
+            if (cache != null) {
+                // Данные задачи берутся из кэша, при необходимости перепроверяются или загружаются
+                IssueCache.CachedIssue issue = getIssue(issueKey);
+                sink.write(issue.record());
+                Path xmlPath = sink.xmlPath(issueKey);
+                Path cachedXml = cache.xmlPath(issueKey, issue.updated());
+                if (xmlPath != null) {
+                    // XML-выгрузка попадает в кэш только тогда, когда ее сохраняет хранилище результатов
+                    try {
+                        if (!Files.exists(cachedXml)) {
+                            downloadIssueXml(issueKey, cachedXml);
+                        } else if (parsesXml()) {
+                            // Выгрузка из кэша разбирается так же, как загруженная
+                            try (InputStream in = Files.newInputStream(cachedXml)) {
+                                IssueXmlExtractor.extract(in, xmlEntries());
+                            }
+                        }
+                        Files.copy(cachedXml, xmlPath, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (NoSuchFileException e) {
+                        // Параллельно сохраненная более новая версия задачи удалила эту выгрузку из кэша:
+                        // выгрузка загружается прямо в хранилище
+                        downloadIssueXml(issueKey, xmlPath);
+                    }
+                    System.out.println("XML успешно получен и сохранен по пути: " + xmlPath);
+                    System.out.println("XML successfully retrieved and saved at: " + xmlPath);
+                } else if (parsesXml()) {
+                    // Хранилище не сохраняет XML, но записи выгрузки нужны индексу или загрузке вложений
+                    fetchIssueXml(issueKey, null);
+                }
                 return;
             }
 
-            // Получение задачи
-            Issue issue = client.getIssueClient().getIssue(issueKey).claim();
-            String issueData = "Задача: " + issue.getSummary();
+            // Получение только выбранных полей задачи через общий пул соединений
+            IssueRecord record = backend.fetchIssue(issueKey);
 
-            // Сохранение текстовых данных в файл
-            saveToFile(issueKey + ".txt", issueData);
+            // Сохранение текстовых данных в хранилище результатов
+            saveIssue(record);
 
-            // Получение XML данных задачи и сохранение их в файл
-            fetchIssueXml(issueKey);
+            // Получение XML данных задачи и сохранение их в файл, если хранилище сохраняет XML-выгрузки;
+            // без файла выгрузка только разбирается для индекса и загрузки вложений
+            Path xmlPath = sink.xmlPath(issueKey);
+            if (xmlPath != null || parsesXml()) {
+                fetchIssueXml(issueKey, xmlPath);
+            }
 
-        } catch (RestClientException e) {
+        } catch (JiraHttpException e) {
             // Обработка ошибок аутентификации
-            if (e.getStatusCode().isPresent() && e.getStatusCode().get() == 401) {
+            if (e.getStatusCode() == 401) {
                 System.err.println("Ошибка: Не удалось подключиться к Jira. " +
                         "Аутентификация не удалась. Проверьте имя пользователя и токен API.");
                 System.err.println("Error: Failed to connect to Jira. Authentication failed. Please check the username and API token.");
@@ -95,52 +291,117 @@ public class JiraDataFetcher {
             System.err.println("Error attempting to connect to Jira or retrieve data: " + e.getMessage());
             System.err.println("Пожалуйста, проверьте настройки файла конфигурации подключения.");
             System.err.println("Please check the connection configuration file settings.");
-        } finally {
-            // Закрытие клиента
-            if (client != null) {
-                try {
-                    client.close();
-                } catch (IOException e) {
-                    System.err.println("Ошибка при закрытии подключения к Jira: " + e.getMessage());
-                    System.err.println("Error closing connection to Jira: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает данные задачи через кэш.
+     * <p>
+     * Свежая запись из памяти возвращается без обращения к Jira. Устаревшая запись перепроверяется легким
+     * запросом <code>fields=updated</code> (с заголовком <code>If-None-Match</code>, если сервер прислал ETag);
+     * если задача не изменилась, ее поля повторно не загружаются. Задача, которой нет в кэше, загружается сразу,
+     * без перепроверки.
+     * </p>
+     *
+     * @param issueKey Ключ задачи в Jira
+     * @return данные задачи
+     * @throws IOException        при ошибке загрузки или записи
+     * @throws URISyntaxException если URL Jira некорректен
+     * @throws IllegalStateException если кэширование отключено
+     */
+    public IssueCache.CachedIssue getIssue(String issueKey) throws IOException, URISyntaxException {
+        if (cache == null) {
+            throw new IllegalStateException("Кэширование задач отключено");
+        }
+        IssueCache.CachedIssue fresh = cache.getFresh(issueKey);
+        if (fresh != null) {
+            return fresh;
+        }
+
+        if (!cache.contains(issueKey)) {
+            IssueCache.CachedIssue fetched = new IssueCache.CachedIssue(projection.fetch(issueKey), null);
+            cache.put(fetched);
+            return fetched;
+        }
+
+        IssueCache.CachedIssue known = cache.peek(issueKey);
+        UpdateProbe probe = probeUpdated(issueKey, known != null ? known.etag() : null);
+        if (known != null && (probe.notModified() || known.updated() == probe.updated())) {
+            cache.markValidated(known);
+            return known;
+        }
+
+        IssueCache.CachedIssue onDisk = cache.loadFromDisk(issueKey, probe.updated(), probe.etag());
+        if (onDisk != null) {
+            return onDisk;
+        }
+
+        // Полная загрузка: выбранные поля сохраняются в кэш под новым временем обновления
+        IssueCache.CachedIssue fetched = new IssueCache.CachedIssue(projection.fetch(issueKey), probe.etag());
+        cache.put(fetched);
+        return fetched;
+    }
+
+    /**
+     * Запрашивает только время обновления задачи.
+     *
+     * @param issueKey Ключ задачи в Jira
+     * @param etag     значение ETag предыдущего ответа или <code>null</code>
+     * @return результат проверки
+     * @throws IOException        при ошибке запроса или ответе с неожиданным кодом
+     * @throws URISyntaxException если URL Jira некорректен
+     */
+    private UpdateProbe probeUpdated(String issueKey, String etag) throws IOException, URISyntaxException {
+        HttpGet request = new HttpGet(new URI(jiraUrl + "/rest/api/2/issue/" + issueKey + "?fields=updated"));
+        if (etag != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        try (CloseableHttpResponse response = clientHolder.execute(JiraMetrics.Endpoint.ISSUE_PROBE, request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            Header etagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+            String newEtag = etagHeader != null ? etagHeader.getValue() : null;
+            if (statusCode == 304) {
+                return new UpdateProbe(true, -1, etag);
+            }
+            if (statusCode != 200) {
+                EntityUtils.consume(response.getEntity());
+                throw new JiraHttpException(statusCode);
+            }
+            try (InputStream in = response.getEntity().getContent()) {
+                String updated = JiraJson.readIssueField(in, "updated");
+                if (updated == null) {
+                    throw new IOException("В ответе отсутствует поле updated");
                 }
+                return new UpdateProbe(false, JiraJson.parseDateTime(updated), newEtag);
             }
         }
     }
 
+    /**
+     * Результат легкой проверки времени обновления задачи.
+     *
+     * @param notModified сервер ответил 304 Not Modified
+     * @param updated     время обновления задачи, мс с начала эпохи
+     * @param etag        значение ETag ответа или <code>null</code>
+     */
+    private record UpdateProbe(boolean notModified, long updated, String etag) {
+    }
+
     /**
      * Извлекает XML-данные задачи по ее ключу и сохраняет их в файл.
+     * <p>Запрос выполняется через общий пул keep-alive соединений.</p>
      *
      * @param issueKey Ключ задачи в Jira
+     * @param target   файл для сохранения или <code>null</code>, если выгрузка только разбирается
      */
-    private void fetchIssueXml(String issueKey) {
-        String xmlUrl = jiraUrl + "/si/jira.issueviews:issue-xml/" + issueKey + "/" + issueKey + ".xml";
-
+    private void fetchIssueXml(String issueKey, Path target) {
         try {
-            URI uri = new URI(xmlUrl);
-            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Basic " +
-                    java.util.Base64.getEncoder().encodeToString((jiraUsername + ":" + jiraApiToken).getBytes(StandardCharsets.UTF_8)));
-
-            if (connection.getResponseCode() == 200) {
-                StringBuilder xmlData = new StringBuilder();
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    String inputLine;
-                    while ((inputLine = in.readLine()) != null) {
-                        xmlData.append(inputLine);
-                    }
-                }
-
-                String fileName = issueKey + "_details.xml";
-                saveToFile(fileName, xmlData.toString());
-                System.out.println("XML успешно получен и сохранен по пути: " + fileName);
-                System.out.println("XML successfully retrieved and saved at: " + fileName);
-            } else {
-                System.err.println("Ошибка при получении XML данных: " + connection.getResponseCode());
-                System.err.println("Error retrieving XML data: " + connection.getResponseCode());
+            downloadIssueXml(issueKey, target);
+            if (target == null) {
+                return;
             }
-
+            System.out.println("XML успешно получен и сохранен по пути: " + target);
+            System.out.println("XML successfully retrieved and saved at: " + target);
         } catch (IOException | URISyntaxException e) {
             System.err.println("Ошибка при получении XML данных: " + e.getMessage());
             System.err.println("Error retrieving XML data: " + e.getMessage());
@@ -148,18 +409,134 @@ public class JiraDataFetcher {
     }
 
     /**
-     * Сохраняет строку в файл.
+     * Загружает XML-выгрузку задачи и потоково записывает ее в файл.
+     * <p>
+     * Запрос выполняется через общий пул keep-alive соединений (см. {@link ApacheIssueBackend#downloadIssueXml}).
+     * Запись атомарна: файл появляется только после полной загрузки. Если задан обработчик
+     * {@link #setXmlEntryConsumer}, включен индекс или загрузка вложений, выгрузка разбирается по мере загрузки.
+     * </p>
+     *
+     * @param issueKey Ключ задачи в Jira
+     * @param target   файл для сохранения или <code>null</code>, если выгрузка только разбирается
+     * @return количество записанных байт
+     * @throws IOException        при ошибке загрузки, записи или ответе с кодом, отличным от 200
+     * @throws URISyntaxException если URL выгрузки некорректен
+     */
+    public long downloadIssueXml(String issueKey, Path target) throws IOException, URISyntaxException {
+        return backend.downloadIssueXml(issueKey, target, xmlEntries());
+    }
+
+    /**
+     * Проверяет, нужен ли разбор XML-выгрузок независимо от того, сохраняет ли их хранилище результатов.
+     * <p>Разбор нужен обработчику {@link #setXmlEntryConsumer}, индексу комментариев и загрузке вложений.</p>
      *
-     * @param filename Имя файла
-     * @param data     Данные для записи
+     * @return <code>true</code>, если записи XML-выгрузок кому-то нужны
      */
-    private void saveToFile(String filename, String data) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, StandardCharsets.UTF_8))) {
-            writer.write(data);
+    boolean parsesXml() {
+        return xmlEntryConsumer != null || index != null || attachments != null;
+    }
+
+    /**
+     * Собирает обработчик записей XML-выгрузки: внешний обработчик, индекс комментариев и загрузку вложений.
+     *
+     * @return обработчик записей или <code>null</code>, если записи никому не нужны
+     */
+    private Consumer<IssueXmlEntry> xmlEntries() {
+        Consumer<IssueXmlEntry> consumer = xmlEntryConsumer;
+        if (index != null) {
+            // Комментарии из выгрузки попадают в индекс вместе с записью задачи
+            consumer = consumer != null ? consumer.andThen(index::addXmlEntry) : index::addXmlEntry;
+        }
+        if (attachments != null) {
+            // Вложения загружаются в фоне по сведениям из выгрузки
+            Consumer<IssueXmlEntry> download = entry -> {
+                if (entry instanceof IssueXmlEntry.Attachment attachment) {
+                    attachments.submit(attachment);
+                }
+            };
+            consumer = consumer != null ? consumer.andThen(download) : download;
+        }
+        return consumer;
+    }
+
+    /**
+     * Сохраняет текстовые данные задачи в хранилище результатов.
+     * <p>Используется как при выгрузке одной задачи, так и в пакетном режиме.</p>
+     *
+     * @param record запись задачи
+     */
+    void saveIssue(IssueRecord record) {
+        try {
+            sink.write(record);
         } catch (IOException e) {
-            System.err.println("Ошибка при сохранении файла: " + filename);
-            System.err.println("Error saving file: " + filename);
+            System.err.println("Ошибка при сохранении задачи: " + record.key());
+            System.err.println("Error saving issue: " + record.key());
             e.printStackTrace();
         }
     }
+
+    /**
+     * Сохраняет текстовые данные и XML-выгрузку задачи, сообщая об ошибках исключением.
+     * <p>
+     * Как и в {@link #fetchIssueData(String)}, выгрузка без файла только разбирается, если ее записи нужны
+     * индексу или загрузке вложений. Данные гарантированно находятся на диске после успешного вызова
+     * {@link #flushOutput()}.
+     * </p>
+     *
+     * @param record запись задачи
+     * @throws IOException        при ошибке загрузки или записи
+     * @throws URISyntaxException если URL выгрузки некорректен
+     */
+    void storeIssue(IssueRecord record) throws IOException, URISyntaxException {
+        sink.write(record);
+        Path xmlPath = sink.xmlPath(record.key());
+        if (xmlPath != null || parsesXml()) {
+            downloadIssueXml(record.key(), xmlPath);
+        }
+    }
+
+    /**
+     * Дожидается, пока все сохраненные задачи будут сброшены на диск, а их вложения загружены.
+     *
+     * @throws IOException если запись хотя бы одной задачи или загрузка вложения завершилась ошибкой
+     */
+    public void flushOutput() throws IOException {
+        sink.flush();
+        if (attachments != null) {
+            attachments.awaitCompletion();
+        }
+    }
+
+    /**
+     * Возвращает загрузчик вложений.
+     *
+     * @return загрузчик или <code>null</code>, если загрузка вложений отключена параметром
+     *         <code>jira.attachments.enabled</code>
+     */
+    public AttachmentDownloader getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * Закрывает хранилище результатов и держатель клиентов, если он был создан этим экземпляром.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            CoalescingIssueLoader current = loader;
+            if (current != null) {
+                current.close();
+            }
+            if (attachments != null) {
+                attachments.close();
+            }
+            sink.close();
+        } finally {
+            if (ownsClientHolder) {
+                clientHolder.close();
+            }
+        }
+    }
 }
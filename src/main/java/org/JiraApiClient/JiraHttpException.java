@@ -0,0 +1,41 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+
+/**
+ * Исключение, сигнализирующее о том, что Jira ответила на HTTP-запрос кодом, отличным от ожидаемого.
+ *
+ * @version 1.0
+ */
+public class JiraHttpException extends IOException {
+    private final int statusCode;
+
+    /**
+     * Конструктор класса JiraHttpException.
+     *
+     * @param statusCode код ответа сервера
+     */
+    public JiraHttpException(int statusCode) {
+        this(statusCode, "HTTP " + statusCode);
+    }
+
+    /**
+     * Конструктор класса JiraHttpException с произвольным сообщением.
+     *
+     * @param statusCode код ответа сервера
+     * @param message    сообщение об ошибке
+     */
+    protected JiraHttpException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Возвращает код ответа сервера.
+     *
+     * @return код ответа
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,287 @@
+package org.JiraApiClient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Вспомогательные методы для потокового разбора ответов REST API Jira.
+ *
+ * @version 1.0
+ */
+final class JiraJson {
+
+    /** Общая фабрика парсеров; потокобезопасна. */
+    static final JsonFactory FACTORY = new JsonFactory();
+
+    /** Формат дат REST API Jira, например <code>2024-01-15T10:20:30.123+0000</code>. */
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private JiraJson() {
+    }
+
+    /**
+     * Разбирает дату в формате REST API Jira.
+     *
+     * @param value строковое значение даты
+     * @return время в мс с начала эпохи
+     */
+    static long parseDateTime(String value) {
+        return OffsetDateTime.parse(value, DATE_TIME).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Находит строковое значение поля внутри объекта <code>fields</code> ответа с задачей,
+     * не разбирая остальной документ в объектную модель.
+     *
+     * @param in    тело ответа
+     * @param field имя поля
+     * @return значение поля или <code>null</code>, если поле отсутствует
+     * @throws IOException при ошибке чтения или некорректном JSON
+     */
+    static String readIssueField(InputStream in, String field) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (!name.equals("fields") || parser.currentToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.currentName();
+                    parser.nextToken();
+                    if (fieldName.equals(field)) {
+                        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Записывает запись задачи одним объектом JSON без перевода строки:
+     * <code>{"key":...,"updated":...,"fields":{...}}</code>.
+     *
+     * @param out    выходной поток; не закрывается этим методом
+     * @param record запись задачи
+     * @throws IOException при ошибке записи
+     */
+    static void writeIssueRecord(OutputStream out, IssueRecord record) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("key", record.key());
+            generator.writeNumberField("updated", record.updated());
+            generator.writeObjectFieldStart("fields");
+            for (Map.Entry<String, String> field : record.fields().entrySet()) {
+                if (field.getValue() == null) {
+                    generator.writeNullField(field.getKey());
+                } else {
+                    generator.writeStringField(field.getKey(), field.getValue());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Разбирает запись задачи, записанную {@link #writeIssueRecord(OutputStream, IssueRecord)}.
+     *
+     * @param data   буфер с JSON
+     * @param offset начало объекта в буфере
+     * @param length длина объекта
+     * @return запись задачи
+     * @throws IOException при некорректном JSON
+     */
+    static IssueRecord readIssueRecord(byte[] data, int offset, int length) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(data, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект JSON");
+            }
+            String key = null;
+            long updated = 0;
+            Map<String, String> fields = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "key" -> key = parser.getText();
+                    case "updated" -> updated = parser.getLongValue();
+                    case "fields" -> {
+                        if (value != JsonToken.START_OBJECT) {
+                            throw new IOException("Поле fields должно быть объектом");
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String fieldName = parser.currentName();
+                            parser.nextToken();
+                            fields.put(fieldName, parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText());
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (key == null) {
+                throw new IOException("В записи отсутствует ключ задачи");
+            }
+            return new IssueRecord(key, updated, fields);
+        }
+    }
+
+    /**
+     * Разбирает объект задачи из ответа REST API в компактную запись, не строя доменную модель.
+     * <p>
+     * Парсер должен стоять на начале объекта задачи. Из объекта <code>fields</code> сохраняются только запрошенные поля,
+     * остальные пропускаются без разбора. Время обновления берется из поля <code>updated</code>, если оно есть в ответе.
+     * </p>
+     *
+     * @param parser    парсер, стоящий на {@link JsonToken#START_OBJECT} задачи
+     * @param requested имена сохраняемых полей в нужном порядке
+     * @return запись задачи; отсутствующие в ответе поля имеют значение <code>null</code>
+     * @throws IOException при ошибке чтения или некорректном JSON
+     */
+    static IssueRecord readProjectedIssue(JsonParser parser, Collection<String> requested) throws IOException {
+        String key = null;
+        long updated = 0;
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String name : requested) {
+            fields.put(name, null);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals("key")) {
+                key = parser.getText();
+            } else if (name.equals("fields") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.currentName();
+                    parser.nextToken();
+                    boolean wanted = fields.containsKey(fieldName);
+                    if (fieldName.equals("updated") && parser.currentToken() == JsonToken.VALUE_STRING) {
+                        String text = parser.getText();
+                        updated = parseDateTime(text);
+                        if (wanted) {
+                            fields.put(fieldName, text);
+                        }
+                    } else if (wanted) {
+                        fields.put(fieldName, readCompactValue(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (key == null) {
+            throw new IOException("В ответе отсутствует ключ задачи");
+        }
+        return new IssueRecord(key, updated, fields);
+    }
+
+    /**
+     * Разбирает страницу результатов поиска, передавая задачи потребителю по мере чтения ответа.
+     *
+     * @param in        тело ответа <code>/rest/api/2/search</code>
+     * @param requested имена сохраняемых полей
+     * @param consumer  обработчик задач
+     * @return сведения о странице
+     * @throws IOException при ошибке чтения или некорректном JSON
+     */
+    static IssueProjection.SearchPage readSearchPage(InputStream in, Collection<String> requested, Consumer<IssueRecord> consumer)
+            throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект JSON");
+            }
+            long total = 0;
+            int maxResults = 0;
+            int issues = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "total" -> total = parser.getLongValue();
+                    case "maxResults" -> maxResults = parser.getIntValue();
+                    case "issues" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            throw new IOException("Поле issues должно быть массивом");
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            consumer.accept(readProjectedIssue(parser, requested));
+                            issues++;
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return new IssueProjection.SearchPage(total, maxResults, issues);
+        }
+    }
+
+    /**
+     * Сводит значение поля к строке: скаляры берутся как есть, у объектов (статус, исполнитель, тип задачи)
+     * берется отображаемое имя, элементы массивов перечисляются через запятую.
+     */
+    private static String readCompactValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            StringBuilder joined = new StringBuilder();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String element = readCompactValue(parser);
+                if (element != null) {
+                    if (!joined.isEmpty()) {
+                        joined.append(", ");
+                    }
+                    joined.append(element);
+                }
+            }
+            return joined.toString();
+        }
+        if (token == JsonToken.START_OBJECT) {
+            // Чем меньше ранг, тем предпочтительнее свойство для отображения
+            String best = null;
+            int bestRank = Integer.MAX_VALUE;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                int rank = switch (name) {
+                    case "displayName" -> 0;
+                    case "name" -> 1;
+                    case "value" -> 2;
+                    case "key" -> 3;
+                    default -> Integer.MAX_VALUE;
+                };
+                if (rank < bestRank && parser.currentToken().isScalarValue()) {
+                    best = parser.getText();
+                    bestRank = rank;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return best;
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,312 @@
+package org.JiraApiClient;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики горячего пути загрузки данных из Jira.
+ * <p>
+ * Для каждой точки API учитываются количество запросов, ошибки и гистограмма задержек; глобально —
+ * объем загруженных данных, количество повторов, ошибки по кодам ответа и время записи файлов.
+ * Все счетчики создаются заранее, поэтому запись метрик не выделяет память и не искажает измерения.
+ * </p>
+ *
+ * <p><b>Публикация:</b></p>
+ * <ul>
+ *   <li>JMX: <code>org.JiraApiClient:type=JiraMetrics</code> и
+ *   <code>org.JiraApiClient:type=Endpoint,name=&lt;точка&gt;</code> (см. {@link #registerMBeans()});</li>
+ *   <li>текстовый формат Prometheus (см. {@link #toPrometheusText()} и {@link MetricsHttpServer}).</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public final class JiraMetrics implements JiraMetricsMXBean {
+
+    /** Точки API, для которых ведутся раздельные метрики. */
+    public enum Endpoint {
+        SESSION("session"),
+        ISSUE("issue"),
+        ISSUE_PROBE("issue_probe"),
+        SEARCH("search"),
+        ISSUE_XML("issue_xml"),
+        ATTACHMENT("attachment");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Возвращает имя точки API для метрик.
+         *
+         * @return имя точки
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    /** Код «ответа» для ошибок ввода-вывода, когда сервер не ответил. */
+    public static final int TRANSPORT_ERROR = 0;
+
+    private static final JiraMetrics INSTANCE = new JiraMetrics();
+
+    private final EndpointMetrics[] endpoints;
+    private final AtomicLongArray errorsByStatus = new AtomicLongArray(600);
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder fileWriteBytes = new LongAdder();
+    private final LatencyHistogram fileWrites = new LatencyHistogram();
+
+    private JiraMetrics() {
+        Endpoint[] values = Endpoint.values();
+        endpoints = new EndpointMetrics[values.length];
+        for (Endpoint endpoint : values) {
+            endpoints[endpoint.ordinal()] = new EndpointMetrics(endpoint);
+        }
+    }
+
+    /**
+     * Возвращает общий экземпляр метрик процесса.
+     *
+     * @return метрики
+     */
+    public static JiraMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Учитывает завершенный запрос.
+     *
+     * @param endpoint   точка API
+     * @param nanos      длительность запроса, нс
+     * @param statusCode код ответа или {@link #TRANSPORT_ERROR}
+     */
+    public void recordRequest(Endpoint endpoint, long nanos, int statusCode) {
+        EndpointMetrics metrics = endpoints[endpoint.ordinal()];
+        metrics.requests.increment();
+        metrics.latency.recordNanos(nanos);
+        if (statusCode < 200 || statusCode >= 400) {
+            metrics.errors.increment();
+            errorsByStatus.incrementAndGet(statusCode >= 0 && statusCode < 600 ? statusCode : TRANSPORT_ERROR);
+        }
+    }
+
+    /**
+     * Учитывает загруженные байты.
+     *
+     * @param bytes количество байт
+     */
+    public void recordBytesDownloaded(long bytes) {
+        bytesDownloaded.add(bytes);
+    }
+
+    /**
+     * Учитывает повтор запроса.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Учитывает запись файла.
+     *
+     * @param nanos длительность записи, нс
+     * @param bytes количество записанных байт
+     */
+    public void recordFileWrite(long nanos, long bytes) {
+        fileWrites.recordNanos(nanos);
+        fileWriteBytes.add(bytes);
+    }
+
+    /**
+     * Возвращает метрики точки API.
+     *
+     * @param endpoint точка API
+     * @return метрики точки
+     */
+    public EndpointMetrics getEndpoint(Endpoint endpoint) {
+        return endpoints[endpoint.ordinal()];
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getFileWrites() {
+        return fileWrites.getCount();
+    }
+
+    @Override
+    public long getFileWriteBytes() {
+        return fileWriteBytes.sum();
+    }
+
+    @Override
+    public double getFileWriteP99Millis() {
+        return fileWrites.getPercentileMillis(99);
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStatus() {
+        Map<String, Long> result = new TreeMap<>();
+        for (int status = 0; status < errorsByStatus.length(); status++) {
+            long value = errorsByStatus.get(status);
+            if (value > 0) {
+                result.put(status == TRANSPORT_ERROR ? "io" : Integer.toString(status), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Регистрирует MBean метрик в платформенном MBean-сервере. Повторная регистрация игнорируется.
+     */
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, this, new ObjectName("org.JiraApiClient:type=JiraMetrics"));
+            for (EndpointMetrics metrics : endpoints) {
+                register(server, metrics, new ObjectName("org.JiraApiClient:type=Endpoint,name=" + metrics.endpoint.label()));
+            }
+        } catch (JMException e) {
+            System.err.println("Ошибка при регистрации метрик в JMX: " + e.getMessage());
+            System.err.println("Error registering JMX metrics: " + e.getMessage());
+        }
+    }
+
+    private static void register(MBeanServer server, Object bean, ObjectName name) throws JMException {
+        try {
+            server.registerMBean(bean, name);
+        } catch (InstanceAlreadyExistsException e) {
+            // MBean уже зарегистрирован ранее
+        }
+    }
+
+    /**
+     * Формирует метрики в текстовом формате экспозиции Prometheus.
+     *
+     * @return текст метрик
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# HELP jira_requests_total Requests sent to Jira by endpoint.\n");
+        out.append("# TYPE jira_requests_total counter\n");
+        for (EndpointMetrics metrics : endpoints) {
+            out.append("jira_requests_total{endpoint=\"").append(metrics.endpoint.label()).append("\"} ")
+                    .append(metrics.getRequests()).append('\n');
+        }
+        out.append("# HELP jira_request_errors_total Failed requests by endpoint.\n");
+        out.append("# TYPE jira_request_errors_total counter\n");
+        for (EndpointMetrics metrics : endpoints) {
+            out.append("jira_request_errors_total{endpoint=\"").append(metrics.endpoint.label()).append("\"} ")
+                    .append(metrics.getErrors()).append('\n');
+        }
+        out.append("# HELP jira_request_duration_seconds Request latency by endpoint.\n");
+        out.append("# TYPE jira_request_duration_seconds summary\n");
+        for (EndpointMetrics metrics : endpoints) {
+            appendSummary(out, "jira_request_duration_seconds", "endpoint=\"" + metrics.endpoint.label() + "\",", metrics.latency);
+        }
+        out.append("# HELP jira_errors_by_status_total Failed responses by HTTP status (io = no response).\n");
+        out.append("# TYPE jira_errors_by_status_total counter\n");
+        for (Map.Entry<String, Long> entry : getErrorsByStatus().entrySet()) {
+            out.append("jira_errors_by_status_total{status=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+        }
+        out.append("# HELP jira_downloaded_bytes_total Response bytes downloaded.\n");
+        out.append("# TYPE jira_downloaded_bytes_total counter\n");
+        out.append("jira_downloaded_bytes_total ").append(getBytesDownloaded()).append('\n');
+        out.append("# HELP jira_retries_total Requests retried after throttling.\n");
+        out.append("# TYPE jira_retries_total counter\n");
+        out.append("jira_retries_total ").append(getRetries()).append('\n');
+        out.append("# HELP jira_file_written_bytes_total Bytes written to output files.\n");
+        out.append("# TYPE jira_file_written_bytes_total counter\n");
+        out.append("jira_file_written_bytes_total ").append(getFileWriteBytes()).append('\n');
+        out.append("# HELP jira_file_write_duration_seconds Output file write latency.\n");
+        out.append("# TYPE jira_file_write_duration_seconds summary\n");
+        appendSummary(out, "jira_file_write_duration_seconds", "", fileWrites);
+        return out.toString();
+    }
+
+    private static void appendSummary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            out.append(name).append('{').append(labels).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(String.format(Locale.ROOT, "%.6f", histogram.getPercentileMillis(quantile * 100) / 1000))
+                    .append('\n');
+        }
+        String labelBlock = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(labelBlock).append(' ')
+                .append(String.format(Locale.ROOT, "%.6f", histogram.getSumSeconds())).append('\n');
+        out.append(name).append("_count").append(labelBlock).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    /**
+     * Метрики одной точки API.
+     */
+    public static final class EndpointMetrics implements EndpointMetricsMXBean {
+        private final Endpoint endpoint;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private EndpointMetrics(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latency.getMeanMillis();
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latency.getPercentileMillis(50);
+        }
+
+        @Override
+        public double getP90Millis() {
+            return latency.getPercentileMillis(90);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latency.getPercentileMillis(99);
+        }
+
+        @Override
+        public double getP999Millis() {
+            return latency.getPercentileMillis(99.9);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latency.getMaxMillis();
+        }
+    }
+}
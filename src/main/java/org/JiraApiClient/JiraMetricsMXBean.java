@@ -0,0 +1,22 @@
+package org.JiraApiClient;
+
+import java.util.Map;
+
+/**
+ * Интерфейс JMX глобальных метрик загрузки данных из Jira.
+ *
+ * @version 1.0
+ */
+public interface JiraMetricsMXBean {
+    long getBytesDownloaded();
+
+    long getRetries();
+
+    long getFileWrites();
+
+    long getFileWriteBytes();
+
+    double getFileWriteP99Millis();
+
+    Map<String, Long> getErrorsByStatus();
+}
@@ -0,0 +1,473 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Реестр именованных профилей подключения к Jira.
+ * <p>
+ * Позволяет работать с несколькими экземплярами Jira и несколькими служебными учетными записями, распределяя
+ * между ними бюджет ограничений частоты. Профили читаются из файла (параметр <code>jira.profiles.file</code>)
+ * один раз и кэшируются вместе с их держателями клиентов; после вызова {@link #startWatching()} реестр
+ * перечитывает файл при изменении. Отслеживание включает только использующий реестр код: режим <code>profiles</code>
+ * командной строки выполняет одну выгрузку и файл не отслеживает.
+ * </p>
+ *
+ * <p><b>Формат файла профилей:</b></p>
+ * <ul>
+ *   <li><code>profiles</code> — имена профилей через запятую;</li>
+ *   <li><code>&lt;профиль&gt;.&lt;параметр&gt;</code> — параметр конфигурации профиля, например
+ *   <code>siteA.jira.url</code>, <code>siteA.jira.api.token</code> или <code>siteA.jira.rate.requestsPerSecond</code>.
+ *   Не заданные параметры берутся из основной конфигурации;</li>
+ *   <li><code>&lt;профиль&gt;.maxConcurrentTasks</code> — количество одновременных задач профиля
+ *   (по умолчанию 1).</li>
+ * </ul>
+ *
+ * <p>
+ * Каждый профиль получает собственный держатель клиентов {@link JiraClientHolder}, а значит собственный регулятор
+ * частоты с параметрами <code>jira.rate.*</code> профиля. Каталоги результатов, кэша, контрольных точек, индекса
+ * и вложений, не заданные в профиле явно, получают подкаталог с именем профиля, чтобы одинаковые ключи задач разных
+ * экземпляров Jira не смешивались.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class JiraProfileRegistry implements Closeable {
+
+    /** Параметры-каталоги, которые разделяются по профилям. */
+    private static final List<String> PROFILE_DIRECTORIES = List.of(
+            "jira.output.dir", "jira.cache.dir", "jira.sync.checkpointDir", "jira.index.dir", "jira.attachments.dir");
+
+    /** Значения по умолчанию параметров-каталогов, совпадающие с {@link JiraConnect}. */
+    private static final Map<String, String> DIRECTORY_DEFAULTS = Map.of(
+            "jira.output.dir", ".", "jira.cache.dir", "cache", "jira.sync.checkpointDir", "checkpoints",
+            "jira.index.dir", "index", "jira.attachments.dir", "attachments");
+
+    private final Path file;
+    private final PropertiesConfiguration base;
+
+    /** Текущие профили по имени в порядке объявления; заменяется целиком при перечитывании. */
+    private volatile Map<String, Profile> profiles = Map.of();
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Задача, выполняемая для одного профиля.
+     *
+     * @param <T> тип результата
+     */
+    public interface ProfileTask<T> {
+
+        /**
+         * Выполняет задачу.
+         *
+         * @param profile профиль подключения
+         * @return результат
+         * @throws Exception при ошибке выполнения
+         */
+        T run(Profile profile) throws Exception;
+    }
+
+    /**
+     * Сводные результаты задачи, выполненной для нескольких профилей.
+     *
+     * @param results  результаты успешно выполненных задач по имени профиля
+     * @param failures ошибки по имени профиля
+     * @param elapsed  общее время выполнения
+     * @param <T>      тип результата
+     */
+    public record FanOutResult<T>(Map<String, T> results, Map<String, Exception> failures, Duration elapsed) {
+
+        /**
+         * Проверяет, выполнены ли задачи для всех профилей.
+         *
+         * @return <code>true</code>, если ошибок нет
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+    }
+
+    /**
+     * Профиль подключения.
+     * <p>
+     * Держатель клиентов создается при первом обращении и закрывается, когда профиль удален или изменен
+     * в файле и все начатые задачи профиля завершились.
+     * </p>
+     */
+    public static final class Profile {
+        private final String name;
+        private final Map<String, String> settings;
+        private final JiraConnect jiraConnect;
+        private final Semaphore tasks;
+        private JiraClientHolder clientHolder;
+        private int running;
+        private boolean retired;
+
+        private Profile(String name, Map<String, String> settings, PropertiesConfiguration config, int maxConcurrentTasks) {
+            this.name = name;
+            this.settings = settings;
+            this.jiraConnect = new JiraConnect(config);
+            this.tasks = new Semaphore(Math.max(1, maxConcurrentTasks), true);
+        }
+
+        /**
+         * Возвращает имя профиля.
+         *
+         * @return имя профиля
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Возвращает конфигурацию профиля.
+         *
+         * @return экземпляр JiraConnect с параметрами профиля
+         */
+        public JiraConnect getJiraConnect() {
+            return jiraConnect;
+        }
+
+        /**
+         * Возвращает держатель клиентов профиля, создавая его при первом обращении.
+         *
+         * @return держатель клиентов Jira
+         */
+        public synchronized JiraClientHolder getClientHolder() {
+            if (clientHolder == null) {
+                clientHolder = new JiraClientHolder(jiraConnect);
+            }
+            return clientHolder;
+        }
+
+        private void begin() throws InterruptedException {
+            tasks.acquire();
+            synchronized (this) {
+                running++;
+            }
+        }
+
+        private void end() {
+            tasks.release();
+            synchronized (this) {
+                running--;
+                closeIfRetired();
+            }
+        }
+
+        private synchronized void retire() {
+            retired = true;
+            closeIfRetired();
+        }
+
+        private void closeIfRetired() {
+            if (retired && running == 0 && clientHolder != null) {
+                try {
+                    clientHolder.close();
+                } catch (IOException e) {
+                    System.err.println("Ошибка при закрытии подключения профиля " + name + ": " + e.getMessage());
+                    System.err.println("Error closing connection of profile " + name + ": " + e.getMessage());
+                }
+                clientHolder = null;
+            }
+        }
+    }
+
+    /**
+     * Создает реестр и читает файл профилей.
+     *
+     * @param file файл профилей
+     * @param base основная конфигурация, из которой берутся параметры, не заданные в профилях
+     * @throws IOException если файл не удалось прочитать
+     */
+    public JiraProfileRegistry(Path file, PropertiesConfiguration base) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.base = base;
+        reload();
+    }
+
+    /**
+     * Создает реестр по параметру <code>jira.profiles.file</code>.
+     *
+     * @param jiraConnect экземпляр JiraConnect с основной конфигурацией
+     * @return реестр профилей
+     * @throws IOException если файл профилей не удалось прочитать
+     */
+    public static JiraProfileRegistry create(JiraConnect jiraConnect) throws IOException {
+        return new JiraProfileRegistry(Path.of(jiraConnect.getProfilesFile()), jiraConnect.getConfiguration());
+    }
+
+    /**
+     * Перечитывает файл профилей. Неизмененные профили сохраняются вместе с их соединениями.
+     *
+     * @return <code>true</code>, если набор профилей или их параметры изменились
+     * @throws IOException если файл не удалось прочитать; текущие профили при этом не меняются
+     */
+    public synchronized boolean reload() throws IOException {
+        PropertiesConfiguration loaded = new PropertiesConfiguration();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            new FileHandler(loaded).load(reader);
+        } catch (ConfigurationException e) {
+            throw new IOException("Не удалось прочитать файл профилей " + file + ": " + e.getMessage(), e);
+        }
+        List<String> names = Arrays.stream(loaded.getString("profiles", "").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+
+        Map<String, Profile> current = profiles;
+        Map<String, Profile> updated = new LinkedHashMap<>();
+        for (String name : names) {
+            Map<String, String> settings = new TreeMap<>();
+            for (Iterator<String> keys = loaded.getKeys(name); keys.hasNext(); ) {
+                String key = keys.next();
+                if (key.length() > name.length()) {
+                    settings.put(key.substring(name.length() + 1), loaded.getString(key));
+                }
+            }
+            Profile existing = current.get(name);
+            updated.put(name, existing != null && existing.settings.equals(settings)
+                    ? existing : createProfile(name, settings));
+        }
+        boolean changed = !updated.equals(current);
+        profiles = updated;
+        for (Profile profile : current.values()) {
+            if (updated.get(profile.name) != profile) {
+                profile.retire();
+            }
+        }
+        return changed;
+    }
+
+    private Profile createProfile(String name, Map<String, String> settings) {
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        for (Iterator<String> keys = base.getKeys(); keys.hasNext(); ) {
+            String key = keys.next();
+            config.setProperty(key, base.getProperty(key));
+        }
+        for (String key : PROFILE_DIRECTORIES) {
+            String directory = base.getString(key, DIRECTORY_DEFAULTS.get(key));
+            config.setProperty(key, Path.of(directory).resolve(name).toString());
+        }
+        settings.forEach(config::setProperty);
+        int maxConcurrentTasks = Integer.parseInt(settings.getOrDefault("maxConcurrentTasks", "1"));
+        return new Profile(name, settings, config, maxConcurrentTasks);
+    }
+
+    /**
+     * Возвращает имена профилей в порядке объявления.
+     *
+     * @return имена профилей
+     */
+    public List<String> names() {
+        return List.copyOf(profiles.keySet());
+    }
+
+    /**
+     * Возвращает профиль.
+     *
+     * @param name имя профиля
+     * @return профиль
+     * @throws IllegalArgumentException если профиль не найден
+     */
+    public Profile get(String name) {
+        Profile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Неизвестный профиль подключения: " + name);
+        }
+        return profile;
+    }
+
+    /**
+     * Выполняет задачу параллельно для нескольких профилей.
+     * <p>
+     * Для каждого профиля одновременно выполняется не больше <code>maxConcurrentTasks</code> задач, в том числе
+     * запущенных другими вызовами. Ошибка одного профиля не прерывает остальные и попадает в сводные результаты.
+     * </p>
+     *
+     * @param names имена профилей
+     * @param task  задача
+     * @param <T>   тип результата
+     * @return сводные результаты
+     */
+    public <T> FanOutResult<T> fanOut(Collection<String> names, ProfileTask<T> task) {
+        long startNanos = System.nanoTime();
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String name : names) {
+                Profile profile = get(name);
+                futures.put(name, executor.submit(() -> {
+                    profile.begin();
+                    try {
+                        return task.run(profile);
+                    } finally {
+                        profile.end();
+                    }
+                }));
+            }
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        futures.forEach((name, future) -> {
+            try {
+                results.put(name, future.get());
+            } catch (ExecutionException e) {
+                failures.put(name, e.getCause() instanceof Exception cause ? cause : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(name, e);
+            }
+        });
+        return new FanOutResult<>(results, failures, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Выгружает задачи по запросу JQL из нескольких экземпляров Jira.
+     *
+     * @param jql   запрос JQL
+     * @param names имена профилей
+     * @return сводные итоги выгрузки по профилям
+     */
+    public FanOutResult<ExportPipeline.PipelineResult> exportJql(String jql, Collection<String> names) {
+        return fanOut(names, profile -> {
+            try (JiraDataFetcher dataFetcher = new JiraDataFetcher(profile.getJiraConnect(), profile.getClientHolder())) {
+                return new ExportPipeline(profile.getJiraConnect(), dataFetcher).exportJql(jql);
+            }
+        });
+    }
+
+    /**
+     * Выгружает задачи одного экземпляра Jira, распределяя ключи между профилями с разными учетными записями
+     * пропорционально их частоте запросов (<code>jira.rate.requestsPerSecond</code>).
+     *
+     * @param keys  ключи задач
+     * @param names имена профилей одного экземпляра Jira
+     * @return сводные итоги выгрузки по профилям
+     */
+    public FanOutResult<ExportPipeline.PipelineResult> exportKeys(Collection<String> keys, List<String> names) {
+        double[] weights = names.stream().mapToDouble(name -> get(name).getJiraConnect().getRateRequestsPerSecond()).toArray();
+        List<List<String>> parts = partition(List.copyOf(keys), weights);
+        Map<String, List<String>> assigned = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            assigned.put(names.get(i), parts.get(i));
+        }
+        return fanOut(names, profile -> {
+            try (JiraDataFetcher dataFetcher = new JiraDataFetcher(profile.getJiraConnect(), profile.getClientHolder())) {
+                return new ExportPipeline(profile.getJiraConnect(), dataFetcher).exportKeys(assigned.get(profile.getName()));
+            }
+        });
+    }
+
+    /**
+     * Распределяет элементы между частями пропорционально весам: каждый элемент попадает в часть
+     * с наименьшей нагрузкой относительно ее веса.
+     */
+    static <T> List<List<T>> partition(List<T> items, double[] weights) {
+        List<List<T>> parts = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            int best = 0;
+            for (int i = 1; i < weights.length; i++) {
+                if ((parts.get(i).size() + 1) / weights[i] < (parts.get(best).size() + 1) / weights[best]) {
+                    best = i;
+                }
+            }
+            parts.get(best).add(item);
+        }
+        return parts;
+    }
+
+    /**
+     * Запускает отслеживание изменений файла профилей. При изменении файл перечитывается ({@link #reload()});
+     * если он некорректен, продолжают действовать прежние профили.
+     *
+     * @throws IOException если не удалось зарегистрировать отслеживание
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        watcher = Thread.ofPlatform().daemon().name("profile-watcher").start(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean relevant = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        relevant |= file.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    if (relevant) {
+                        reloadQuietly();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Отслеживание остановлено
+            }
+        });
+    }
+
+    private void reloadQuietly() {
+        try {
+            if (reload()) {
+                System.out.println("Профили подключения перечитаны: " + names());
+                System.out.println("Connection profiles reloaded: " + names());
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при перечитывании профилей подключения: " + e.getMessage());
+            System.err.println("Error reloading connection profiles: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает отслеживание файла и закрывает держатели клиентов профилей после завершения их задач.
+     *
+     * @throws IOException при ошибке закрытия отслеживания
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watcher.interrupt();
+        }
+        for (Profile profile : profiles.values()) {
+            profile.retire();
+        }
+        profiles = Map.of();
+    }
+}
@@ -0,0 +1,293 @@
+package org.JiraApiClient;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Общий для всех путей загрузки регулятор запросов к Jira.
+ * <p>
+ * Каждый запрос проходит через адаптивный ограничитель параллелизма ({@link AimdConcurrencyLimiter})
+ * и корзину токенов ({@link RateLimiter}). Ответы 429 и 503 повторяются с экспоненциальной задержкой
+ * со случайным разбросом (full jitter), а если сервер прислал <code>Retry-After</code>, выдача токенов
+ * приостанавливается для всех потоков на все указанное время. Если сервер требует ждать дольше
+ * <code>jira.retry.maxServerDelayMillis</code>, запрос не повторяется раньше срока, а сразу завершается
+ * {@link ThrottledException}; так же завершаются новые запросы, пока действует такая пауза.
+ * </p>
+ *
+ * <p><b>Заголовки ограничения частоты Jira Cloud:</b></p>
+ * <ul>
+ *   <li><code>Retry-After</code> — задержка в секундах или дата HTTP;</li>
+ *   <li><code>X-RateLimit-Remaining</code> и <code>X-RateLimit-Reset</code> — при исчерпании лимита
+ *   запросы приостанавливаются до момента сброса;</li>
+ *   <li><code>X-RateLimit-NearLimit</code> — предел параллелизма заранее уменьшается.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class JiraThrottle {
+
+    /** Признак ошибки, не связанной с ограничением частоты. */
+    private static final long NOT_THROTTLED = Long.MIN_VALUE;
+
+    private final RateLimiter rateLimiter;
+    private final AimdConcurrencyLimiter concurrencyLimiter;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxServerDelayMillis;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong throttledResponses = new AtomicLong();
+
+    /**
+     * Конструктор класса JiraThrottle, использующий конфигурацию из переданного экземпляра JiraConnect.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     */
+    public JiraThrottle(JiraConnect jiraConnect) {
+        this(new RateLimiter(jiraConnect.getRateRequestsPerSecond(), jiraConnect.getRateBurst()),
+                new AimdConcurrencyLimiter(jiraConnect.getRateInitialConcurrency(), 1,
+                        jiraConnect.getRateMaxConcurrency(), jiraConnect.getRetryBaseDelayMillis()),
+                jiraConnect.getRetryMaxAttempts(), jiraConnect.getRetryBaseDelayMillis(),
+                jiraConnect.getRetryMaxDelayMillis(), jiraConnect.getRetryMaxServerDelayMillis());
+    }
+
+    /**
+     * Конструктор класса JiraThrottle.
+     *
+     * @param rateLimiter        корзина токенов
+     * @param concurrencyLimiter ограничитель параллелизма
+     * @param maxAttempts        максимальное количество попыток одного запроса
+     * @param baseDelayMillis    базовая задержка перед повтором, мс
+     * @param maxDelayMillis       максимальная задержка перед повтором, мс
+     * @param maxServerDelayMillis максимальная задержка, указанная сервером, которую стоит ждать, мс
+     */
+    public JiraThrottle(RateLimiter rateLimiter, AimdConcurrencyLimiter concurrencyLimiter,
+                        int maxAttempts, long baseDelayMillis, long maxDelayMillis, long maxServerDelayMillis) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.maxServerDelayMillis = Math.max(0, maxServerDelayMillis);
+    }
+
+    /**
+     * Запрос, выполняемый через регулятор.
+     *
+     * @param <T> тип результата
+     * @param <E> тип проверяемого исключения
+     */
+    @FunctionalInterface
+    public interface Request<T, E extends Exception> {
+        T execute() throws E;
+    }
+
+    /**
+     * Выполняет запрос с учетом ограничений и повторяет его при ответах 429 и 503.
+     *
+     * @param request запрос
+     * @param <T>     тип результата
+     * @param <E>     тип проверяемого исключения запроса
+     * @return результат запроса
+     * @throws E                     если запрос завершился ошибкой или попытки исчерпаны
+     * @throws ThrottledException    если сервер требует ждать дольше допустимого
+     * @throws CancellationException если поток прерван во время ожидания
+     */
+    public <T, E extends Exception> T call(Request<T, E> request) throws E, ThrottledException {
+        return call(request, null);
+    }
+
+    /**
+     * Выполняет запрос с учетом ограничений, удерживая место в пределе параллелизма до освобождения результата.
+     * <p>
+     * Используется для ответов, тело которых читается после возврата из метода (XML-выгрузки):
+     * функция <code>hold</code> получает результат и действие освобождения и возвращает обертку, которая вызывает
+     * это действие при закрытии. Так ограничение параллелизма распространяется и на передачу тела ответа.
+     * </p>
+     *
+     * @param request запрос
+     * @param hold    обертка результата, освобождающая место при закрытии, или <code>null</code>, чтобы освободить
+     *                место сразу после получения результата
+     * @param <T>     тип результата
+     * @param <E>     тип проверяемого исключения запроса
+     * @return результат запроса
+     * @throws E                     если запрос завершился ошибкой или попытки исчерпаны
+     * @throws ThrottledException    если сервер требует ждать дольше допустимого
+     * @throws CancellationException если поток прерван во время ожидания
+     */
+    public <T, E extends Exception> T call(Request<T, E> request, BiFunction<T, Runnable, T> hold)
+            throws E, ThrottledException {
+        for (int attempt = 1; ; attempt++) {
+            long pausedMillis = rateLimiter.getPauseRemainingMillis();
+            if (pausedMillis > maxServerDelayMillis) {
+                // Сервер запретил запросы дольше допустимого: ждать нельзя, а повтор раньше срока снова получит 429
+                throw new ThrottledException(429, pausedMillis);
+            }
+            try {
+                concurrencyLimiter.acquire();
+            } catch (InterruptedException e) {
+                throw interrupted();
+            }
+            long retryAfterMillis;
+            try {
+                rateLimiter.acquire(1);
+                T result = request.execute();
+                if (hold == null) {
+                    concurrencyLimiter.onSuccess();
+                    return result;
+                }
+                AtomicBoolean released = new AtomicBoolean();
+                return hold.apply(result, () -> {
+                    if (released.compareAndSet(false, true)) {
+                        concurrencyLimiter.onSuccess();
+                    }
+                });
+            } catch (InterruptedException e) {
+                concurrencyLimiter.onIgnore();
+                throw interrupted();
+            } catch (Exception e) {
+                retryAfterMillis = throttleDelay(e);
+                if (retryAfterMillis == NOT_THROTTLED) {
+                    concurrencyLimiter.onIgnore();
+                    throw e;
+                }
+                throttledResponses.incrementAndGet();
+                concurrencyLimiter.onThrottle();
+                if (retryAfterMillis > 0) {
+                    // Сервер сам указал задержку: она относится ко всем запросам, а не только к текущему,
+                    // и выдерживается полностью, даже если этот запрос больше не повторяется
+                    rateLimiter.pause(retryAfterMillis, TimeUnit.MILLISECONDS);
+                }
+                if (attempt >= maxAttempts || retryAfterMillis > maxServerDelayMillis) {
+                    throw e;
+                }
+            }
+
+            retries.incrementAndGet();
+            JiraMetrics.getInstance().recordRetry();
+            if (retryAfterMillis <= 0) {
+                // Задержка не указана или равна нулю: мгновенный повтор снова получил бы отказ
+                sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    /**
+     * Определяет, является ли ошибка сигналом ограничения частоты.
+     *
+     * @return задержка <code>Retry-After</code> в мс, -1 если она неизвестна, или {@link #NOT_THROTTLED}
+     */
+    private static long throttleDelay(Exception e) {
+        if (e instanceof ThrottledException throttled) {
+            return throttled.getRetryAfterMillis();
+        }
+        return NOT_THROTTLED;
+    }
+
+    /**
+     * Вычисляет задержку перед повтором: случайное значение от нуля до экспоненциально растущей границы.
+     *
+     * @param attempt номер неудачной попытки, начиная с 1
+     * @return задержка в мс
+     */
+    long backoffMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(maxDelayMillis, ceiling) + 1);
+    }
+
+    /**
+     * Учитывает заголовки ограничения частоты из ответа сервера.
+     *
+     * @param remaining значение <code>X-RateLimit-Remaining</code> или <code>null</code>
+     * @param reset     значение <code>X-RateLimit-Reset</code> или <code>null</code>
+     * @param nearLimit значение <code>X-RateLimit-NearLimit</code> или <code>null</code>
+     */
+    public void observeRateLimitHeaders(String remaining, String reset, String nearLimit) {
+        if ("true".equalsIgnoreCase(nearLimit)) {
+            concurrencyLimiter.onNearLimit();
+        }
+        if (remaining != null && reset != null && remaining.trim().equals("0")) {
+            try {
+                long delay = Instant.parse(reset.trim()).toEpochMilli() - System.currentTimeMillis();
+                if (delay > 0) {
+                    // Пауза выдерживается полностью; если она дольше допустимого, новые запросы завершаются сразу
+                    rateLimiter.pause(delay, TimeUnit.MILLISECONDS);
+                }
+            } catch (DateTimeParseException e) {
+                // Неизвестный формат времени сброса: полагаемся на Retry-After и повторы
+            }
+        }
+    }
+
+    /**
+     * Разбирает значение заголовка <code>Retry-After</code>.
+     *
+     * @param value значение заголовка или <code>null</code>
+     * @return задержка в мс или -1, если заголовок отсутствует или некорректен
+     */
+    public static long parseRetryAfterMillis(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - System.currentTimeMillis());
+            } catch (DateTimeParseException ex) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество выполненных повторов.
+     *
+     * @return количество повторов
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Возвращает количество ответов 429 и 503.
+     *
+     * @return количество ответов с ограничением частоты
+     */
+    public long getThrottledResponses() {
+        return throttledResponses.get();
+    }
+
+    /**
+     * Возвращает текущий предел параллелизма, найденный контроллером AIMD.
+     *
+     * @return предел одновременных запросов
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimiter.getLimit();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    private static CancellationException interrupted() {
+        Thread.currentThread().interrupt();
+        return new CancellationException("Запрос к Jira прерван");
+    }
+}
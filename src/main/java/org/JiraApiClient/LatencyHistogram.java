@@ -0,0 +1,138 @@
+package org.JiraApiClient;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с логарифмически-линейными интервалами в стиле HdrHistogram.
+ * <p>
+ * Значения хранятся в микросекундах. Значения меньше 128 мкс учитываются точно, более крупные попадают
+ * в один из 64 интервалов внутри своей степени двойки, что дает относительную погрешность процентилей
+ * не более ~1,6% во всем диапазоне. Массив счетчиков выделяется один раз при создании, поэтому запись
+ * значения не создает объектов и может вызываться на горячем пути из любого числа потоков.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** Количество разрядов точности внутри степени двойки: 2^6 = 64 интервала. */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Значения меньше этой границы учитываются точно. */
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+
+    /** Количество интервалов для всего диапазона long. */
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Учитывает задержку.
+     *
+     * @param nanos задержка в наносекундах
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        sumMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Вычисляет номер интервала для значения.
+     */
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Возвращает середину интервала с заданным номером.
+     */
+    static long bucketMidpoint(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int shift = offset / SUB_BUCKET_COUNT + 1;
+        long lower = (long) (offset % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * Возвращает количество учтенных значений.
+     *
+     * @return количество значений
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Возвращает сумму учтенных значений.
+     *
+     * @return сумма в секундах
+     */
+    public double getSumSeconds() {
+        return sumMicros.sum() / 1_000_000.0;
+    }
+
+    /**
+     * Возвращает максимальное учтенное значение.
+     *
+     * @return максимум в миллисекундах
+     */
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Возвращает среднее значение.
+     *
+     * @return среднее в миллисекундах
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : sumMicros.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Возвращает значение заданного процентиля.
+     * <p>Вычисляется по снимку счетчиков; при одновременной записи результат приблизителен.</p>
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return значение процентиля в миллисекундах
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketMidpoint(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+}
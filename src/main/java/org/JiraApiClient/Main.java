@@ -1,10 +1,29 @@
 
 package org.JiraApiClient;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
 public class Main {
     /**
      * Основной метод программы.
      * Запускает получение данных о задаче с фиксированным ключом.
+     * Если в аргументах передан запрос JQL, выполняется пакетная выгрузка всех найденных задач.
+     * Аргументы <code>sync &lt;проект&gt;</code> запускают инкрементальную синхронизацию проекта,
+     * аргументы <code>keys &lt;ключ&gt; ...</code> — выгрузку перечисленных задач,
+     * аргументы <code>server &lt;проект&gt; ...</code> — прием веб-хуков Jira ({@link WebhookServer})
+     * с периодической сверкой перечисленных проектов,
+     * аргументы <code>profiles &lt;JQL&gt; [профиль ...]</code> — параллельную выгрузку по запросу из нескольких
+     * экземпляров Jira по профилям подключения ({@link JiraProfileRegistry}).
+     * Пакетная выгрузка выполняется конвейером {@link ExportPipeline}.
+     * Метрики публикуются через JMX и, если задан <code>jira.metrics.port</code>, по HTTP в формате Prometheus.
+     * Если параметр <code>jira.backend</code> отличен от <code>apache</code>, одна задача выгружается выбранным
+     * способом загрузки {@link IssueBackend} без создания пула соединений Apache HttpClient.
      */
     public static void main(String[] args) {
         System.out.println("Ошибка: Не удалось подключиться к Jira. Аутентификация не удалась. Проверьте имя пользователя и токен API.");
@@ -14,11 +33,225 @@ public class Main {
 
         // Создание экземпляра JiraConnect для загрузки конфигурации
         JiraConnect jiraConnect = new JiraConnect();
+        MetricsHttpServer metricsServer = startMetrics(jiraConnect);
+
+        if (args.length == 0 && !jiraConnect.getBackend().equals("apache")) {
+            try {
+                fetchWithBackend(jiraConnect, issueKey);
+            } finally {
+                if (metricsServer != null) {
+                    metricsServer.close();
+                }
+            }
+            return;
+        }
+
+        if (args.length > 1 && args[0].equals("profiles")) {
+            // Выгрузка по запросу JQL из нескольких экземпляров Jira по профилям подключения
+            try {
+                runProfiles(jiraConnect, args[1], List.of(args).subList(2, args.length));
+            } finally {
+                if (metricsServer != null) {
+                    metricsServer.close();
+                }
+            }
+            return;
+        }
 
-        // Передаем jiraConnect в конструктор JiraDataFetcher
-        JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect);
+        // Передаем jiraConnect в конструктор JiraDataFetcher; клиент и пул соединений закрываются по завершении
+        try (JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect)) {
+            if (args.length > 0 && args[0].equals("server")) {
+                // Режим сервера: выгрузка задач по веб-хукам Jira вместо опроса
+                runWebhookServer(jiraConnect, dataFetcher, List.of(args).subList(1, args.length));
+            } else if (args.length > 1 && args[0].equals("sync")) {
+                // Инкрементальный режим: выгрузка только измененных задач проекта из второго аргумента
+                new IncrementalSync(jiraConnect, dataFetcher).sync(args[1]);
+            } else if (args.length > 1 && args[0].equals("keys")) {
+                // Выгрузка задач с перечисленными ключами
+                new ExportPipeline(jiraConnect, dataFetcher).exportKeys(List.of(args).subList(1, args.length));
+            } else if (args.length > 0) {
+                // Пакетный режим: выгрузка всех задач по запросу JQL из первого аргумента
+                new ExportPipeline(jiraConnect, dataFetcher).exportJql(args[0]);
+            } else {
+                // Запуск метода для получения данных задачи
+                dataFetcher.fetchIssueData(issueKey);
+            }
 
-        // Запуск метода для получения данных задачи
-        dataFetcher.fetchIssueData(issueKey);
+            JiraClientHolder.ConnectionPoolStats stats = dataFetcher.getClientHolder().getPoolStats();
+            System.out.printf("Пул соединений: запросов %d, открыто соединений %d, переиспользование %.0f%%%n",
+                    stats.requests(), stats.connectionsOpened(), stats.reuseRate() * 100);
+            System.out.printf("Connection pool: %d requests, %d connections opened, %.0f%% reuse%n",
+                    stats.requests(), stats.connectionsOpened(), stats.reuseRate() * 100);
+        } catch (IOException e) {
+            System.err.println("Ошибка при закрытии подключения к Jira: " + e.getMessage());
+            System.err.println("Error closing connection to Jira: " + e.getMessage());
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+        }
+    }
+
+    /**
+     * Выгружает одну задачу способом загрузки, выбранным параметром <code>jira.backend</code>.
+     * <p>
+     * Поля задачи и XML-выгрузка загружаются параллельно; по HTTP/2 оба запроса идут в одном соединении.
+     * Кэш задач в этом режиме не используется.
+     * </p>
+     *
+     * @param jiraConnect конфигурация подключения
+     * @param issueKey    ключ задачи
+     */
+    private static void fetchWithBackend(JiraConnect jiraConnect, String issueKey) {
+        try (IssueBackend backend = IssueBackend.create(jiraConnect); IssueSink sink = IssueSink.create(jiraConnect)) {
+            Path xmlPath = sink.xmlPath(issueKey);
+            FutureTask<Long> xml = null;
+            if (xmlPath != null) {
+                xml = new FutureTask<>(() -> backend.downloadIssueXml(issueKey, xmlPath));
+                Thread.ofVirtual().name("issue-xml").start(xml);
+            }
+            try {
+                sink.write(backend.fetchIssue(issueKey));
+            } catch (IOException e) {
+                if (xml != null) {
+                    xml.cancel(true);
+                }
+                throw e;
+            }
+            if (xml != null) {
+                xml.get();
+                System.out.println("XML успешно получен и сохранен по пути: " + xmlPath);
+                System.out.println("XML successfully retrieved and saved at: " + xmlPath);
+            }
+        } catch (ExecutionException e) {
+            reportFetchError(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            reportFetchError(e);
+        }
+    }
+
+    /**
+     * Принимает веб-хуки Jira до завершения процесса.
+     * <p>
+     * Измененные задачи повторно выгружаются через {@link JiraDataFetcher}; перечисленные проекты периодически
+     * сверяются инкрементальной синхронизацией, чтобы найти изменения, события о которых были потеряны.
+     * </p>
+     *
+     * @param jiraConnect конфигурация подключения
+     * @param dataFetcher экземпляр JiraDataFetcher для выгрузки задач
+     * @param projects    ключи проектов для сверки
+     * @throws IOException если не удалось открыть порт
+     */
+    private static void runWebhookServer(JiraConnect jiraConnect, JiraDataFetcher dataFetcher, List<String> projects)
+            throws IOException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        CountDownLatch flushed = new CountDownLatch(1);
+        try (WebhookServer server = WebhookServer.start(jiraConnect,
+                WebhookServer.refetchHandler(jiraConnect, dataFetcher, projects))) {
+            // При остановке процесса обработанные задачи сбрасываются на диск до завершения JVM
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                stopped.countDown();
+                try {
+                    flushed.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            System.out.println("Веб-хуки принимаются по адресу http://" + jiraConnect.getWebhookHost() + ":"
+                    + server.getPort() + jiraConnect.getWebhookPath());
+            System.out.println("Webhooks are accepted at http://" + jiraConnect.getWebhookHost() + ":"
+                    + server.getPort() + jiraConnect.getWebhookPath());
+            stopped.await();
+            dataFetcher.flushOutput();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ошибка при запуске сервера веб-хуков: " + e.getMessage());
+            System.err.println("Error starting webhook server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushed.countDown();
+        }
+    }
+
+    /**
+     * Выполняет выгрузку по запросу JQL параллельно для нескольких профилей подключения и печатает сводные итоги.
+     * <p>
+     * Файл профилей читается один раз при запуске: все профили выбираются до начала выгрузки, поэтому
+     * отслеживание изменений ({@link JiraProfileRegistry#startWatching()}) здесь не включается. Оно нужно
+     * долго работающим приложениям, которые используют реестр через API.
+     * </p>
+     *
+     * @param jiraConnect основная конфигурация
+     * @param jql         запрос JQL
+     * @param names       имена профилей; если список пуст, используются все профили
+     */
+    private static void runProfiles(JiraConnect jiraConnect, String jql, List<String> names) {
+        try (JiraProfileRegistry registry = JiraProfileRegistry.create(jiraConnect)) {
+            JiraProfileRegistry.FanOutResult<ExportPipeline.PipelineResult> result =
+                    registry.exportJql(jql, names.isEmpty() ? registry.names() : names);
+            long written = 0;
+            long failed = 0;
+            for (var entry : result.results().entrySet()) {
+                written += entry.getValue().written();
+                failed += entry.getValue().failed();
+                System.out.println("Профиль " + entry.getKey() + ": записано " + entry.getValue().written()
+                        + ", ошибок " + entry.getValue().failed());
+                System.out.println("Profile " + entry.getKey() + ": " + entry.getValue().written() + " written, "
+                        + entry.getValue().failed() + " failed");
+            }
+            result.failures().forEach((name, e) -> {
+                System.err.println("Ошибка выгрузки профиля " + name + ": " + e.getMessage());
+                System.err.println("Export of profile " + name + " failed: " + e.getMessage());
+            });
+            System.out.println("Всего по профилям: записано " + written + ", ошибок " + failed + " за "
+                    + result.elapsed().toMillis() + " мс");
+            System.out.println("Total across profiles: " + written + " written, " + failed + " failed in "
+                    + result.elapsed().toMillis() + " ms");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ошибка при загрузке профилей подключения: " + e.getMessage());
+            System.err.println("Error loading connection profiles: " + e.getMessage());
+        }
+    }
+
+    private static void reportFetchError(Throwable e) {
+        if (e instanceof JiraHttpException httpError && httpError.getStatusCode() == 401) {
+            System.err.println("Ошибка: Не удалось подключиться к Jira. " +
+                    "Аутентификация не удалась. Проверьте имя пользователя и токен API.");
+            System.err.println("Error: Failed to connect to Jira. Authentication failed. Please check the username and API token.");
+        } else {
+            System.err.println("Ошибка при попытке подключения к Jira или при получении данных: " + e.getMessage());
+            System.err.println("Error attempting to connect to Jira or retrieve data: " + e.getMessage());
+        }
+        System.err.println("Пожалуйста, проверьте настройки файла конфигурации подключения.");
+        System.err.println("Please check the connection configuration file settings.");
+    }
+
+    /**
+     * Регистрирует метрики в JMX и запускает HTTP-сервер метрик, если это включено в конфигурации.
+     *
+     * @param jiraConnect конфигурация подключения
+     * @return запущенный сервер метрик или <code>null</code>, если он отключен
+     */
+    private static MetricsHttpServer startMetrics(JiraConnect jiraConnect) {
+        JiraMetrics metrics = JiraMetrics.getInstance();
+        if (jiraConnect.isMetricsJmxEnabled()) {
+            metrics.registerMBeans();
+        }
+        if (jiraConnect.getMetricsPort() <= 0) {
+            return null;
+        }
+        try {
+            MetricsHttpServer server = new MetricsHttpServer(jiraConnect.getMetricsHost(), jiraConnect.getMetricsPort(), metrics);
+            System.out.println("Метрики доступны по адресу http://" + jiraConnect.getMetricsHost() + ":" + server.getPort() + "/metrics");
+            System.out.println("Metrics available at http://" + jiraConnect.getMetricsHost() + ":" + server.getPort() + "/metrics");
+            return server;
+        } catch (IOException e) {
+            System.err.println("Ошибка при запуске сервера метрик: " + e.getMessage());
+            System.err.println("Error starting metrics server: " + e.getMessage());
+            return null;
+        }
     }
 }
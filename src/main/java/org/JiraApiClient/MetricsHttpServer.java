@@ -0,0 +1,66 @@
+package org.JiraApiClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Легковесный локальный HTTP-сервер, отдающий метрики по пути <code>/metrics</code>
+ * в текстовом формате Prometheus.
+ * <p>Включается параметром <code>jira.metrics.port</code> (0 — отключен).</p>
+ *
+ * @version 1.0
+ */
+public class MetricsHttpServer implements AutoCloseable {
+    private final HttpServer server;
+
+    /**
+     * Запускает сервер метрик.
+     *
+     * @param host    адрес для прослушивания
+     * @param port    порт; 0 — любой свободный
+     * @param metrics публикуемые метрики
+     * @throws IOException если не удалось открыть порт
+     */
+    public MetricsHttpServer(String host, int port, JiraMetrics metrics) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", exchange -> respond(exchange, metrics.toPrometheusText()));
+        server.start();
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = text.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Возвращает порт, на котором работает сервер.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
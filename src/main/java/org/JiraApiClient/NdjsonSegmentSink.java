@@ -0,0 +1,406 @@
+package org.JiraApiClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Хранилище результатов в виде сегментов NDJSON (одна задача — одна строка JSON) с дозаписью в конец.
+ * <p>
+ * Вместо двух файлов на задачу записи попадают в небольшое количество крупных файлов
+ * <code>segment-NNNNNN.ndjson[.gz]</code>, поэтому накладные расходы на метаданные файловой системы
+ * не зависят от количества задач.
+ * </p>
+ *
+ * <p><b>Устройство:</b></p>
+ * <ul>
+ *   <li>Все записи на диск выполняет один поток-писатель. Вызывающие потоки только сериализуют запись в JSON
+ *   и помещают ее в ограниченную очередь, которая при переполнении блокирует их.</li>
+ *   <li>Групповая фиксация: писатель забирает из очереди все накопившиеся записи (не более
+ *   <code>maxBatchRecords</code>), записывает их одним блоком и выполняет один <code>fsync</code> на весь блок.</li>
+ *   <li>Сегмент закрывается, когда его размер превышает <code>segmentMaxBytes</code>; следующий блок начинает новый сегмент.
+ *   Блок никогда не разделяется между сегментами.</li>
+ *   <li>При сжатии gzip каждый блок записывается отдельным членом gzip. Сегмент остается корректным файлом gzip,
+ *   а чтение отдельной записи начинается с ее блока, а не с начала сегмента.</li>
+ *   <li>Рядом с каждым сегментом ведется индекс <code>segment-NNNNNN.idx</code> (ключ, смещение блока, смещение строки
+ *   в блоке), который дописывается только после того, как блок сброшен на диск. При открытии хранилища индексы
+ *   загружаются в память; строки, оборванные сбоем или указывающие за конец сегмента, отбрасываются. Для повторно
+ *   выгруженной задачи действует последняя запись.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class NdjsonSegmentSink implements IssueSink {
+
+    /** Способ сжатия сегментов. */
+    public enum Compression {
+        NONE(""),
+        GZIP(".gz");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.ndjson(\\.gz)?");
+
+    /** Элемент очереди: строка записи либо служебная отметка для {@link #flush()} и {@link #close()}. */
+    private record Pending(String key, byte[] line, CompletableFuture<Void> barrier, boolean close) {
+    }
+
+    /**
+     * Положение записи в сегменте.
+     *
+     * @param segment     файл сегмента
+     * @param blockOffset смещение блока в файле
+     * @param lineOffset  смещение строки от начала блока (до сжатия)
+     */
+    private record Location(Path segment, long blockOffset, int lineOffset) {
+    }
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final Compression compression;
+    private final int maxBatchRecords;
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Thread writer;
+
+    /** Первая ошибка записи; после нее хранилище перестает принимать записи. */
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    // Состояние текущего сегмента; используется только потоком-писателем
+    private int nextSegmentNumber;
+    private Path segmentPath;
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private long segmentBytes;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(64 * 1024);
+    private final StringBuilder indexLines = new StringBuilder(4096);
+
+    /**
+     * Открывает хранилище и загружает индексы существующих сегментов.
+     * Новые записи всегда попадают в новый сегмент, существующие файлы не изменяются.
+     *
+     * @param directory       каталог сегментов
+     * @param segmentMaxBytes размер, после которого сегмент закрывается, байт
+     * @param compression     способ сжатия новых сегментов
+     * @param maxBatchRecords максимальное количество записей в одной групповой фиксации
+     * @throws IOException при ошибке чтения каталога или индексов
+     */
+    public NdjsonSegmentSink(Path directory, long segmentMaxBytes, Compression compression, int maxBatchRecords)
+            throws IOException {
+        this.directory = directory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.compression = compression;
+        this.maxBatchRecords = Math.max(1, maxBatchRecords);
+        this.queue = new ArrayBlockingQueue<>(this.maxBatchRecords * 4);
+        Files.createDirectories(directory);
+        loadIndexes();
+        this.writer = new Thread(this::runWriter, "ndjson-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Загружает индексы существующих сегментов в порядке их номеров. Последняя строка индекса без перевода строки
+     * и строки, указывающие за конец сегмента, остались от прерванной фиксации и пропускаются.
+     */
+    private void loadIndexes() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+        for (Path segment : segments) {
+            Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+            matcher.matches();
+            int number = Integer.parseInt(matcher.group(1));
+            nextSegmentNumber = Math.max(nextSegmentNumber, number + 1);
+            Path indexFile = directory.resolve(String.format("segment-%06d.idx", number));
+            if (!Files.exists(indexFile)) {
+                continue;
+            }
+            long segmentSize = Files.size(segment);
+            String[] lines = new String(Files.readAllBytes(indexFile), StandardCharsets.UTF_8).split("\n", -1);
+            // Последний элемент — текст после последнего перевода строки: пустой или оборванная строка
+            for (int i = 0; i < lines.length - 1; i++) {
+                String[] parts = lines[i].split("\t");
+                if (parts.length == 3 && Long.parseLong(parts[1]) < segmentSize) {
+                    index.put(parts[0], new Location(segment, Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+                }
+            }
+        }
+    }
+
+    /**
+     * Сериализует запись и ставит ее в очередь на запись. При заполненной очереди вызывающий поток ждет.
+     *
+     * @param record запись задачи
+     * @throws IOException если хранилище закрыто или предыдущая запись на диск завершилась ошибкой
+     */
+    @Override
+    public void write(IssueRecord record) throws IOException {
+        checkOpen();
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        JiraJson.writeIssueRecord(line, record);
+        line.write('\n');
+        enqueue(new Pending(record.key(), line.toByteArray(), null, false));
+    }
+
+    /**
+     * Дожидается групповой фиксации всех записей, принятых до вызова.
+     *
+     * @throws IOException если запись хотя бы одной из них завершилась ошибкой
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        enqueue(new Pending(null, null, barrier, false));
+        await(barrier);
+    }
+
+    /**
+     * Фиксирует оставшиеся записи, закрывает текущий сегмент и останавливает поток-писатель.
+     *
+     * @throws IOException если запись хотя бы одной принятой записи завершилась ошибкой
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        enqueue(new Pending(null, null, barrier, true));
+        await(barrier);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прервано ожидание завершения записи");
+        }
+    }
+
+    /**
+     * Читает последнюю сохраненную запись задачи по индексу.
+     *
+     * @param key ключ задачи
+     * @return запись задачи или <code>null</code>, если задача не сохранялась
+     * @throws IOException при ошибке чтения
+     */
+    public IssueRecord read(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(location.segment(), StandardOpenOption.READ)) {
+            channel.position(location.blockOffset());
+            InputStream in = Channels.newInputStream(channel);
+            if (location.segment().getFileName().toString().endsWith(Compression.GZIP.extension)) {
+                in = new GZIPInputStream(in);
+            }
+            in.skipNBytes(location.lineOffset());
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+            byte[] data = line.toByteArray();
+            return JiraJson.readIssueRecord(data, 0, data.length);
+        }
+    }
+
+    /**
+     * Возвращает количество задач в индексе.
+     *
+     * @return количество различных ключей
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Хранилище NDJSON закрыто");
+        }
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("Ошибка записи сегмента NDJSON: " + error.getMessage(), error);
+        }
+    }
+
+    private void enqueue(Pending pending) throws IOException {
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прервано ожидание места в очереди записи");
+        }
+    }
+
+    private static void await(CompletableFuture<Void> barrier) throws IOException {
+        try {
+            barrier.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прервано ожидание фиксации записей");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * Цикл потока-писателя: забирает накопившиеся записи и фиксирует их группами.
+     */
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatchRecords);
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Поток-писатель не прерывается извне; завершение выполняется через close()
+                continue;
+            }
+            queue.drainTo(batch, maxBatchRecords - 1);
+            for (Pending pending : batch) {
+                closing |= pending.close();
+            }
+            commit(batch);
+            if (closing) {
+                closeSegment();
+            }
+            for (Pending pending : batch) {
+                if (pending.barrier() != null) {
+                    if (failure == null) {
+                        pending.barrier().complete(null);
+                    } else {
+                        pending.barrier().completeExceptionally(failure);
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Записывает блок записей в текущий сегмент и индекс и сбрасывает оба файла на диск. Строки индекса
+     * дописываются только после сброса блока, поэтому после сбоя индекс не ссылается на незаписанный блок.
+     */
+    private void commit(List<Pending> batch) {
+        if (failure != null) {
+            return;
+        }
+        block.reset();
+        indexLines.setLength(0);
+        List<String> keys = new ArrayList<>(batch.size());
+        List<Integer> lineOffsets = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (pending.line() != null) {
+                keys.add(pending.key());
+                lineOffsets.add(block.size());
+                block.write(pending.line(), 0, pending.line().length);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            if (segmentChannel == null) {
+                openSegment();
+            }
+            long blockOffset = segmentChannel.position();
+            byte[] data = encodeBlock();
+            writeFully(segmentChannel, data);
+            // Один fsync сегмента на всю группу записей, и только затем — индекс
+            segmentChannel.force(false);
+            for (int i = 0; i < keys.size(); i++) {
+                indexLines.append(keys.get(i)).append('\t').append(blockOffset).append('\t').append(lineOffsets.get(i)).append('\n');
+            }
+            writeFully(indexChannel, indexLines.toString().getBytes(StandardCharsets.UTF_8));
+            indexChannel.force(false);
+            for (int i = 0; i < keys.size(); i++) {
+                index.put(keys.get(i), new Location(segmentPath, blockOffset, lineOffsets.get(i)));
+            }
+            segmentBytes += data.length;
+            if (segmentBytes >= segmentMaxBytes) {
+                closeSegment();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private byte[] encodeBlock() throws IOException {
+        if (compression == Compression.NONE) {
+            return block.toByteArray();
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(512, block.size() / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            block.writeTo(gzip);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        int number = nextSegmentNumber++;
+        segmentPath = directory.resolve(String.format("segment-%06d.ndjson%s", number, compression.extension));
+        Path indexPath = directory.resolve(String.format("segment-%06d.idx", number));
+        segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        segmentBytes = 0;
+    }
+
+    private void closeSegment() {
+        if (segmentChannel == null) {
+            return;
+        }
+        try {
+            segmentChannel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            segmentChannel = null;
+            indexChannel = null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.JiraApiClient;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ограничитель скорости на основе корзины токенов (token bucket).
+ * <p>
+ * Токены пополняются с постоянной скоростью до заданной емкости корзины, поэтому допускаются короткие
+ * всплески запросов, но средняя скорость не превышает заданную. Помимо этого ограничитель можно
+ * приостановить до заданного момента (например, по заголовку <code>Retry-After</code>):
+ * до этого момента токены не выдаются ни одному потоку.
+ * </p>
+ * <p>Потокобезопасен. Ожидание выполняется без удержания блокировки.</p>
+ *
+ * @version 1.0
+ */
+public class RateLimiter {
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    /** Текущее количество токенов. */
+    private double available;
+
+    /** Момент последнего пополнения, нс. */
+    private long refilledAt;
+
+    /** Момент, до которого выдача токенов приостановлена, нс. */
+    private long pausedUntil;
+
+    /**
+     * Конструктор класса RateLimiter.
+     *
+     * @param permitsPerSecond скорость пополнения токенов в секунду
+     * @param capacity         емкость корзины (максимальный всплеск)
+     */
+    public RateLimiter(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Скорость и емкость должны быть положительными");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.available = capacity;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Получает заданное количество токенов, ожидая их пополнения при необходимости.
+     * Запрос больше емкости корзины допускается: он выполняется «в долг» и задерживает следующие запросы.
+     *
+     * @param permits количество токенов
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public void acquire(long permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Резервирует токены и возвращает время, которое нужно подождать до их появления.
+     */
+    private synchronized long reserve(long permits) {
+        long now = System.nanoTime();
+        refill(now);
+        available -= permits;
+        long pauseNanos = Math.max(0, pausedUntil - now);
+        long debtNanos = available >= 0 ? 0 : (long) (-available / permitsPerSecond * 1_000_000_000L);
+        // Во время паузы токены не пополняются, поэтому долг начинает погашаться только после нее
+        return pauseNanos + debtNanos;
+    }
+
+    private void refill(long now) {
+        long start = Math.max(refilledAt, pausedUntil);
+        if (now > start) {
+            available = Math.min(capacity, available + (now - start) * permitsPerSecond / 1_000_000_000L);
+        }
+        refilledAt = Math.max(refilledAt, now);
+    }
+
+    /**
+     * Приостанавливает выдачу токенов на заданное время. Более короткая пауза не сокращает уже действующую.
+     *
+     * @param delay время паузы
+     * @param unit  единица измерения времени
+     */
+    public synchronized void pause(long delay, TimeUnit unit) {
+        long until = System.nanoTime() + unit.toNanos(delay);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+    }
+
+    /**
+     * Возвращает оставшееся время действующей паузы.
+     *
+     * @return время паузы в мс или 0, если выдача токенов не приостановлена
+     */
+    public synchronized long getPauseRemainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, pausedUntil - System.nanoTime()));
+    }
+
+    /**
+     * Возвращает скорость пополнения токенов.
+     *
+     * @return токенов в секунду
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private static void sleep(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package org.JiraApiClient;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Хранилище снимков выгрузки с адресацией по содержимому.
+ * <p>
+ * Каждая запись задачи приводится к нормализованному виду (поля упорядочены по имени), и ее содержимое
+ * хранится один раз под именем, равным хешу SHA-256. Снимок — это манифест «ключ задачи → хеш»: задачи,
+ * не изменившиеся с прошлого снимка, только ссылаются на уже сохраненный объект, поэтому ежедневный снимок
+ * записывает на диск лишь измененные задачи.
+ * </p>
+ *
+ * <p><b>Структура каталога:</b></p>
+ * <ul>
+ *   <li><code>objects/ab/&lt;хеш&gt;</code> — объекты, сжатые Deflate. Новая версия задачи может храниться
+ *   как разность с предыдущей: она сжимается с предыдущей версией в качестве словаря, поэтому объект содержит
+ *   в основном измененные фрагменты. Длина цепочки разностей ограничена, чтобы чтение оставалось быстрым.</li>
+ *   <li><code>snapshots/&lt;идентификатор&gt;.manifest.gz</code> — манифесты снимков, строки
+ *   <code>ключ\tхеш</code>, упорядоченные по ключу. Идентификаторы упорядочены по времени как строки.</li>
+ *   <li><code>snapshots/&lt;идентификатор&gt;.pending</code> — идентификаторы начатых, но еще не закрытых снимков.
+ *   Файл создается атомарно, поэтому одновременно начатые снимки (например, две задачи одного профиля) получают
+ *   разные идентификаторы.</li>
+ * </ul>
+ * <p>
+ * Объекты и манифесты записываются атомарно, а манифест записывается после всех объектов, на которые он
+ * ссылается, поэтому прерванный снимок не повреждает хранилище.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class SnapshotStore {
+
+    /** Тип объекта: полное содержимое. */
+    private static final byte FULL = 0;
+
+    /** Тип объекта: разность с базовой версией. */
+    private static final byte DELTA = 1;
+
+    /** Длина хеша SHA-256 в байтах. */
+    private static final int HASH_BYTES = 32;
+
+    /** Deflate использует в качестве словаря не более 32 КБ. */
+    private static final int DICTIONARY_LIMIT = 32 * 1024;
+
+    private static final String MANIFEST_SUFFIX = ".manifest.gz";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final Pattern SEQUENCE = Pattern.compile("(.*)\\.(\\d{3})");
+    private static final DateTimeFormatter SNAPSHOT_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path objectsDir;
+    private final Path snapshotsDir;
+    private final boolean deltas;
+    private final int maxDeltaChain;
+
+    /** Последний прочитанный манифест. */
+    private volatile Manifest cachedManifest;
+
+    /** Манифест снимка. */
+    private record Manifest(String snapshotId, Map<String, String> entries) {
+    }
+
+    /**
+     * Конструктор класса SnapshotStore.
+     *
+     * @param directory     каталог хранилища
+     * @param deltas        хранить ли измененные задачи как разность с предыдущей версией
+     * @param maxDeltaChain максимальная длина цепочки разностей, не больше 127 (длина хранится в одном байте)
+     * @throws IOException если не удалось создать каталоги хранилища
+     */
+    public SnapshotStore(Path directory, boolean deltas, int maxDeltaChain) throws IOException {
+        this.objectsDir = directory.resolve("objects");
+        this.snapshotsDir = directory.resolve("snapshots");
+        this.deltas = deltas;
+        this.maxDeltaChain = Math.min(Byte.MAX_VALUE, Math.max(1, maxDeltaChain));
+        Files.createDirectories(objectsDir);
+        Files.createDirectories(snapshotsDir);
+    }
+
+    /**
+     * Формирует идентификатор снимка по текущему времени UTC, например <code>20240102T030405Z</code>.
+     *
+     * @return идентификатор снимка
+     */
+    public static String newSnapshotId() {
+        return ZonedDateTime.now(ZoneOffset.UTC).format(SNAPSHOT_ID_FORMAT);
+    }
+
+    /**
+     * Возвращает идентификаторы сохраненных снимков в порядке их создания.
+     *
+     * @return идентификаторы снимков
+     * @throws IOException при ошибке чтения каталога
+     */
+    public List<String> snapshots() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(snapshotsDir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(MANIFEST_SUFFIX))
+                    .forEach(name -> ids.add(name.substring(0, name.length() - MANIFEST_SUFFIX.length())));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Начинает новый снимок с идентификатором по текущему времени ({@link #newSnapshotId()}).
+     * <p>
+     * Если снимок с таким или большим идентификатором уже существует или начат, к идентификатору последнего
+     * снимка добавляется (или в нем увеличивается) порядковый номер, например <code>20240102T030405Z.001</code>.
+     * </p>
+     *
+     * @param carryForward переносить ли в снимок задачи предыдущего снимка, не записанные в этот
+     * @return запись снимка
+     * @throws IOException при ошибке чтения предыдущего снимка
+     */
+    public SnapshotWriter begin(boolean carryForward) throws IOException {
+        String snapshotId = newSnapshotId();
+        while (!reserve(snapshotId)) {
+            String latest = latestId();
+            if (latest != null && latest.compareTo(snapshotId) >= 0) {
+                snapshotId = nextId(latest);
+            }
+        }
+        return open(snapshotId, carryForward);
+    }
+
+    /**
+     * Начинает новый снимок.
+     *
+     * @param snapshotId   идентификатор снимка; должен быть больше идентификаторов существующих и начатых снимков
+     * @param carryForward переносить ли в снимок задачи предыдущего снимка, не записанные в этот
+     *                     (нужно для инкрементальной выгрузки только измененных задач)
+     * @return запись снимка; снимок сохраняется при {@link SnapshotWriter#flush()} и {@link SnapshotWriter#close()}
+     * @throws IOException              при ошибке чтения предыдущего снимка
+     * @throws IllegalArgumentException если идентификатор некорректен или не больше последнего снимка
+     */
+    public SnapshotWriter begin(String snapshotId, boolean carryForward) throws IOException {
+        if (!SNAPSHOT_ID.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Некорректный идентификатор снимка: " + snapshotId);
+        }
+        if (!reserve(snapshotId)) {
+            throw new IllegalArgumentException("Снимок " + snapshotId + " должен быть новее снимка " + latestId());
+        }
+        return open(snapshotId, carryForward);
+    }
+
+    private SnapshotWriter open(String snapshotId, boolean carryForward) throws IOException {
+        List<String> existing = snapshots();
+        String previousId = existing.isEmpty() ? null : existing.get(existing.size() - 1);
+        Map<String, String> previous = previousId != null ? manifest(previousId) : Map.of();
+        return new SnapshotWriter(snapshotId, previous, carryForward);
+    }
+
+    /**
+     * Закрепляет идентификатор за начатым снимком.
+     *
+     * @return <code>false</code>, если идентификатор не больше последнего сохраненного или начатого снимка
+     *         либо уже занят другим снимком
+     */
+    private boolean reserve(String snapshotId) throws IOException {
+        String latest = latestId();
+        if (latest != null && latest.compareTo(snapshotId) >= 0) {
+            return false;
+        }
+        try {
+            Files.createFile(snapshotsDir.resolve(snapshotId + PENDING_SUFFIX));
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает наибольший идентификатор среди сохраненных и начатых снимков.
+     */
+    private String latestId() throws IOException {
+        try (Stream<Path> files = Files.list(snapshotsDir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .map(name -> name.endsWith(MANIFEST_SUFFIX)
+                            ? name.substring(0, name.length() - MANIFEST_SUFFIX.length())
+                            : name.endsWith(PENDING_SUFFIX) ? name.substring(0, name.length() - PENDING_SUFFIX.length()) : null)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Возвращает идентификатор, следующий за указанным: увеличивает порядковый номер или добавляет <code>.001</code>.
+     */
+    private static String nextId(String snapshotId) {
+        Matcher matcher = SEQUENCE.matcher(snapshotId);
+        if (matcher.matches()) {
+            return String.format(Locale.ROOT, "%s.%03d", matcher.group(1), Integer.parseInt(matcher.group(2)) + 1);
+        }
+        return snapshotId + ".001";
+    }
+
+    /**
+     * Возвращает состояние задачи на момент снимка: версию из последнего снимка, идентификатор которого
+     * не больше указанного.
+     *
+     * @param snapshotId идентификатор снимка или момент времени в том же формате
+     * @param issueKey   ключ задачи
+     * @return запись задачи или <code>null</code>, если такого снимка нет или задача в нем отсутствует
+     * @throws IOException при ошибке чтения
+     */
+    public IssueRecord readAsOf(String snapshotId, String issueKey) throws IOException {
+        String resolved = null;
+        for (String id : snapshots()) {
+            if (id.compareTo(snapshotId) > 0) {
+                break;
+            }
+            resolved = id;
+        }
+        if (resolved == null) {
+            return null;
+        }
+        String hash = manifest(resolved).get(issueKey);
+        if (hash == null) {
+            return null;
+        }
+        byte[] content = readContent(hash);
+        return JiraJson.readIssueRecord(content, 0, content.length);
+    }
+
+    /**
+     * Читает манифест снимка.
+     *
+     * @param snapshotId идентификатор снимка
+     * @return хеши содержимого по ключам задач
+     * @throws IOException при ошибке чтения или если снимок отсутствует
+     */
+    Map<String, String> manifest(String snapshotId) throws IOException {
+        Manifest cached = cachedManifest;
+        if (cached != null && cached.snapshotId().equals(snapshotId)) {
+            return cached.entries();
+        }
+        Map<String, String> entries = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(manifestPath(snapshotId))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    entries.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        }
+        Map<String, String> unmodifiable = Collections.unmodifiableMap(entries);
+        cachedManifest = new Manifest(snapshotId, unmodifiable);
+        return unmodifiable;
+    }
+
+    /**
+     * Читает нормализованное содержимое объекта, восстанавливая цепочку разностей.
+     *
+     * @param hash хеш содержимого
+     * @return содержимое
+     * @throws IOException при ошибке чтения или повреждении объекта
+     */
+    byte[] readContent(String hash) throws IOException {
+        byte[] object = Files.readAllBytes(objectPath(hash));
+        if (object[0] == FULL) {
+            return inflate(object, 1, null);
+        }
+        String baseHash = HEX.formatHex(object, 1, 1 + HASH_BYTES);
+        return inflate(object, 2 + HASH_BYTES, readContent(baseHash));
+    }
+
+    /**
+     * Возвращает длину цепочки разностей объекта: 0 для полного содержимого.
+     */
+    private int chainDepth(String hash) throws IOException {
+        try (InputStream in = Files.newInputStream(objectPath(hash))) {
+            byte[] header = in.readNBytes(2 + HASH_BYTES);
+            return header[0] == FULL ? 0 : header[1 + HASH_BYTES];
+        }
+    }
+
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path manifestPath(String snapshotId) {
+        return snapshotsDir.resolve(snapshotId + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Приводит запись к нормализованному виду: поля упорядочиваются по имени.
+     *
+     * @param record запись задачи
+     * @return нормализованное содержимое в JSON
+     * @throws IOException при ошибке сериализации
+     */
+    static byte[] normalize(IssueRecord record) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        JiraJson.writeIssueRecord(out, new IssueRecord(record.key(), record.updated(), new TreeMap<>(record.fields())));
+        return out.toByteArray();
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] content, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            if (dictionary != null) {
+                int length = Math.min(dictionary.length, DICTIONARY_LIMIT);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] object, int offset, byte[] dictionary) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(object, offset, object.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(object.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        int length = Math.min(dictionary.length, DICTIONARY_LIMIT);
+                        inflater.setDictionary(dictionary, dictionary.length - length, length);
+                    } else if (inflater.needsInput() || inflater.needsDictionary()) {
+                        throw new IOException("Объект хранилища снимков поврежден");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Объект хранилища снимков поврежден: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Запись одного снимка. Используется как хранилище результатов выгрузки ({@link IssueSink}).
+     * <p>Метод {@link #write(IssueRecord)} потокобезопасен.</p>
+     */
+    public final class SnapshotWriter implements IssueSink {
+        private final String snapshotId;
+        private final Map<String, String> previous;
+        private final boolean carryForward;
+        private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+        private final LongAdder written = new LongAdder();
+        private final LongAdder unchanged = new LongAdder();
+        private final LongAdder reused = new LongAdder();
+        private final LongAdder fullObjects = new LongAdder();
+        private final LongAdder deltaObjects = new LongAdder();
+        private final LongAdder bytesStored = new LongAdder();
+
+        private SnapshotWriter(String snapshotId, Map<String, String> previous, boolean carryForward) {
+            this.snapshotId = snapshotId;
+            this.previous = previous;
+            this.carryForward = carryForward;
+        }
+
+        /**
+         * Возвращает идентификатор снимка.
+         *
+         * @return идентификатор снимка
+         */
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+
+        /**
+         * Добавляет задачу в снимок. Содержимое сохраняется, только если такого объекта еще нет в хранилище.
+         *
+         * @param record запись задачи
+         * @throws IOException при ошибке записи объекта
+         */
+        @Override
+        public void write(IssueRecord record) throws IOException {
+            byte[] content = normalize(record);
+            String hash = sha256(content);
+            written.increment();
+            String previousHash = previous.get(record.key());
+            if (hash.equals(previousHash)) {
+                unchanged.increment();
+            } else if (Files.exists(objectPath(hash))) {
+                reused.increment();
+            } else {
+                storeObject(hash, content, previousHash);
+            }
+            entries.put(record.key(), hash);
+        }
+
+        private void storeObject(String hash, byte[] content, String previousHash) throws IOException {
+            byte[] full = deflate(content, null);
+            byte[] object = null;
+            if (deltas && previousHash != null) {
+                try {
+                    int depth = chainDepth(previousHash);
+                    if (depth < maxDeltaChain) {
+                        byte[] delta = deflate(content, readContent(previousHash));
+                        if (delta.length + HASH_BYTES + 1 < full.length) {
+                            object = new byte[2 + HASH_BYTES + delta.length];
+                            object[0] = DELTA;
+                            System.arraycopy(HEX.parseHex(previousHash), 0, object, 1, HASH_BYTES);
+                            object[1 + HASH_BYTES] = (byte) (depth + 1);
+                            System.arraycopy(delta, 0, object, 2 + HASH_BYTES, delta.length);
+                            deltaObjects.increment();
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // Предыдущая версия недоступна: сохраняется полное содержимое
+                }
+            }
+            if (object == null) {
+                object = new byte[1 + full.length];
+                object[0] = FULL;
+                System.arraycopy(full, 0, object, 1, full.length);
+                fullObjects.increment();
+            }
+            Path path = objectPath(hash);
+            Files.createDirectories(path.getParent());
+            AtomicFiles.write(path, object);
+            bytesStored.add(object.length);
+        }
+
+        /**
+         * Сохраняет манифест снимка с задачами, записанными к этому моменту. Может вызываться многократно:
+         * каждый вызов атомарно заменяет манифест.
+         *
+         * @throws IOException при ошибке записи манифеста
+         */
+        @Override
+        public void flush() throws IOException {
+            Map<String, String> snapshot = new TreeMap<>();
+            if (carryForward) {
+                snapshot.putAll(previous);
+            }
+            snapshot.putAll(entries);
+            AtomicFiles.write(manifestPath(snapshotId), out -> {
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(nonClosing(out)), StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+                        writer.write(entry.getKey());
+                        writer.write('\t');
+                        writer.write(entry.getValue());
+                        writer.write('\n');
+                    }
+                }
+            });
+        }
+
+        /**
+         * Сохраняет манифест снимка.
+         *
+         * @throws IOException при ошибке записи манифеста
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+            // Манифест сохранен и сам удерживает идентификатор
+            Files.deleteIfExists(snapshotsDir.resolve(snapshotId + PENDING_SUFFIX));
+        }
+
+        /**
+         * Возвращает статистику снимка.
+         *
+         * @return статистика
+         */
+        public SnapshotStats getStats() {
+            return new SnapshotStats(written.sum(), unchanged.sum(), reused.sum(), fullObjects.sum(),
+                    deltaObjects.sum(), bytesStored.sum());
+        }
+    }
+
+    /**
+     * Оборачивает поток так, чтобы закрытие обертки не закрывало его: поток временного файла закрывает
+     * {@link AtomicFiles}.
+     */
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Статистика снимка.
+     *
+     * @param written      количество записанных задач
+     * @param unchanged    количество задач, не изменившихся с прошлого снимка
+     * @param reused       количество задач, содержимое которых уже было в хранилище
+     * @param fullObjects  количество новых объектов с полным содержимым
+     * @param deltaObjects количество новых объектов-разностей
+     * @param bytesStored  объем новых объектов в байтах
+     */
+    public record SnapshotStats(long written, long unchanged, long reused, long fullObjects,
+                                long deltaObjects, long bytesStored) {
+    }
+}
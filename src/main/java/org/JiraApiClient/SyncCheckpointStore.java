@@ -0,0 +1,100 @@
+package org.JiraApiClient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище контрольных точек инкрементальной синхронизации.
+ * <p>
+ * Для каждого проекта хранится файл <code>&lt;проект&gt;.properties</code> с отметкой времени
+ * последнего обновления (high-water mark) и ключами задач, обновленных ровно в этот момент.
+ * Файл записывается атомарно, поэтому после сбоя остается либо старая, либо новая контрольная точка.
+ * </p>
+ *
+ * @version 1.0
+ */
+public class SyncCheckpointStore {
+    private final Path directory;
+
+    /**
+     * Конструктор класса SyncCheckpointStore.
+     *
+     * @param directory каталог контрольных точек
+     */
+    public SyncCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Загружает контрольную точку проекта.
+     *
+     * @param projectKey ключ проекта
+     * @return контрольная точка или <code>null</code>, если синхронизация еще не выполнялась
+     * @throws IOException при ошибке чтения файла
+     */
+    public Checkpoint load(String projectKey) throws IOException {
+        Path file = fileFor(projectKey);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        long watermark = Long.parseLong(properties.getProperty("watermark"));
+        String keys = properties.getProperty("keys", "");
+        Set<String> keysAtWatermark = keys.isEmpty()
+                ? Set.of()
+                : Arrays.stream(keys.split(",")).collect(Collectors.toUnmodifiableSet());
+        return new Checkpoint(watermark, keysAtWatermark);
+    }
+
+    /**
+     * Атомарно сохраняет контрольную точку проекта.
+     *
+     * @param projectKey ключ проекта
+     * @param checkpoint контрольная точка
+     * @throws IOException при ошибке записи файла
+     */
+    public void save(String projectKey, Checkpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("watermark", Long.toString(checkpoint.watermark()));
+        properties.setProperty("keys", String.join(",", new TreeSet<>(checkpoint.keysAtWatermark())));
+        StringWriter writer = new StringWriter();
+        properties.store(writer, "Контрольная точка синхронизации проекта " + projectKey);
+        AtomicFiles.write(fileFor(projectKey), writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path fileFor(String projectKey) {
+        return directory.resolve(projectKey + ".properties");
+    }
+
+    /**
+     * Контрольная точка синхронизации.
+     *
+     * @param watermark       время последнего обновления среди синхронизированных задач, мс с начала эпохи
+     * @param keysAtWatermark ключи задач, обновленных ровно в момент <code>watermark</code>
+     */
+    public record Checkpoint(long watermark, Set<String> keysAtWatermark) {
+
+        /**
+         * Проверяет, была ли задача уже синхронизирована до этой контрольной точки.
+         *
+         * @param issueKey    ключ задачи
+         * @param updatedTime время обновления задачи, мс с начала эпохи
+         * @return <code>true</code>, если задачу можно пропустить
+         */
+        public boolean covers(String issueKey, long updatedTime) {
+            return updatedTime < watermark || (updatedTime == watermark && keysAtWatermark.contains(issueKey));
+        }
+    }
+}
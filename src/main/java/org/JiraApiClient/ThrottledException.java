@@ -0,0 +1,30 @@
+package org.JiraApiClient;
+
+/**
+ * Исключение, сигнализирующее о том, что Jira ограничила частоту запросов (ответ 429 или 503).
+ *
+ * @version 1.0
+ */
+public class ThrottledException extends JiraHttpException {
+    private final long retryAfterMillis;
+
+    /**
+     * Конструктор класса ThrottledException.
+     *
+     * @param statusCode       код ответа сервера
+     * @param retryAfterMillis задержка из заголовка <code>Retry-After</code> в мс или -1, если заголовка нет
+     */
+    public ThrottledException(int statusCode, long retryAfterMillis) {
+        super(statusCode, "HTTP " + statusCode + (retryAfterMillis >= 0 ? ", Retry-After " + retryAfterMillis + " мс" : ""));
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Возвращает задержку, запрошенную сервером.
+     *
+     * @return задержка в мс или -1, если сервер ее не указал
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,474 @@
+package org.JiraApiClient;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Встроенный HTTP-сервер, принимающий веб-хуки Jira вместо периодического опроса.
+ * <p>
+ * Принимает запросы <code>POST</code> с событиями задач (<code>jira:issue_created</code>,
+ * <code>jira:issue_updated</code>, <code>jira:issue_deleted</code>, а также события комментариев, содержащие задачу)
+ * и отвечает <code>202 Accepted</code> сразу, не дожидаясь обработки.
+ * </p>
+ *
+ * <p><b>Обработка событий:</b></p>
+ * <ul>
+ *   <li>Повторные доставки одного события (по заголовку <code>X-Atlassian-Webhook-Identifier</code>) отбрасываются.</li>
+ *   <li>События одной задачи объединяются: обработчик вызывается, когда в течение <code>debounceMillis</code>
+ *   не было новых событий, но не позже чем через <code>maxDelayMillis</code> после первого из них.</li>
+ *   <li>Обработка одной задачи никогда не выполняется параллельно: события, пришедшие во время обработки,
+ *   приводят к еще одному вызову после ее завершения.</li>
+ *   <li>Периодическая сверка ({@link #scheduleReconciliation(long)}) находит изменения, события о которых были потеряны,
+ *   в том числе пока сервер не работал: первая сверка выполняется сразу после запуска. Сверки никогда
+ *   не выполняются параллельно.</li>
+ *   <li>Если задан секрет, запрос должен содержать подпись <code>X-Hub-Signature: sha256=&lt;HMAC&gt;</code> тела запроса.
+ *   Без секрета сервер можно запустить только на адресе обратной петли.</li>
+ *   <li>Тело запроса ограничено {@link #MAX_BODY_BYTES} байтами, а ключ задачи проверяется по формату ключей Jira,
+ *   поскольку он используется в URL запросов и в именах файлов.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class WebhookServer implements AutoCloseable {
+
+    /** Заголовок с идентификатором доставки веб-хука. */
+    static final String IDENTIFIER_HEADER = "X-Atlassian-Webhook-Identifier";
+
+    /** Заголовок с подписью тела запроса. */
+    static final String SIGNATURE_HEADER = "X-Hub-Signature";
+
+    /** Количество запоминаемых идентификаторов доставок. */
+    private static final int SEEN_IDENTIFIERS = 10_000;
+
+    /** Максимальный размер тела веб-хука; большие запросы отклоняются ответом 413. */
+    static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    /** Допустимый ключ задачи Jira; события с другими ключами отбрасываются. */
+    private static final Pattern ISSUE_KEY = Pattern.compile("[A-Z][A-Z0-9_]*-\\d+");
+
+    /**
+     * Обработчик изменений задач.
+     */
+    public interface ChangeHandler {
+
+        /**
+         * Вызывается, когда задача создана или изменена.
+         *
+         * @param issueKey ключ задачи
+         * @throws Exception при ошибке обработки
+         */
+        void issueChanged(String issueKey) throws Exception;
+
+        /**
+         * Вызывается, когда задача удалена.
+         *
+         * @param issueKey ключ задачи
+         * @throws Exception при ошибке обработки
+         */
+        void issueDeleted(String issueKey) throws Exception;
+
+        /**
+         * Выполняет сверку с Jira, чтобы найти изменения, события о которых не были получены.
+         *
+         * @throws Exception при ошибке сверки
+         */
+        default void reconcile() throws Exception {
+        }
+    }
+
+    /**
+     * Статистика сервера веб-хуков.
+     *
+     * @param received   принято событий задач
+     * @param duplicates отброшено повторных доставок
+     * @param coalesced  событий объединено с уже ожидающими обработки
+     * @param changed    вызовов обработчика изменения
+     * @param deleted    вызовов обработчика удаления
+     * @param failed     вызовов обработчика, завершившихся ошибкой
+     */
+    public record WebhookStats(long received, long duplicates, long coalesced, long changed, long deleted, long failed) {
+    }
+
+    /**
+     * Задача, ожидающая обработки.
+     */
+    private static final class PendingChange {
+        long firstNanos;
+        long lastNanos;
+        /** Номер последнего события; по нему видно, приходили ли события во время обработки. */
+        long version;
+        boolean deleted;
+
+        PendingChange(long now) {
+            this.firstNanos = now;
+        }
+    }
+
+    private final HttpServer server;
+    private final ChangeHandler handler;
+    private final byte[] secret;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, PendingChange> pending = new HashMap<>();
+
+    /** Признак выполняющейся сверки; следующая сверка не начинается, пока не завершится текущая. */
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    private final Map<String, Boolean> seen = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_IDENTIFIERS;
+        }
+    };
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Запускает сервер веб-хуков.
+     *
+     * @param host           адрес для прослушивания
+     * @param port           порт; 0 — любой свободный
+     * @param path           путь, по которому принимаются веб-хуки
+     * @param secret         секрет для проверки подписи или пустая строка, чтобы не проверять подпись
+     * @param debounceMillis время без новых событий задачи, после которого она обрабатывается, мс
+     * @param maxDelayMillis максимальная задержка обработки после первого события задачи, мс
+     * @param handler        обработчик изменений
+     * @throws IOException              если не удалось открыть порт
+     * @throws IllegalArgumentException если секрет не задан, а адрес не является адресом обратной петли
+     */
+    public WebhookServer(String host, int port, String path, String secret, long debounceMillis, long maxDelayMillis,
+                         ChangeHandler handler) throws IOException {
+        this.handler = handler;
+        this.secret = secret == null || secret.isEmpty() ? null : secret.getBytes(StandardCharsets.UTF_8);
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (this.secret == null && (address.isUnresolved() || !address.getAddress().isLoopbackAddress())) {
+            throw new IllegalArgumentException("Прием веб-хуков на адресе " + host
+                    + " без проверки подписи запрещен: задайте jira.webhook.secret или адрес 127.0.0.1");
+        }
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(debounceMillis, maxDelayMillis));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        server.createContext(path, this::handle);
+        server.start();
+    }
+
+    /**
+     * Запускает сервер веб-хуков по параметрам <code>jira.webhook.*</code> и включает периодическую сверку.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param handler     обработчик изменений
+     * @return запущенный сервер
+     * @throws IOException если не удалось открыть порт
+     */
+    public static WebhookServer start(JiraConnect jiraConnect, ChangeHandler handler) throws IOException {
+        WebhookServer server = new WebhookServer(jiraConnect.getWebhookHost(), jiraConnect.getWebhookPort(),
+                jiraConnect.getWebhookPath(), jiraConnect.getWebhookSecret(), jiraConnect.getWebhookDebounceMillis(),
+                jiraConnect.getWebhookMaxDelayMillis(), handler);
+        server.scheduleReconciliation(TimeUnit.MINUTES.toMillis(jiraConnect.getWebhookReconcileMinutes()));
+        return server;
+    }
+
+    /**
+     * Создает обработчик, который повторно выгружает измененные задачи и сверяет проекты инкрементальной
+     * синхронизацией.
+     *
+     * @param jiraConnect экземпляр JiraConnect с загруженными параметрами конфигурации
+     * @param dataFetcher экземпляр JiraDataFetcher для выгрузки задач
+     * @param projects    ключи проектов для периодической сверки
+     * @return обработчик изменений
+     */
+    public static ChangeHandler refetchHandler(JiraConnect jiraConnect, JiraDataFetcher dataFetcher, List<String> projects) {
+        IncrementalSync sync = new IncrementalSync(jiraConnect, dataFetcher);
+        return new ChangeHandler() {
+            @Override
+            public void issueChanged(String issueKey) throws IOException {
+                dataFetcher.fetchIssueData(issueKey);
+                dataFetcher.flushOutput();
+            }
+
+            @Override
+            public void issueDeleted(String issueKey) {
+                System.out.println("Задача удалена в Jira: " + issueKey);
+                System.out.println("Issue deleted in Jira: " + issueKey);
+            }
+
+            @Override
+            public void reconcile() {
+                for (String project : projects) {
+                    sync.sync(project);
+                }
+            }
+        };
+    }
+
+    /**
+     * Включает периодическую сверку. Первая сверка начинается сразу, чтобы найти изменения, пропущенные, пока сервер
+     * не работал. Если сверка длится дольше периода, очередная сверка пропускается: параллельные сверки
+     * одного проекта могли бы перезаписать контрольную точку более ранним значением.
+     *
+     * @param periodMillis период сверки, мс; 0 — сверка отключена
+     */
+    public void scheduleReconciliation(long periodMillis) {
+        if (periodMillis <= 0) {
+            return;
+        }
+        timer.scheduleWithFixedDelay(() -> {
+            if (!reconciling.compareAndSet(false, true)) {
+                return;
+            }
+            workers.execute(() -> {
+                try {
+                    handler.reconcile();
+                } catch (Exception e) {
+                    System.err.println("Ошибка при сверке с Jira: " + e.getMessage());
+                    System.err.println("Error reconciling with Jira: " + e.getMessage());
+                } finally {
+                    reconciling.set(false);
+                }
+            });
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (length != null && length.trim().matches("\\d{1,18}") && Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES) {
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+            if (secret != null && !signatureMatches(exchange.getRequestHeaders().getFirst(SIGNATURE_HEADER), body)) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            WebhookEvent event;
+            try {
+                event = parse(body);
+            } catch (IOException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            if (event != null) {
+                String identifier = exchange.getRequestHeaders().getFirst(IDENTIFIER_HEADER);
+                accept(identifier, event);
+            }
+            exchange.sendResponseHeaders(202, -1);
+        }
+    }
+
+    private boolean signatureMatches(String header, byte[] body) {
+        if (header == null || !header.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            return MessageDigest.isEqual(expected, HexFormat.of().parseHex(header.substring("sha256=".length())));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Событие веб-хука.
+     *
+     * @param issueKey ключ задачи
+     * @param deleted  задача удалена
+     */
+    record WebhookEvent(String issueKey, boolean deleted) {
+    }
+
+    /**
+     * Разбирает тело веб-хука.
+     *
+     * @param body тело запроса в формате JSON
+     * @return событие или <code>null</code>, если событие не относится к задаче или ключ задачи некорректен
+     * @throws IOException если тело запроса не является объектом JSON
+     */
+    static WebhookEvent parse(byte[] body) throws IOException {
+        String type = null;
+        String issueKey = null;
+        try (JsonParser parser = JiraJson.FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Тело веб-хука не является объектом JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals("webhookEvent") && value == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else if (name.equals("issue") && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        if (parser.nextToken() == JsonToken.VALUE_STRING && field.equals("key")) {
+                            issueKey = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (issueKey == null || type == null || !ISSUE_KEY.matcher(issueKey).matches()) {
+            return null;
+        }
+        return new WebhookEvent(issueKey, type.equals("jira:issue_deleted"));
+    }
+
+    private void accept(String identifier, WebhookEvent event) {
+        if (identifier != null) {
+            synchronized (seen) {
+                if (seen.put(identifier, Boolean.TRUE) != null) {
+                    duplicates.incrementAndGet();
+                    return;
+                }
+            }
+        }
+        received.incrementAndGet();
+        long now = System.nanoTime();
+        synchronized (pending) {
+            PendingChange change = pending.get(event.issueKey());
+            if (change == null) {
+                change = new PendingChange(now);
+                pending.put(event.issueKey(), change);
+                schedule(event.issueKey(), debounceNanos);
+            } else {
+                coalesced.incrementAndGet();
+            }
+            change.lastNanos = now;
+            change.version++;
+            // Последнее событие определяет состояние задачи: удаленная и созданная заново задача выгружается
+            change.deleted = event.deleted();
+        }
+    }
+
+    private void schedule(String issueKey, long delayNanos) {
+        timer.schedule(() -> check(issueKey), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Передает задачу обработчику, если события по ней прекратились или ожидание достигло предела.
+     */
+    private void check(String issueKey) {
+        long now = System.nanoTime();
+        boolean delete;
+        long handledVersion;
+        synchronized (pending) {
+            PendingChange change = pending.get(issueKey);
+            long wait = Math.min(change.lastNanos + debounceNanos - now, change.firstNanos + maxDelayNanos - now);
+            if (wait > 0) {
+                schedule(issueKey, wait);
+                return;
+            }
+            delete = change.deleted;
+            handledVersion = change.version;
+        }
+        workers.execute(() -> dispatch(issueKey, delete, handledVersion));
+    }
+
+    private void dispatch(String issueKey, boolean delete, long handledVersion) {
+        try {
+            if (delete) {
+                deleted.incrementAndGet();
+                handler.issueDeleted(issueKey);
+            } else {
+                changed.incrementAndGet();
+                handler.issueChanged(issueKey);
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("Ошибка при обработке изменения задачи " + issueKey + ": " + e.getMessage());
+            System.err.println("Error processing change of issue " + issueKey + ": " + e.getMessage());
+        } finally {
+            synchronized (pending) {
+                PendingChange change = pending.get(issueKey);
+                if (change.version != handledVersion) {
+                    // Во время обработки пришли новые события: задача обрабатывается еще раз
+                    change.firstNanos = System.nanoTime();
+                    schedule(issueKey, debounceNanos);
+                } else {
+                    pending.remove(issueKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает статистику сервера.
+     *
+     * @return статистика
+     */
+    public WebhookStats getStats() {
+        return new WebhookStats(received.get(), duplicates.get(), coalesced.get(), changed.get(), deleted.get(), failed.get());
+    }
+
+    /**
+     * Возвращает порт, на котором работает сервер.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает прием веб-хуков, сверку и дожидается завершения начатой обработки.
+     * Задачи, ожидающие окончания серии событий, не обрабатываются; их найдет следующая сверка.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        timer.shutdownNow();
+        workers.close();
+    }
+}
@@ -0,0 +1,55 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFilesTest {
+
+    /** Временный каталог для файлов теста. */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Тест проверяет, что потоковая запись сохраняет содержимое байт в байт, включая переводы строк.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testStreamWriteIsByteExact() throws IOException {
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        Path target = tempDir.resolve("KAN-1_details.xml");
+
+        long written = AtomicFiles.write(target, new ByteArrayInputStream(data));
+
+        assertEquals(data.length, written);
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    /**
+     * Тест проверяет, что запись заменяет существующий файл и не оставляет временных файлов.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testWriteReplacesFileWithoutLeftovers() throws IOException {
+        Path target = tempDir.resolve("KAN-1.txt");
+        AtomicFiles.write(target, "старое\n".getBytes(StandardCharsets.UTF_8));
+        AtomicFiles.write(target, "<rss>\n  <item/>\n</rss>\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("<rss>\n  <item/>\n</rss>\n", Files.readString(target));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Временные файлы должны быть удалены.");
+        }
+    }
+}
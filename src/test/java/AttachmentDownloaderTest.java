@@ -0,0 +1,200 @@
+package org.JiraApiClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.JiraApiClient.LocalJiraServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentDownloaderTest {
+
+    /** Размер части загрузки. */
+    private static final int PART = 64 * 1024;
+
+    /** Временный каталог вложений. */
+    @TempDir
+    Path tempDir;
+
+    private LocalJiraServer server;
+    private JiraClientHolder clientHolder;
+
+    /** Содержимое вложений по идентификатору. */
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    /** Запрошенные диапазоны. */
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    /** Смещения частей, на которых сервер ответит ошибкой один раз. */
+    private final Map<Long, Boolean> failOnce = new ConcurrentHashMap<>();
+
+    private volatile boolean rangesSupported = true;
+
+    /** Текущая версия содержимого для заголовков ETag и If-Range. */
+    private volatile String etag = "\"v1\"";
+
+    /** Действие, выполняемое один раз после ответа на первый запрос диапазона. */
+    private volatile Runnable afterFirstRange;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalJiraServer().handle("/rest/api/2/attachment/content/", this::serve);
+        clientHolder = new JiraClientHolder(new JiraConnect(server.config()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        clientHolder.close();
+        server.close();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            byte[] content = files.get(path.substring(path.lastIndexOf('/') + 1));
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", etag);
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            if (range == null || !rangesSupported || (ifRange != null && !ifRange.equals(etag))) {
+                respond(exchange, 200, content);
+                return;
+            }
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            long from = Long.parseLong(bounds[0]);
+            int to = Integer.parseInt(bounds[1]);
+            if (failOnce.remove(from) != null) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+            respond(exchange, 206, Arrays.copyOfRange(content, (int) from, to + 1));
+            Runnable action = afterFirstRange;
+            afterFirstRange = null;
+            if (action != null) {
+                action.run();
+            }
+        }
+    }
+
+    private byte[] file(String id, int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        files.put(id, content);
+        return content;
+    }
+
+    private long blobCount() throws IOException {
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("blobs"))) {
+            return blobs.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * Тест проверяет параллельную загрузку частями, сохранение одинакового содержимого разных задач один раз
+     * и пропуск уже загруженных вложений.
+     *
+     * @throws Exception если возникает ошибка загрузки
+     */
+    @Test
+    void testRangedDownloadAndDeduplication() throws Exception {
+        byte[] content = file("10001", 5 * PART + 123);
+        files.put("10002", content);
+        try (AttachmentDownloader downloader = new AttachmentDownloader(clientHolder, tempDir, 3, PART, 0)) {
+            downloader.submit(new IssueXmlEntry.Attachment("KAN-1", "10001", "dump:1.bin", content.length, "ivanov", 0));
+            downloader.submit(new IssueXmlEntry.Attachment("KAN-1", "10001", "dump:1.bin", content.length, "ivanov", 0));
+            downloader.awaitCompletion();
+            Path copy = downloader.download(new IssueXmlEntry.Attachment("KAN-2", "10002", "copy.bin", content.length, "petrov", 0));
+            assertNull(downloader.download(new IssueXmlEntry.Attachment("KAN-3", "404", "gone.bin", 10, "petrov", 0)));
+            Path again = downloader.download(new IssueXmlEntry.Attachment("KAN-1", "10001", "dump:1.bin", content.length, "ivanov", 0));
+
+            assertEquals(tempDir.resolve("KAN-1").resolve("10001_dump_1.bin"), again);
+            assertArrayEquals(content, Files.readAllBytes(again));
+            assertArrayEquals(content, Files.readAllBytes(copy));
+            assertEquals(12, ranges.size(), "по 6 частей на каждую из двух загрузок");
+            assertEquals(1, blobCount());
+            assertEquals(new AttachmentDownloader.AttachmentStats(2, 1, 1, 0, 1, 2L * content.length), downloader.getStats());
+            assertTrue(Files.isSameFile(again, copy), "одинаковые вложения должны ссылаться на одно содержимое");
+        }
+    }
+
+    /**
+     * Тест проверяет возобновление после сбоя: повторно загружаются только недостающие части.
+     * Также проверяются загрузка с сервера без поддержки диапазонов, проверка размера и ограничение скорости.
+     *
+     * @throws Exception если возникает ошибка загрузки
+     */
+    @Test
+    void testResumeAfterFailureAndBandwidthCap() throws Exception {
+        byte[] content = file("20001", 4 * PART);
+        failOnce.put(2L * PART, true);
+        IssueXmlEntry.Attachment attachment = new IssueXmlEntry.Attachment("KAN-1", "20001", "big.bin", content.length, "ivanov", 0);
+        try (AttachmentDownloader downloader = new AttachmentDownloader(clientHolder, tempDir, 1, PART, 0)) {
+            assertThrows(IOException.class, () -> downloader.download(attachment));
+        }
+        assertTrue(Files.exists(tempDir.resolve(".partial").resolve("20001.state")));
+
+        ranges.clear();
+        try (AttachmentDownloader downloader = new AttachmentDownloader(clientHolder, tempDir, 2, PART, 0)) {
+            Path target = downloader.download(attachment);
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(List.of("bytes=" + 2 * PART + "-" + (3 * PART - 1)), ranges);
+            assertEquals(3, downloader.getStats().resumedParts());
+        }
+        assertFalse(Files.exists(tempDir.resolve(".partial").resolve("20001.state")));
+
+        rangesSupported = false;
+        byte[] other = file("20002", 6 * PART);
+        try (AttachmentDownloader downloader = new AttachmentDownloader(clientHolder, tempDir, 4, PART, 4 * PART)) {
+            long start = System.nanoTime();
+            Path target = downloader.download(new IssueXmlEntry.Attachment("KAN-2", "20002", "whole.bin", other.length, "a", 0));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertArrayEquals(other, Files.readAllBytes(target));
+            // Корзина вмещает 4 части, еще 2 части при скорости 4 части в секунду занимают не меньше 0,5 с
+            assertTrue(elapsedMillis >= 400, "скорость должна ограничиваться: " + elapsedMillis + " мс");
+
+            assertThrows(IOException.class, () -> downloader.download(
+                    new IssueXmlEntry.Attachment("KAN-2", "20002", "wrong.bin", other.length + 1, "a", 0)));
+        }
+    }
+
+    /**
+     * Тест проверяет, что при изменении файла на сервере во время загрузки части прежней версии отбрасываются,
+     * а загрузка начинается заново.
+     *
+     * @throws Exception если возникает ошибка загрузки
+     */
+    @Test
+    void testRestartsWhenFileChangesMidDownload() throws Exception {
+        file("30001", 4 * PART);
+        byte[] changed = new byte[4 * PART];
+        new Random(42).nextBytes(changed);
+        afterFirstRange = () -> {
+            files.put("30001", changed);
+            etag = "\"v2\"";
+        };
+        try (AttachmentDownloader downloader = new AttachmentDownloader(clientHolder, tempDir, 3, PART, 0)) {
+            Path target = downloader.download(new IssueXmlEntry.Attachment("KAN-1", "30001", "live.bin", changed.length, "ivanov", 0));
+            assertArrayEquals(changed, Files.readAllBytes(target), "части разных версий не должны смешиваться");
+            assertEquals(1, blobCount());
+        }
+        assertFalse(Files.exists(tempDir.resolve(".partial").resolve("30001.state")));
+    }
+}
@@ -0,0 +1,115 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingIssueLoaderTest {
+
+    /** Пакеты ключей, переданные загрузке. */
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Загрузка пакета, возвращающая все ключи, кроме KAN-404, после открытия затвора.
+     */
+    private CoalescingIssueLoader.BatchLoader loader(CountDownLatch gate) {
+        return keys -> {
+            batches.add(keys);
+            gate.await(5, TimeUnit.SECONDS);
+            Map<String, IssueRecord> found = new HashMap<>();
+            for (String key : keys) {
+                if (!key.equals("KAN-404")) {
+                    found.put(key, IssueRecord.ofSummary(key, 0, "Задача " + key));
+                }
+            }
+            return found;
+        };
+    }
+
+    /**
+     * Тест проверяет, что одновременные запросы одного ключа разделяют одну загрузку,
+     * но каждый вызывающий получает собственный результат.
+     *
+     * @throws Exception если загрузка завершилась ошибкой
+     */
+    @Test
+    void testSameKeySharesOneFetch() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        try (CoalescingIssueLoader loader = new CoalescingIssueLoader(loader(gate), 10, 1)) {
+            CompletableFuture<IssueRecord> first = loader.load("KAN-1");
+            CompletableFuture<IssueRecord> second = loader.load("KAN-1");
+            assertNotSame(first, second);
+
+            // Отмена одного результата не затрагивает остальных
+            second.cancel(false);
+            CompletableFuture<IssueRecord> third = loader.load("KAN-1");
+            gate.countDown();
+
+            assertEquals("Задача KAN-1", first.get(5, TimeUnit.SECONDS).field("summary"));
+            assertEquals("Задача KAN-1", third.get(5, TimeUnit.SECONDS).field("summary"));
+            assertEquals(List.of(List.of("KAN-1")), batches);
+            assertEquals(2, loader.getStats().coalesced());
+        }
+    }
+
+    /**
+     * Тест проверяет, что разные ключи собираются в пакеты не больше заданного размера,
+     * а полный пакет отправляется, не дожидаясь окончания окна ожидания.
+     *
+     * @throws Exception если загрузка завершилась ошибкой
+     */
+    @Test
+    void testDistinctKeysAreBatched() throws Exception {
+        CountDownLatch gate = new CountDownLatch(0);
+        try (CoalescingIssueLoader loader = new CoalescingIssueLoader(loader(gate), 3, 60_000)) {
+            List<CompletableFuture<IssueRecord>> results = new ArrayList<>();
+            for (int i = 1; i <= 6; i++) {
+                results.add(loader.load("KAN-" + i));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("KAN-" + (i + 1), results.get(i).get(5, TimeUnit.SECONDS).key());
+            }
+            assertEquals(2, batches.size());
+            assertEquals(List.of("KAN-1", "KAN-2", "KAN-3"), batches.get(0));
+            assertEquals(3.0, loader.getStats().averageBatchSize());
+        }
+    }
+
+    /**
+     * Тест проверяет, что ненайденная задача завершается только своей ошибкой,
+     * а ошибка загрузки пакета передается всем его запросам.
+     *
+     * @throws Exception если загрузка завершилась непредвиденной ошибкой
+     */
+    @Test
+    void testMissingKeyAndBatchFailure() throws Exception {
+        try (CoalescingIssueLoader loader = new CoalescingIssueLoader(loader(new CountDownLatch(0)), 10, 1)) {
+            CompletableFuture<IssueRecord> missing = loader.load("KAN-404");
+            CompletableFuture<IssueRecord> found = loader.load("KAN-5");
+            ExecutionException error = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NoSuchElementException.class, error.getCause());
+            assertEquals("KAN-5", found.get(5, TimeUnit.SECONDS).key());
+        }
+
+        JiraHttpException failure = new JiraHttpException(503);
+        try (CoalescingIssueLoader loader = new CoalescingIssueLoader(keys -> {
+            throw failure;
+        }, 10, 1)) {
+            CompletableFuture<IssueRecord> first = loader.load("KAN-1");
+            CompletableFuture<IssueRecord> second = loader.load("KAN-2");
+            assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+            assertSame(failure, assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.JiraApiClient.LocalJiraServer.param;
+import static org.JiraApiClient.LocalJiraServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportPipelineTest {
+
+    /** Количество задач, которые возвращает поиск. */
+    private static final int TOTAL = 45;
+
+    /** Временный каталог для результатов. */
+    @TempDir
+    Path tempDir;
+
+    private LocalJiraServer server;
+    private final AtomicInteger issueRequests = new AtomicInteger();
+    private final AtomicInteger sessionRequests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalJiraServer();
+        server.handle("/rest/api/2/issue/", exchange -> {
+            issueRequests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            String key = path.substring(path.lastIndexOf('/') + 1);
+            if (key.equals("KAN-404")) {
+                respond(exchange, 404, "{}");
+            } else if (key.equals("KAN-401")) {
+                respond(exchange, 401, "{}");
+            } else {
+                respond(exchange, 200, issueJson(key));
+            }
+        });
+        server.handle("/rest/auth/1/session", exchange -> {
+            sessionRequests.incrementAndGet();
+            respond(exchange, 200, "{\"name\":\"user\"}");
+        });
+        server.handle("/si/jira.issueviews:issue-xml/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/KAN-2.xml")) {
+                respond(exchange, 404, "");
+            } else {
+                String key = path.substring(path.lastIndexOf('/') + 1, path.length() - ".xml".length());
+                respond(exchange, 200, "<rss version=\"0.92\"><channel><item><key id=\"1\">" + key + "</key>"
+                        + "<comments><comment id=\"2\" author=\"user\" created=\"Tue, 2 Jan 2024 10:00:00 +0000\">"
+                        + "Готово</comment></comments></item></channel></rss>");
+            }
+        });
+        server.handle("/rest/api/2/search", exchange -> {
+            int startAt = Integer.parseInt(param(exchange, "startAt"));
+            int maxResults = Integer.parseInt(param(exchange, "maxResults"));
+            StringBuilder json = new StringBuilder("{\"startAt\":").append(startAt)
+                    .append(",\"maxResults\":").append(maxResults).append(",\"total\":").append(TOTAL).append(",\"issues\":[");
+            for (int i = startAt; i < Math.min(TOTAL, startAt + maxResults); i++) {
+                json.append(i > startAt ? "," : "").append(issueJson("KAN-" + (i + 1)));
+            }
+            respond(exchange, 200, json.append("]}").toString());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private static String issueJson(String key) {
+        return "{\"key\":\"" + key + "\",\"fields\":{\"summary\":\"Задача " + key + "\","
+                + "\"status\":{\"name\":\"Open\"},\"updated\":\"2024-01-02T00:00:00.000+0000\"}}";
+    }
+
+    /**
+     * Создает конфигурацию с хранилищем NDJSON и маленькими очередями, чтобы этапы упирались друг в друга.
+     */
+    private JiraConnect newConnect() {
+        PropertiesConfiguration config = server.config();
+        config.setProperty("jira.cache.enabled", false);
+        config.setProperty("jira.fields", "summary,status");
+        config.setProperty("jira.bulk.pageSize", 10);
+        config.setProperty("jira.output.sink", "ndjson");
+        config.setProperty("jira.output.dir", tempDir.toString());
+        config.setProperty("jira.pipeline.queueCapacity", 2);
+        config.setProperty("jira.pipeline.fetchConcurrency", 3);
+        config.setProperty("jira.pipeline.reportSeconds", 0);
+        config.setProperty("jira.rate.requestsPerSecond", 100_000);
+        config.setProperty("jira.rate.burst", 100_000);
+        return new JiraConnect(config);
+    }
+
+    /**
+     * Тест проверяет выгрузку по списку ключей: каждая задача загружается этапом fetch и записывается,
+     * ошибка загрузки одной задачи учитывается и не останавливает конвейер. Сессия проверяется перед первым
+     * запросом и повторно после ошибки аутентификации. XML-выгрузка разбирается без сохранения, если ее записи нужны.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testExportKeys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            keys.add("KAN-" + i);
+        }
+        keys.add("KAN-404");
+
+        JiraConnect jiraConnect = newConnect();
+        try (JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect)) {
+            ExportPipeline.PipelineResult result = new ExportPipeline(jiraConnect, dataFetcher).exportKeys(keys);
+
+            assertEquals(20, result.written());
+            assertEquals(1, result.failed());
+            assertEquals(21, issueRequests.get());
+            ExportPipeline.StageStats fetch = result.stages().get(1);
+            assertEquals("fetch", fetch.name());
+            assertEquals(3, fetch.workers());
+            assertEquals(1, fetch.failed());
+
+            NdjsonSegmentSink sink = (NdjsonSegmentSink) dataFetcher.getSink();
+            IssueRecord record = sink.read("KAN-7");
+            assertEquals("Задача KAN-7", record.field("summary"));
+            assertEquals("Open", record.field("status"));
+
+            // Сессия проверяется один раз и повторно только после ответа 401
+            assertEquals(1, sessionRequests.get());
+            assertEquals(1, new ExportPipeline(jiraConnect, dataFetcher).exportKeys(List.of("KAN-401")).failed());
+            assertEquals(1, new ExportPipeline(jiraConnect, dataFetcher).exportKeys(List.of("KAN-21")).written());
+            assertEquals(2, sessionRequests.get());
+
+            // Хранилище NDJSON не сохраняет XML, но выгрузка загружается и разбирается, если ее записи нужны
+            List<IssueXmlEntry> entries = Collections.synchronizedList(new ArrayList<>());
+            dataFetcher.setXmlEntryConsumer(entries::add);
+            result = new ExportPipeline(jiraConnect, dataFetcher).exportKeys(List.of("KAN-22"));
+            assertEquals("xml", result.stages().get(2).name());
+            assertEquals(1, result.stages().get(2).processed());
+            assertEquals(List.of("KAN-22"), entries.stream().map(IssueXmlEntry::issueKey).toList());
+        }
+    }
+
+    /**
+     * Тест проверяет, что ошибка XML-выгрузки одной задачи учитывается на этапе xml, но не лишает задачу
+     * сохраненных текстовых данных.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testXmlFailureKeepsRecord() throws IOException {
+        PropertiesConfiguration config = server.config();
+        config.setProperty("jira.fields", "summary,status");
+        config.setProperty("jira.output.sink", "files");
+        config.setProperty("jira.output.dir", tempDir.toString());
+        config.setProperty("jira.pipeline.reportSeconds", 0);
+        JiraConnect jiraConnect = new JiraConnect(config);
+        try (JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect)) {
+            ExportPipeline.PipelineResult result = new ExportPipeline(jiraConnect, dataFetcher)
+                    .exportKeys(List.of("KAN-1", "KAN-2", "KAN-3"));
+
+            assertEquals(3, result.written());
+            assertEquals(1, result.failed());
+            ExportPipeline.StageStats xml = result.stages().get(2);
+            assertEquals("xml", xml.name());
+            assertEquals(1, xml.failed());
+            assertTrue(Files.exists(tempDir.resolve("KAN-2.txt")));
+            assertFalse(Files.exists(tempDir.resolve("KAN-2_details.xml")));
+            assertTrue(Files.exists(tempDir.resolve("KAN-3_details.xml")));
+        }
+    }
+
+    /**
+     * Тест проверяет выгрузку по JQL: поля приходят вместе с результатами поиска, поэтому отдельные запросы
+     * задач не выполняются, а преобразование применяется к каждой записи.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testExportJqlWithTransform() throws IOException {
+        JiraConnect jiraConnect = newConnect();
+        try (JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect)) {
+            ExportPipeline pipeline = new ExportPipeline(jiraConnect, dataFetcher, record ->
+                    record.key().equals("KAN-1") ? null
+                            : IssueRecord.ofSummary(record.key(), record.updated(), record.field("summary").toUpperCase()));
+            ExportPipeline.PipelineResult result = pipeline.exportJql("project = KAN");
+
+            assertEquals(TOTAL - 1, result.written());
+            assertEquals(0, result.failed());
+            assertEquals(0, issueRequests.get());
+            assertEquals(TOTAL, result.stages().get(0).processed());
+
+            NdjsonSegmentSink sink = (NdjsonSegmentSink) dataFetcher.getSink();
+            assertNull(sink.read("KAN-1"));
+            assertEquals("ЗАДАЧА KAN-45", sink.read("KAN-45").field("summary"));
+        }
+    }
+}
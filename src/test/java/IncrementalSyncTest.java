@@ -0,0 +1,95 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.JiraApiClient.LocalJiraServer.param;
+import static org.JiraApiClient.LocalJiraServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSyncTest {
+
+    /** Количество задач, которые возвращает поиск. */
+    private static final int TOTAL = 3;
+
+    /** Временный каталог для результатов, индекса и вложений. */
+    @TempDir
+    Path tempDir;
+
+    private LocalJiraServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalJiraServer();
+        server.handle("/rest/auth/1/session", exchange -> respond(exchange, 200, "{\"name\":\"user\"}"));
+        server.handle("/rest/api/2/search", exchange -> {
+            int startAt = Integer.parseInt(param(exchange, "startAt"));
+            StringBuilder json = new StringBuilder("{\"startAt\":").append(startAt)
+                    .append(",\"maxResults\":50,\"total\":").append(TOTAL).append(",\"issues\":[");
+            for (int i = startAt; i < TOTAL; i++) {
+                json.append(i > startAt ? "," : "").append("{\"key\":\"KAN-").append(i + 1)
+                        .append("\",\"fields\":{\"summary\":\"Задача\",\"updated\":\"2024-01-02T00:00:00.000+0000\"}}");
+            }
+            respond(exchange, 200, json.append("]}").toString());
+        });
+        server.handle("/si/jira.issueviews:issue-xml/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String key = path.substring(path.lastIndexOf('/') + 1, path.length() - ".xml".length());
+            String id = key.substring(key.indexOf('-') + 1);
+            respond(exchange, 200, "<rss version=\"0.92\"><channel><item><key id=\"" + id + "\">" + key + "</key>"
+                    + "<comments><comment id=\"2" + id + "\" author=\"user\" created=\"Tue, 2 Jan 2024 10:00:00 +0000\">"
+                    + "Откат выполнен</comment></comments>"
+                    + "<attachments><attachment id=\"3" + id + "\" name=\"log.txt\" size=\"" + (id.length() + 4)
+                    + "\" author=\"user\" created=\"Tue, 2 Jan 2024 11:00:00 +0000\"/></attachments>"
+                    + "</item></channel></rss>");
+        });
+        server.handle("/rest/api/2/attachment/content/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            respond(exchange, 200, "log " + path.substring(path.lastIndexOf('/') + 2));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Тест проверяет, что синхронизация в хранилище NDJSON, которое не сохраняет XML, все равно загружает
+     * и разбирает XML-выгрузки: комментарии попадают в индекс, а вложения загружаются.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testSyncIntoNdjsonFeedsIndexAndAttachments() throws IOException {
+        PropertiesConfiguration config = server.config();
+        config.setProperty("jira.fields", "summary");
+        config.setProperty("jira.output.sink", "ndjson");
+        config.setProperty("jira.output.dir", tempDir.resolve("out").toString());
+        config.setProperty("jira.sync.checkpointDir", tempDir.resolve("checkpoints").toString());
+        config.setProperty("jira.index.enabled", true);
+        config.setProperty("jira.index.dir", tempDir.resolve("index").toString());
+        config.setProperty("jira.index.commitDocuments", 1);
+        config.setProperty("jira.attachments.enabled", true);
+        config.setProperty("jira.attachments.dir", tempDir.resolve("attachments").toString());
+        JiraConnect jiraConnect = new JiraConnect(config);
+
+        try (JiraDataFetcher dataFetcher = new JiraDataFetcher(jiraConnect)) {
+            assertTrue(new IncrementalSync(jiraConnect, dataFetcher).sync("KAN"));
+
+            assertEquals(TOTAL, dataFetcher.getIndex().count(IssueIndex.Query.term("comment", "откат")));
+            for (int i = 1; i <= TOTAL; i++) {
+                Path attachment = tempDir.resolve("attachments").resolve("KAN-" + i).resolve("3" + i + "_log.txt");
+                assertEquals("log " + i, Files.readString(attachment, StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
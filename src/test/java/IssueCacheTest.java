@@ -0,0 +1,111 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueCacheTest {
+
+    /** Временный каталог дискового уровня кэша. */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Тест проверяет вытеснение давно использованных записей и подсчет вытеснений.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testLruEviction() throws IOException {
+        IssueCache cache = new IssueCache(tempDir, 2, 60);
+        cache.put(new IssueCache.CachedIssue("KAN-1", 1L, "Первая", null));
+        cache.put(new IssueCache.CachedIssue("KAN-2", 2L, "Вторая", null));
+
+        // Обращение делает KAN-1 недавно использованной, поэтому вытесняется KAN-2
+        assertNotNull(cache.getFresh("KAN-1"));
+        cache.put(new IssueCache.CachedIssue("KAN-3", 3L, "Третья", null));
+
+        assertNotNull(cache.peek("KAN-1"));
+        assertNull(cache.peek("KAN-2"));
+        IssueCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.evictions());
+        assertEquals(1, stats.memoryHits());
+        assertEquals(3, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    /**
+     * Тест проверяет, что устаревшая запись не считается свежей.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testExpiredEntryIsNotFresh() throws IOException {
+        IssueCache cache = new IssueCache(tempDir, 10, 0);
+        cache.put(new IssueCache.CachedIssue("KAN-1", 1L, "Первая", "\"etag\""));
+
+        assertNull(cache.getFresh("KAN-1"));
+        assertEquals("\"etag\"", cache.peek("KAN-1").etag());
+    }
+
+    /**
+     * Тест проверяет загрузку с диска по ключу и времени обновления после вытеснения из памяти
+     * и удаление файлов прежней версии при сохранении новой.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testDiskTier() throws IOException {
+        IssueCache cache = new IssueCache(tempDir, 1, 60);
+        Files.createDirectories(cache.xmlPath("KAN-1", 5L).getParent());
+        Files.writeString(cache.xmlPath("KAN-1", 5L), "<rss/>");
+        cache.put(new IssueCache.CachedIssue("KAN-1", 5L, "Первая", null));
+        cache.put(new IssueCache.CachedIssue("KAN-2", 6L, "Вторая", null));
+
+        assertNull(cache.loadFromDisk("KAN-1", 4L, null), "Другая версия задачи не должна находиться.");
+        IssueCache.CachedIssue loaded = cache.loadFromDisk("KAN-1", 5L, null);
+
+        assertNotNull(loaded);
+        assertEquals("Первая", loaded.summary());
+        assertEquals(1, cache.getStats().diskHits());
+
+        // Новая версия задачи вытесняет с диска файлы прежней
+        cache.put(new IssueCache.CachedIssue(new IssueRecord("KAN-1", 7L, Map.of("summary", "Первая", "status", "Done")), null));
+        assertFalse(Files.exists(cache.xmlPath("KAN-1", 5L)));
+        assertNull(cache.loadFromDisk("KAN-1", 5L, null));
+        assertEquals("Done", cache.loadFromDisk("KAN-1", 7L, null).record().field("status"));
+    }
+
+    /**
+     * Тест проверяет, что записи с прежним набором полей не используются после изменения <code>jira.fields</code>,
+     * а сохранение версии не удаляет временные файлы параллельной записи и файлы более новых версий.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testFieldSetAndConcurrentFiles() throws IOException {
+        IssueCache summaryOnly = new IssueCache(tempDir, 10, 60, List.of("summary"));
+        summaryOnly.put(new IssueCache.CachedIssue("KAN-1", 5L, "Первая", null));
+
+        IssueCache withStatus = new IssueCache(tempDir, 10, 60, List.of("status", "summary"));
+        assertNull(withStatus.loadFromDisk("KAN-1", 5L, null), "в записи нет поля status");
+        assertNotNull(new IssueCache(tempDir, 10, 60, List.of("summary", "summary")).loadFromDisk("KAN-1", 5L, null));
+
+        Path inFlight = tempDir.resolve("KAN-1").resolve(".9.xml123.tmp");
+        Files.writeString(inFlight, "<rss>");
+        Files.writeString(withStatus.xmlPath("KAN-1", 9L), "<rss/>");
+        withStatus.put(new IssueCache.CachedIssue(new IssueRecord("KAN-1", 5L, Map.of("summary", "Первая", "status", "Done")), null));
+
+        assertTrue(Files.exists(inFlight), "временный файл другого потока не удаляется");
+        assertTrue(Files.exists(withStatus.xmlPath("KAN-1", 9L)), "более новая версия не удаляется");
+        assertNull(summaryOnly.loadFromDisk("KAN-1", 5L, null), "запись с прежним набором полей удаляется");
+        assertEquals("Done", withStatus.loadFromDisk("KAN-1", 5L, null).record().field("status"));
+    }
+}
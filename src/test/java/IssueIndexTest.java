@@ -0,0 +1,214 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueIndexTest {
+
+    /** Временный каталог индекса. */
+    @TempDir
+    Path tempDir;
+
+    private static IssueRecord issue(String key, long updated, String summary, String status, String assignee) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("summary", summary);
+        fields.put("status", status);
+        fields.put("assignee", assignee);
+        return new IssueRecord(key, updated, fields);
+    }
+
+    private static List<String> keys(List<IssueIndex.Hit> hits) {
+        return hits.stream().map(IssueIndex.Hit::key).toList();
+    }
+
+    /**
+     * Тест проверяет поиск по терминам заголовка и комментариев, по значению колонки и диапазону времени
+     * обновления, а также порядок результатов.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testTermFieldAndRangeQueries() throws IOException {
+        IssueIndex index = new IssueIndex(tempDir, List.of("status", "assignee"), 16);
+        index.add(issue("KAN-1", 1000, "Ошибка входа в систему", "Open", "Иванов"));
+        index.add(issue("KAN-2", 2000, "Отчет по продажам", "Done", "Петров"));
+        index.add(issue("KAN-3", 3000, "Ошибка в отчете", "Open", null));
+        index.addXmlEntry(new IssueXmlEntry.Comment("KAN-2", "1", "ivanov", 0, "<p>Воспроизводится <b>ошибка</b> экспорта</p>"));
+        index.addXmlEntry(new IssueXmlEntry.Worklog("KAN-2", "2", "ivanov", 0, 60, "таймаут"));
+        assertEquals(0, index.size(), "до фиксации задачи не видны");
+        index.commit();
+
+        assertEquals(List.of("KAN-3", "KAN-2", "KAN-1"), keys(index.search(IssueIndex.Query.term("ОШИБКА"), 10)));
+        assertEquals(List.of("KAN-3", "KAN-1"), keys(index.search(IssueIndex.Query.term("summary", "ошибка"), 10)));
+        assertEquals(List.of("KAN-2"), keys(index.search(IssueIndex.Query.term("ошибка экспорта"), 10)));
+        assertEquals(0, index.count(IssueIndex.Query.term("таймаут")));
+        assertEquals(0, index.count(IssueIndex.Query.term("b")), "разметка не индексируется");
+
+        IssueIndex.Query openErrors = IssueIndex.Query.and(
+                IssueIndex.Query.term("ошибка"), IssueIndex.Query.field("status", "Open"));
+        assertEquals(List.of("KAN-3", "KAN-1"), keys(index.search(openErrors, 10)));
+        assertEquals(List.of("KAN-3"), keys(index.search(openErrors, 1)));
+        assertEquals(List.of("KAN-2", "KAN-1"), keys(index.search(IssueIndex.Query.updatedBetween(1000, 3000), 10)));
+        assertEquals(List.of("KAN-3"), keys(index.search(IssueIndex.Query.not(
+                IssueIndex.Query.or(IssueIndex.Query.field("assignee", "Иванов"), IssueIndex.Query.field("assignee", "Петров"))), 10)));
+
+        IssueIndex.Hit hit = index.search(IssueIndex.Query.field("assignee", "Петров"), 1).get(0);
+        assertEquals(new IssueIndex.Hit("KAN-2", 2000, Map.of("status", "Done", "assignee", "Петров")), hit);
+    }
+
+    /**
+     * Тест проверяет, что знак <code>&lt;</code> в обычном тексте не скрывает термины до следующего <code>&gt;</code>,
+     * а разметка комментариев по-прежнему пропускается.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testLessThanInPlainText() throws IOException {
+        IssueIndex index = new IssueIndex(tempDir, List.of(), 16);
+        index.add(issue("KAN-1", 1000, "Проверка a<b падает", "Open", null));
+        index.addXmlEntry(new IssueXmlEntry.Comment("KAN-1", "1", "ivanov", 0, "<p>если x < 3 то <i>таймаут</i></p>"));
+        index.commit();
+
+        assertEquals(1, index.count(IssueIndex.Query.term("summary", "падает")));
+        assertEquals(1, index.count(IssueIndex.Query.term("summary", "b")));
+        assertEquals(1, index.count(IssueIndex.Query.term("comment", "3 таймаут")));
+        assertEquals(0, index.count(IssueIndex.Query.term("comment", "i")), "разметка не индексируется");
+    }
+
+    /**
+     * Тест проверяет, что комментарии, разобранные до записи задачи, переживают фиксацию между ними, а новая версия
+     * задачи, добавленная без разбора XML-выгрузки, сохраняет комментарии предыдущей.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testCommentsSurviveCommitWindows() throws IOException {
+        IssueIndex index = new IssueIndex(tempDir, List.of("status"), 16);
+        index.addXmlEntry(new IssueXmlEntry.Comment("KAN-1", "1", "ivanov", 0, "<p>Ошибка экспорта</p>"));
+        index.commit();
+        assertEquals(0, index.size());
+        assertEquals(0, index.pendingCount(), "комментарии без задачи не считаются задачами");
+
+        index.add(issue("KAN-1", 1000, "Первая версия", "Open", null));
+        index.commit();
+        assertEquals(1, index.count(IssueIndex.Query.term("comment", "экспорта")));
+
+        index.add(issue("KAN-1", 2000, "Вторая версия", "Done", null));
+        index.commit();
+        assertEquals(List.of("KAN-1"), keys(index.search(IssueIndex.Query.term("comment", "экспорта"), 10)));
+        assertEquals(1, index.count(IssueIndex.Query.and(
+                IssueIndex.Query.term("вторая"), IssueIndex.Query.field("status", "Done"))));
+
+        index.compact();
+        assertEquals(1, index.count(IssueIndex.Query.term("comment", "ошибка")));
+
+        index.addXmlEntry(new IssueXmlEntry.Comment("KAN-9", "2", "ivanov", 0, "потерянный"));
+        for (int i = 0; i <= IssueIndex.MAX_COMMENT_CARRY; i++) {
+            index.commit();
+        }
+        index.add(issue("KAN-9", 3000, "Поздняя запись", "Open", null));
+        index.commit();
+        assertEquals(0, index.count(IssueIndex.Query.term("comment", "потерянный")), "старые комментарии отбрасываются");
+    }
+
+    /**
+     * Тест проверяет инкрементальное обновление: новая версия задачи скрывает предыдущую, индекс сохраняется
+     * между открытиями, а при превышении количества сегментов сегменты объединяются.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testIncrementalUpdatesAndCompaction() throws IOException {
+        IssueIndex index = new IssueIndex(tempDir, List.of("status"), 3);
+        index.add(issue("KAN-1", 1000, "Первая версия", "Open", null));
+        index.add(issue("KAN-2", 1000, "Другая задача", "Open", null));
+        index.commit();
+        index.add(issue("KAN-1", 2000, "Вторая версия", "Done", null));
+        index.commit();
+
+        assertEquals(2, index.size());
+        assertEquals(2, index.segmentCount());
+        assertEquals(0, index.count(IssueIndex.Query.term("первая")));
+        assertEquals(List.of("KAN-1"), keys(index.search(IssueIndex.Query.term("вторая"), 10)));
+        assertEquals(List.of("KAN-2"), keys(index.search(IssueIndex.Query.field("status", "Open"), 10)));
+
+        IssueIndex reopened = new IssueIndex(tempDir, List.of("status"), 3);
+        assertEquals(2, reopened.size());
+        assertEquals(0, reopened.count(IssueIndex.Query.term("первая")));
+
+        reopened.add(issue("KAN-3", 3000, "Третья задача", "Open", null));
+        reopened.commit();
+        reopened.add(issue("KAN-2", 4000, "Другая задача закрыта", "Done", null));
+        reopened.commit();
+        assertEquals(1, reopened.segmentCount(), "сегменты должны объединиться");
+        assertEquals(3, reopened.size());
+        assertEquals(List.of("KAN-2", "KAN-1"), keys(reopened.search(IssueIndex.Query.field("status", "Done"), 10)));
+        assertEquals(List.of("KAN-2", "KAN-3"), keys(reopened.search(IssueIndex.Query.term("задача"), 10)));
+
+        IssueIndex afterCompaction = new IssueIndex(tempDir, List.of("status"), 3);
+        assertEquals(1, afterCompaction.segmentCount());
+        assertEquals(List.of("KAN-3"), keys(afterCompaction.search(IssueIndex.Query.field("status", "Open"), 10)));
+    }
+
+    /**
+     * Тест проверяет, что при превышении количества сегментов объединяются только новые сегменты, а крупный старый
+     * сегмент не переписывается, и что хранилище с индексом фиксирует индекс только по порогу и при закрытии.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testTieredMergeAndCommitThreshold() throws IOException {
+        IssueIndex index = new IssueIndex(tempDir, List.of("status"), 3);
+        for (int i = 1; i <= 10; i++) {
+            index.add(issue("KAN-" + i, 1000, "Задача " + i, "Open", null));
+        }
+        index.commit();
+        index.add(issue("KAN-11", 2000, "Новая задача", "Open", null));
+        index.commit();
+        index.add(issue("KAN-1", 3000, "Исправленная задача", "Done", null));
+        index.commit();
+        index.add(issue("KAN-12", 4000, "Еще задача", "Open", null));
+        index.commit();
+
+        assertEquals(2, index.segmentCount());
+        assertTrue(Files.exists(tempDir.resolve("seg-000000")), "крупный сегмент не должен переписываться");
+        assertEquals(12, index.size());
+        assertEquals(List.of("KAN-1"), keys(index.search(IssueIndex.Query.field("status", "Done"), 10)));
+        assertEquals(1, index.count(IssueIndex.Query.term("исправленная")));
+
+        IssueSink output = new IssueSink() {
+            @Override
+            public void write(IssueRecord record) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IssueIndex indexed = new IssueIndex(tempDir.resolve("sink"), List.of("status"), 16);
+        IssueIndex.IndexingSink sink = new IssueIndex.IndexingSink(output, indexed, 2, 3_600_000);
+        sink.write(issue("KAN-1", 1000, "Первая", "Open", null));
+        sink.flush();
+        assertEquals(0, indexed.segmentCount(), "одна задача не должна фиксироваться отдельным сегментом");
+        sink.write(issue("KAN-2", 1000, "Вторая", "Open", null));
+        sink.flush();
+        assertEquals(1, indexed.segmentCount());
+        sink.write(issue("KAN-3", 1000, "Третья", "Open", null));
+        sink.close();
+        assertEquals(2, indexed.segmentCount());
+        assertEquals(3, indexed.size());
+    }
+}
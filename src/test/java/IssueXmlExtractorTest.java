@@ -0,0 +1,149 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueXmlExtractorTest {
+
+    /** Выгрузка задачи в формате issue-xml. */
+    private static final String XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rss version="0.92">
+            <channel>
+                <title>Jira</title>
+                <item>
+                    <title>[KAN-1] Первая задача</title>
+                    <key id="10001">KAN-1</key>
+                    <summary>Первая задача</summary>
+                    <description>&lt;p&gt;Описание&lt;/p&gt;</description>
+                    <comments>
+                        <comment id="10100" author="ivanov" created="Tue, 2 Jan 2024 10:00:00 +0000">&lt;p&gt;Готово &amp; проверено&lt;/p&gt;</comment>
+                    </comments>
+                    <worklogs>
+                        <worklog id="10200" author="petrov" startDate="Wed, 3 Jan 2024 09:00:00 +0000" timeSpentSeconds="3600">Ревью</worklog>
+                    </worklogs>
+                    <issuelinks>
+                        <issuelinktype id="10000">
+                            <name>Blocks</name>
+                            <outwardlinks description="blocks">
+                                <issuelink><issuekey id="10002">KAN-2</issuekey></issuelink>
+                            </outwardlinks>
+                            <inwardlinks description="is blocked by">
+                                <issuelink><issuekey id="10003">KAN-3</issuekey></issuelink>
+                            </inwardlinks>
+                        </issuelinktype>
+                    </issuelinks>
+                    <attachments>
+                        <attachment id="10300" name="log.txt" size="2048" author="ivanov" created="Tue, 2 Jan 2024 11:00:00 +0000"/>
+                    </attachments>
+                    <customfields>
+                        <customfield id="customfield_10016" key="com.atlassian.jira.plugin.system.customfieldtypes:float">
+                            <customfieldname>Story Points</customfieldname>
+                            <customfieldvalues><customfieldvalue>5.0</customfieldvalue></customfieldvalues>
+                        </customfield>
+                        <customfield id="customfield_10020" key="com.atlassian.jira.plugin.system.customfieldtypes:labels">
+                            <customfieldname>Теги</customfieldname>
+                            <customfieldvalues><label>backend</label><label>urgent</label></customfieldvalues>
+                        </customfield>
+                    </customfields>
+                </item>
+            </channel>
+            </rss>
+            """;
+
+    /** Временный каталог для сохраняемых выгрузок. */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Тест проверяет извлечение комментариев, записей о затраченном времени, связей, вложений
+     * и пользовательских полей в типизированные записи.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testExtractEntries() throws IOException {
+        List<IssueXmlEntry> entries = new ArrayList<>();
+        IssueXmlExtractor.extract(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), entries::add);
+
+        assertEquals(List.of(
+                new IssueXmlEntry.Comment("KAN-1", "10100", "ivanov", 1704189600000L, "<p>Готово & проверено</p>"),
+                new IssueXmlEntry.Worklog("KAN-1", "10200", "petrov", 1704272400000L, 3600, "Ревью"),
+                new IssueXmlEntry.Link("KAN-1", "Blocks", "blocks", true, "KAN-2"),
+                new IssueXmlEntry.Link("KAN-1", "Blocks", "is blocked by", false, "KAN-3"),
+                new IssueXmlEntry.Attachment("KAN-1", "10300", "log.txt", 2048, "ivanov", 1704193200000L),
+                new IssueXmlEntry.CustomField("KAN-1", "customfield_10016",
+                        "com.atlassian.jira.plugin.system.customfieldtypes:float", "Story Points", List.of("5.0")),
+                new IssueXmlEntry.CustomField("KAN-1", "customfield_10020",
+                        "com.atlassian.jira.plugin.system.customfieldtypes:labels", "Теги", List.of("backend", "urgent"))
+        ), entries);
+    }
+
+    /**
+     * Тест проверяет, что при сохранении выгрузки разбор идет по мере чтения потока: первые записи передаются
+     * обработчику до того, как поток прочитан до конца, а файл совпадает с исходным документом байт в байт.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testSaveWhileExtracting() throws IOException {
+        StringBuilder comments = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            comments.append("<comment id=\"").append(i).append("\" author=\"a\">Комментарий ").append(i).append("</comment>\n");
+        }
+        byte[] head = ("<rss><channel><item><key>KAN-7</key><comments>\n" + comments).getBytes(StandardCharsets.UTF_8);
+        byte[] tail = "</comments></item></channel></rss>\n\n".getBytes(StandardCharsets.UTF_8);
+
+        // Второй фрагмент потока отмечает момент, когда парсер дочитал документ до конца
+        AtomicInteger entriesBeforeTail = new AtomicInteger(-1);
+        AtomicInteger seen = new AtomicInteger();
+        InputStream tailStream = new ByteArrayInputStream(tail) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                entriesBeforeTail.compareAndSet(-1, seen.get());
+                return super.read(b, off, len);
+            }
+        };
+        Enumeration<InputStream> parts = Collections.enumeration(List.of(new ByteArrayInputStream(head), tailStream));
+
+        Path target = tempDir.resolve("KAN-7_details.xml");
+        long written = IssueXmlExtractor.saveAndExtract(target, new SequenceInputStream(parts), entry -> {
+            assertEquals("KAN-7", entry.issueKey());
+            seen.incrementAndGet();
+        });
+
+        assertEquals(5_000, seen.get());
+        assertTrue(entriesBeforeTail.get() > 0, "записи должны передаваться до окончания загрузки");
+        assertEquals(head.length + tail.length, written);
+        byte[] saved = Files.readAllBytes(target);
+        assertEquals(new String(head, StandardCharsets.UTF_8) + new String(tail, StandardCharsets.UTF_8),
+                new String(saved, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Тест проверяет, что некорректный документ приводит к ошибке и файл не создается.
+     */
+    @Test
+    void testMalformedXmlIsNotSaved() {
+        Path target = tempDir.resolve("broken.xml");
+        byte[] broken = "<rss><item><key>KAN-1</key><comments></item>".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () ->
+                IssueXmlExtractor.saveAndExtract(target, new ByteArrayInputStream(broken), entry -> { }));
+        assertFalse(Files.exists(target));
+    }
+}
@@ -0,0 +1,116 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.JiraApiClient.LocalJiraServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkHttpIssueBackendTest {
+
+    /** XML-выгрузка, которую возвращает сервер. */
+    private static final String XML = "<rss><channel><item><key>KAN-1</key></item></channel></rss>";
+
+    /** Временный каталог для XML-выгрузок. */
+    @TempDir
+    Path tempDir;
+
+    private LocalJiraServer server;
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+    private volatile String fieldsQuery;
+    private volatile String authorization;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalJiraServer();
+        server.handle("/rest/api/2/issue/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String key = path.substring(path.lastIndexOf('/') + 1);
+            fieldsQuery = exchange.getRequestURI().getQuery();
+            authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (key.equals("KAN-429") && throttledResponses.getAndIncrement() == 0) {
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                respond(exchange, 429, "{}");
+            } else if (key.equals("KAN-404")) {
+                respond(exchange, 404, "{}");
+            } else {
+                respond(exchange, 200, ("{\"key\":\"" + key + "\",\"fields\":{\"summary\":\"Задача " + key + "\","
+                        + "\"status\":{\"name\":\"Open\"},\"updated\":\"2024-01-02T00:00:00.000+0000\"}}"));
+            }
+        });
+        server.handle("/si/", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(XML.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            respond(exchange, 200, compressed.toByteArray());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private JiraConnect newConnect() {
+        PropertiesConfiguration config = server.config();
+        config.setProperty("jira.username", "user");
+        config.setProperty("jira.api.token", "token");
+        config.setProperty("jira.backend", "jdk");
+        config.setProperty("jira.fields", "summary,status");
+        config.setProperty("jira.retry.baseDelayMillis", 1);
+        return new JiraConnect(config);
+    }
+
+    /**
+     * Тест проверяет загрузку выбранных полей задачи и распаковку сжатой XML-выгрузки при записи в файл.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testFetchIssueAndXml() throws IOException {
+        try (IssueBackend backend = IssueBackend.create(newConnect())) {
+            assertInstanceOf(JdkHttpIssueBackend.class, backend);
+
+            IssueRecord record = backend.fetchIssue("KAN-1");
+            assertEquals("KAN-1", record.key());
+            assertEquals("Задача KAN-1", record.field("summary"));
+            assertEquals("Open", record.field("status"));
+            assertTrue(record.updated() > 0);
+            assertEquals("fields=summary,status,updated", fieldsQuery);
+            assertEquals("Basic dXNlcjp0b2tlbg==", authorization);
+
+            Path target = tempDir.resolve("KAN-1_details.xml");
+            assertEquals(XML.length(), backend.downloadIssueXml("KAN-1", target));
+            assertEquals(XML, Files.readString(target));
+        }
+    }
+
+    /**
+     * Тест проверяет, что ответ 429 повторяется, а ответ 404 сообщается исключением с кодом ответа.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testRetryAndHttpError() throws IOException {
+        try (IssueBackend backend = IssueBackend.create(newConnect())) {
+            assertEquals("Задача KAN-429", backend.fetchIssue("KAN-429").field("summary"));
+            assertEquals(2, throttledResponses.get());
+
+            JiraHttpException error = assertThrows(JiraHttpException.class, () -> backend.fetchIssue("KAN-404"));
+            assertEquals(404, error.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JiraJsonTest {
+
+    /** Страница результатов поиска в формате REST API Jira. */
+    private static final String SEARCH_PAGE = """
+            {"expand":"names,schema","startAt":0,"maxResults":2,"total":5,
+             "issues":[
+              {"expand":"","id":"10001","self":"https://jira/rest/api/2/issue/10001","key":"KAN-1",
+               "fields":{"summary":"Первая задача","description":{"nested":{"deep":[1,2,3]}},
+                         "status":{"self":"https://jira/status/1","name":"Open","id":"1"},
+                         "assignee":{"name":"jdoe","displayName":"John Doe","active":true},
+                         "labels":["a","b"],"components":[{"id":"1","name":"API"},{"id":"2","name":"UI"}],
+                         "customfield_10010":3.5,
+                         "updated":"2024-01-15T10:20:30.123+0000"}},
+              {"id":"10002","key":"KAN-2",
+               "fields":{"summary":"Вторая","status":{"name":"Done"},"assignee":null,
+                         "updated":"2024-01-16T00:00:00.000+0300"}}
+             ]}
+            """;
+
+    /**
+     * Тест проверяет разбор страницы поиска: выбираются только запрошенные поля, объекты сводятся
+     * к отображаемому имени, массивы перечисляются, время обновления разбирается.
+     *
+     * @throws IOException если возникает ошибка разбора
+     */
+    @Test
+    void testReadSearchPage() throws IOException {
+        List<IssueRecord> records = new ArrayList<>();
+        IssueProjection.SearchPage page = JiraJson.readSearchPage(
+                new ByteArrayInputStream(SEARCH_PAGE.getBytes(StandardCharsets.UTF_8)),
+                List.of("summary", "status", "assignee", "labels", "components", "customfield_10010", "priority"),
+                records::add);
+
+        assertEquals(5, page.total());
+        assertEquals(2, page.maxResults());
+        assertEquals(2, page.issues());
+
+        IssueRecord first = records.get(0);
+        assertEquals("KAN-1", first.key());
+        assertEquals(JiraJson.parseDateTime("2024-01-15T10:20:30.123+0000"), first.updated());
+        assertEquals(List.of("summary", "status", "assignee", "labels", "components", "customfield_10010", "priority"),
+                List.copyOf(first.fields().keySet()));
+        assertEquals("Первая задача", first.field("summary"));
+        assertEquals("Open", first.field("status"));
+        assertEquals("John Doe", first.field("assignee"));
+        assertEquals("a, b", first.field("labels"));
+        assertEquals("API, UI", first.field("components"));
+        assertEquals("3.5", first.field("customfield_10010"));
+        assertNull(first.field("priority"));
+        assertFalse(first.fields().containsKey("description"));
+
+        IssueRecord second = records.get(1);
+        assertEquals("Done", second.field("status"));
+        assertNull(second.field("assignee"));
+        assertEquals(JiraJson.parseDateTime("2024-01-15T21:00:00.000+0000"), second.updated());
+    }
+
+    /**
+     * Тест проверяет, что запись задачи сохраняется и читается без потерь, включая пустые значения и переводы строк.
+     *
+     * @throws IOException если возникает ошибка записи или разбора
+     */
+    @Test
+    void testIssueRecordRoundTrip() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("summary", "Строка с \"кавычками\"\nи переводом строки");
+        fields.put("assignee", null);
+        IssueRecord record = new IssueRecord("KAN-7", 1_700_000_000_123L, fields);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JiraJson.writeIssueRecord(out, record);
+        byte[] data = out.toByteArray();
+
+        assertFalse(new String(data, StandardCharsets.UTF_8).contains("\n"), "Запись должна занимать одну строку");
+        assertEquals(record, JiraJson.readIssueRecord(data, 0, data.length));
+    }
+}
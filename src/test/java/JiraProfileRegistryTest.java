@@ -0,0 +1,138 @@
+package org.JiraApiClient;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JiraProfileRegistryTest {
+
+    /** Временный каталог с файлом профилей. */
+    @TempDir
+    Path tempDir;
+
+    private Path writeProfiles(String... lines) throws IOException {
+        Path file = tempDir.resolve("profiles.properties");
+        Path temp = tempDir.resolve("profiles.tmp");
+        Files.write(temp, List.of(lines));
+        return Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static PropertiesConfiguration base() {
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setProperty("jira.url", "https://base.example.net");
+        config.setProperty("jira.username", "base");
+        config.setProperty("jira.output.dir", "out");
+        return config;
+    }
+
+    /**
+     * Тест проверяет наложение параметров профиля на основную конфигурацию, разделение каталогов по профилям,
+     * кэширование профилей и параллельное выполнение задачи со сводными результатами и ограничением
+     * одновременных задач профиля.
+     *
+     * @throws Exception если возникает ошибка выполнения
+     */
+    @Test
+    void testProfilesAndFanOut() throws Exception {
+        Path file = writeProfiles(
+                "profiles=siteA, siteB",
+                "siteA.jira.url=https://a.example.net",
+                "siteA.jira.rate.requestsPerSecond=30",
+                "siteA.maxConcurrentTasks=2",
+                "siteB.jira.username=robot",
+                "siteB.jira.cache.dir=/var/cache/b");
+        try (JiraProfileRegistry registry = new JiraProfileRegistry(file, base())) {
+            assertEquals(List.of("siteA", "siteB"), registry.names());
+            JiraConnect a = registry.get("siteA").getJiraConnect();
+            JiraConnect b = registry.get("siteB").getJiraConnect();
+            assertEquals("https://a.example.net", a.getJiraUrl());
+            assertEquals("base", a.getJiraUsername());
+            assertEquals(30, a.getRateRequestsPerSecond());
+            assertEquals("https://base.example.net", b.getJiraUrl());
+            assertEquals("robot", b.getJiraUsername());
+            assertEquals(Path.of("out", "siteA").toString(), a.getOutputDir());
+            assertEquals("/var/cache/b", b.getCacheDir());
+            assertSame(registry.get("siteA"), registry.get("siteA"));
+            assertSame(registry.get("siteA").getClientHolder(), registry.get("siteA").getClientHolder());
+            assertThrows(IllegalArgumentException.class, () -> registry.get("siteC"));
+
+            JiraProfileRegistry.FanOutResult<String> result = registry.fanOut(List.of("siteA", "siteB"), profile -> {
+                if (profile.getName().equals("siteB")) {
+                    throw new IllegalStateException("нет доступа");
+                }
+                return profile.getJiraConnect().getJiraUrl();
+            });
+            assertEquals("https://a.example.net", result.results().get("siteA"));
+            assertInstanceOf(IllegalStateException.class, result.failures().get("siteB"));
+            assertFalse(result.isSuccessful());
+
+            // Шесть задач профиля siteA выполняются не больше чем по две одновременно
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            JiraProfileRegistry.FanOutResult<Object> limited = registry.fanOut(Collections.nCopies(6, "siteA"), profile -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                running.decrementAndGet();
+                return profile.getName();
+            });
+            assertTrue(limited.isSuccessful());
+            assertEquals(2, peak.get());
+        }
+    }
+
+    /**
+     * Тест проверяет распределение ключей между учетными записями пропорционально их частоте запросов.
+     */
+    @Test
+    void testPartitionByRate() {
+        List<String> keys = IntStream.rangeClosed(1, 30).mapToObj(i -> "KAN-" + i).toList();
+        List<List<String>> parts = JiraProfileRegistry.partition(keys, new double[]{20, 10});
+        assertEquals(20, parts.get(0).size());
+        assertEquals(10, parts.get(1).size());
+        assertEquals(30, parts.stream().flatMap(List::stream).distinct().count());
+    }
+
+    /**
+     * Тест проверяет перечитывание измененного файла профилей отслеживанием: неизмененный профиль сохраняется,
+     * измененный заменяется, удаленный становится недоступен, а некорректный файл не сбрасывает профили.
+     *
+     * @throws Exception если возникает ошибка выполнения
+     */
+    @Test
+    void testHotReload() throws Exception {
+        Path file = writeProfiles("profiles=siteA,siteB", "siteA.jira.url=https://a.example.net",
+                "siteB.jira.url=https://b.example.net");
+        try (JiraProfileRegistry registry = new JiraProfileRegistry(file, base())) {
+            registry.startWatching();
+            JiraProfileRegistry.Profile a = registry.get("siteA");
+            JiraProfileRegistry.Profile b = registry.get("siteB");
+
+            writeProfiles("profiles=siteA,siteC", "siteA.jira.url=https://a.example.net",
+                    "siteC.jira.url=https://c.example.net");
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (!registry.names().contains("siteC") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of("siteA", "siteC"), registry.names());
+            assertSame(a, registry.get("siteA"));
+            assertThrows(IllegalArgumentException.class, () -> registry.get("siteB"));
+            assertNotSame(b, registry.get("siteC"));
+
+            assertFalse(registry.reload());
+            Files.delete(file);
+            assertThrows(IOException.class, registry::reload);
+            assertEquals(List.of("siteA", "siteC"), registry.names());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JiraThrottleTest {
+
+    /**
+     * Создает регулятор с короткими задержками для тестов.
+     */
+    private static JiraThrottle newThrottle(AimdConcurrencyLimiter limiter, int maxAttempts) {
+        return new JiraThrottle(new RateLimiter(1000, 1000), limiter, maxAttempts, 1, 5, 1_000);
+    }
+
+    /**
+     * Тест проверяет, что ответы 429 повторяются, а предел параллелизма уменьшается.
+     *
+     * @throws IOException если запрос завершился ошибкой
+     */
+    @Test
+    void testRetriesThrottledRequests() throws IOException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(8, 1, 16, 0);
+        JiraThrottle throttle = newThrottle(limiter, 5);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = throttle.call(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ThrottledException(429, 0);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, throttle.getRetries());
+        assertEquals(2, throttle.getThrottledResponses());
+        assertEquals(2, limiter.getLimit(), "Предел должен уменьшиться вдвое после каждого отказа.");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Тест проверяет, что после исчерпания попыток исключение передается вызывающему.
+     */
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        JiraThrottle throttle = newThrottle(new AimdConcurrencyLimiter(4, 1, 16, 0), 3);
+        AtomicInteger calls = new AtomicInteger();
+
+        ThrottledException error = assertThrows(ThrottledException.class, () -> throttle.call(() -> {
+            calls.incrementAndGet();
+            throw new ThrottledException(503, -1);
+        }));
+
+        assertEquals(503, error.getStatusCode());
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * Тест проверяет, что ошибки, не связанные с ограничением частоты, не повторяются.
+     */
+    @Test
+    void testDoesNotRetryOtherErrors() {
+        JiraThrottle throttle = newThrottle(new AimdConcurrencyLimiter(4, 1, 16, 0), 5);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> throttle.call(() -> {
+            calls.incrementAndGet();
+            throw new IOException("HTTP 404");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Тест проверяет аддитивное увеличение предела после успешных запросов.
+     *
+     * @throws ThrottledException если сервер требует ждать дольше допустимого
+     */
+    @Test
+    void testAdditiveIncrease() throws ThrottledException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 3, 0);
+        JiraThrottle throttle = newThrottle(limiter, 1);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.call(() -> null);
+        }
+
+        assertEquals(3, limiter.getLimit(), "Предел растет, но не превышает максимум.");
+    }
+
+    /**
+     * Тест проверяет, что место в пределе параллелизма удерживается до освобождения результата,
+     * а задержка <code>Retry-After</code> выдерживается полностью, даже если она больше задержки повтора.
+     *
+     * @throws IOException если запрос завершился ошибкой
+     */
+    @Test
+    void testHeldPermitAndFullRetryAfter() throws IOException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 1, 16, 0);
+        JiraThrottle throttle = newThrottle(limiter, 3);
+        AtomicInteger calls = new AtomicInteger();
+        Runnable[] release = new Runnable[1];
+
+        long start = System.nanoTime();
+        String result = throttle.call(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ThrottledException(429, 200);
+            }
+            return "тело";
+        }, (body, onClose) -> {
+            release[0] = onClose;
+            return body;
+        });
+        assertTrue(System.nanoTime() - start >= 190_000_000L, "повтор не раньше, чем разрешил сервер");
+
+        assertEquals("тело", result);
+        assertEquals(1, limiter.getInFlight(), "место занято, пока тело ответа не прочитано");
+        release[0].run();
+        release[0].run();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Тест проверяет, что слишком долгий <code>Retry-After</code> не повторяется раньше срока:
+     * запрос и следующие за ним запросы сразу завершаются ошибкой.
+     */
+    @Test
+    void testFailsFastOnRetryAfterAboveCeiling() {
+        JiraThrottle throttle = newThrottle(new AimdConcurrencyLimiter(4, 1, 16, 0), 5);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ThrottledException error = assertThrows(ThrottledException.class, () -> throttle.call(() -> {
+            calls.incrementAndGet();
+            throw new ThrottledException(429, 60_000);
+        }));
+        assertEquals(60_000, error.getRetryAfterMillis());
+        assertEquals(1, calls.get());
+
+        assertThrows(ThrottledException.class, () -> throttle.call(() -> calls.incrementAndGet()));
+        assertEquals(1, calls.get(), "пока действует пауза сервера, запросы не отправляются");
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "ожидание паузы не должно начинаться");
+    }
+
+    /**
+     * Тест проверяет разбор заголовка Retry-After.
+     */
+    @Test
+    void testParseRetryAfter() {
+        assertEquals(120_000, JiraThrottle.parseRetryAfterMillis("120"));
+        assertEquals(-1, JiraThrottle.parseRetryAfterMillis(null));
+        assertEquals(-1, JiraThrottle.parseRetryAfterMillis("скоро"));
+        assertEquals(0, JiraThrottle.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
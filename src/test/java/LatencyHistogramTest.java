@@ -0,0 +1,52 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    /**
+     * Тест проверяет, что номера интервалов монотонны, а середина интервала отличается от значения не более чем на 1,6%.
+     */
+    @Test
+    void testBucketPrecision() {
+        int previous = -1;
+        for (long micros = 0; micros < 10_000_000; micros += 1 + micros / 97) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            assertTrue(index >= previous, "Номер интервала должен расти вместе со значением");
+            previous = index;
+            long midpoint = LatencyHistogram.bucketMidpoint(index);
+            assertTrue(Math.abs(midpoint - micros) <= Math.max(1, micros * 0.016), "Погрешность для " + micros);
+        }
+        assertTrue(LatencyHistogram.bucketIndex(Long.MAX_VALUE) >= 0);
+    }
+
+    /**
+     * Тест проверяет вычисление процентилей, среднего и максимума.
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getPercentileMillis(50), 50 * 0.016);
+        assertEquals(99, histogram.getPercentileMillis(99), 99 * 0.016);
+        assertEquals(100, histogram.getMaxMillis(), 0.001);
+        assertEquals(50.5, histogram.getMeanMillis(), 0.001);
+        assertEquals(5.05, histogram.getSumSeconds(), 0.0001);
+    }
+
+    /**
+     * Тест проверяет, что у пустой гистограммы процентили равны нулю.
+     */
+    @Test
+    void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(99));
+        assertEquals(0, histogram.getMeanMillis());
+    }
+}
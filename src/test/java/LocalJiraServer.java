@@ -0,0 +1,122 @@
+package org.JiraApiClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Локальный HTTP-сервер, заменяющий Jira в тестах.
+ * <p>
+ * Сервер запускается на свободном порту; обработчики путей регистрирует сам тест.
+ * </p>
+ */
+final class LocalJiraServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    /**
+     * Запускает сервер на свободном локальном порту.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    LocalJiraServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+    }
+
+    /**
+     * Регистрирует обработчик запросов, путь которых начинается с <code>path</code>.
+     *
+     * @param path    префикс пути
+     * @param handler обработчик
+     * @return этот сервер
+     */
+    LocalJiraServer handle(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+        return this;
+    }
+
+    /**
+     * Возвращает базовый URL сервера.
+     *
+     * @return URL вида <code>http://127.0.0.1:&lt;порт&gt;</code>
+     */
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Создает конфигурацию, направленную на этот сервер; тест дополняет ее своими параметрами.
+     *
+     * @return конфигурация с параметром <code>jira.url</code>
+     */
+    PropertiesConfiguration config() {
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setProperty("jira.url", url());
+        return config;
+    }
+
+    /**
+     * Отправляет ответ и закрывает обмен.
+     *
+     * @param exchange обмен
+     * @param status   код ответа
+     * @param body     тело ответа
+     * @throws IOException при ошибке записи
+     */
+    static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Отправляет текстовый ответ в кодировке UTF-8 и закрывает обмен.
+     *
+     * @param exchange обмен
+     * @param status   код ответа
+     * @param body     тело ответа
+     * @throws IOException при ошибке записи
+     */
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Возвращает значение параметра строки запроса.
+     *
+     * @param exchange обмен
+     * @param name     имя параметра
+     * @return значение или <code>null</code>, если параметра нет
+     */
+    static String param(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Останавливает сервер.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
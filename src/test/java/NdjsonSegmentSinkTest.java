@@ -0,0 +1,149 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonSegmentSinkTest {
+
+    /** Временный каталог для сегментов. */
+    @TempDir
+    Path tempDir;
+
+    private static IssueRecord record(int i) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("summary", "Задача \"" + i + "\"\nс переводом строки");
+        fields.put("assignee", i % 2 == 0 ? null : "user" + i);
+        return new IssueRecord("KAN-" + i, 1_700_000_000_000L + i, fields);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().contains(".ndjson")).sorted().toList();
+        }
+    }
+
+    /**
+     * Тест проверяет, что записи доступны по ключу после фиксации, а каждая задача занимает одну строку.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testWriteAndReadByKey() throws IOException {
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1 << 20, NdjsonSegmentSink.Compression.NONE, 16)) {
+            for (int i = 0; i < 100; i++) {
+                sink.write(record(i));
+            }
+            sink.flush();
+
+            assertEquals(100, sink.size());
+            assertEquals(record(42), sink.read("KAN-42"));
+            assertEquals(record(7), sink.read("KAN-7"));
+            assertNull(sink.read("KAN-1000"));
+        }
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        assertEquals(100, Files.readAllLines(segments.get(0), StandardCharsets.UTF_8).size());
+    }
+
+    /**
+     * Тест проверяет переход на новый сегмент по размеру и загрузку индекса при повторном открытии.
+     * Повторно записанная задача читается в последней версии.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testRolloverAndReopen() throws IOException {
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1024, NdjsonSegmentSink.Compression.NONE, 4)) {
+            for (int i = 0; i < 50; i++) {
+                sink.write(record(i));
+                sink.flush();
+            }
+        }
+        assertTrue(segments().size() > 1, "Ожидалось несколько сегментов");
+
+        IssueRecord updated = IssueRecord.ofSummary("KAN-3", 1_800_000_000_000L, "Новый заголовок");
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1024, NdjsonSegmentSink.Compression.NONE, 4)) {
+            assertEquals(50, sink.size());
+            assertEquals(record(0), sink.read("KAN-0"));
+            assertEquals(record(49), sink.read("KAN-49"));
+
+            sink.write(updated);
+            sink.flush();
+            assertEquals(updated.fields(), sink.read("KAN-3").fields());
+        }
+    }
+
+    /**
+     * Тест проверяет, что при повторном открытии отбрасываются строки индекса, оставшиеся от прерванной фиксации:
+     * указывающие за конец сегмента и оборванные без перевода строки.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testIgnoresIndexEntriesOfLostBlocks() throws IOException {
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1 << 20, NdjsonSegmentSink.Compression.NONE, 8)) {
+            sink.write(record(1));
+            sink.flush();
+        }
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        Files.writeString(tempDir.resolve("segment-000000.idx"), "KAN-2\t" + size + "\t0\nKAN-1\t0\t1",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1 << 20, NdjsonSegmentSink.Compression.NONE, 8)) {
+            assertEquals(1, sink.size());
+            assertNull(sink.read("KAN-2"), "блок не попал в сегмент");
+            assertEquals(record(1), sink.read("KAN-1"), "оборванная строка индекса не заменяет целую");
+        }
+    }
+
+    /**
+     * Тест проверяет, что сжатый сегмент читается целиком как обычный файл gzip и поддерживает чтение по ключу.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testGzipSegments() throws IOException {
+        try (NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1 << 20, NdjsonSegmentSink.Compression.GZIP, 8)) {
+            for (int i = 0; i < 30; i++) {
+                sink.write(record(i));
+            }
+            sink.flush();
+            assertEquals(record(25), sink.read("KAN-25"));
+        }
+
+        Path segment = segments().get(0);
+        assertTrue(segment.getFileName().toString().endsWith(".ndjson.gz"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+            assertEquals(30, reader.lines().count());
+        }
+    }
+
+    /**
+     * Тест проверяет, что после закрытия хранилище не принимает записи.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testWriteAfterCloseFails() throws IOException {
+        NdjsonSegmentSink sink = new NdjsonSegmentSink(tempDir, 1 << 20, NdjsonSegmentSink.Compression.NONE, 8);
+        sink.close();
+        assertThrows(IOException.class, () -> sink.write(record(1)));
+    }
+}
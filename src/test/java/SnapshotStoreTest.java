@@ -0,0 +1,142 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    /** Временный каталог хранилища. */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Создает запись задачи с длинным описанием, чтобы разность была заметно меньше полного содержимого.
+     */
+    private static IssueRecord issue(String key, long updated, String status) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("summary", "Задача " + key);
+        fields.put("status", status);
+        fields.put("description", ("Подробное описание задачи " + key + ". ").repeat(40));
+        return new IssueRecord(key, updated, fields);
+    }
+
+    private long objectCount() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * Тест проверяет, что неизмененные задачи не сохраняются повторно, измененные сохраняются разностью,
+     * а любое состояние читается на момент нужного снимка.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testDeduplicationDeltasAndReadAsOf() throws IOException {
+        SnapshotStore store = new SnapshotStore(tempDir, true, 8);
+        try (SnapshotStore.SnapshotWriter day1 = store.begin("20240101T000000Z", false)) {
+            for (int i = 1; i <= 10; i++) {
+                day1.write(issue("KAN-" + i, 1000, "Open"));
+            }
+            assertEquals(10, day1.getStats().fullObjects());
+        }
+        assertEquals(10, objectCount());
+
+        SnapshotStore.SnapshotWriter day2 = store.begin("20240102T000000Z", false);
+        for (int i = 1; i <= 10; i++) {
+            // Поля в другом порядке дают то же нормализованное содержимое
+            IssueRecord record = issue("KAN-" + i, 1000, "Open");
+            Map<String, String> reordered = new LinkedHashMap<>();
+            List.of("description", "status", "summary").forEach(name -> reordered.put(name, record.field(name)));
+            day2.write(i == 3 ? issue("KAN-3", 2000, "Done") : new IssueRecord(record.key(), 1000, reordered));
+        }
+        day2.close();
+
+        SnapshotStore.SnapshotStats stats = day2.getStats();
+        assertEquals(9, stats.unchanged());
+        assertEquals(1, stats.deltaObjects());
+        assertEquals(0, stats.fullObjects());
+        assertTrue(stats.bytesStored() < 100, "разность должна быть маленькой: " + stats.bytesStored());
+        assertEquals(11, objectCount());
+
+        assertEquals(List.of("20240101T000000Z", "20240102T000000Z"), store.snapshots());
+        assertEquals("Open", store.readAsOf("20240101T000000Z", "KAN-3").field("status"));
+        assertEquals("Done", store.readAsOf("20240102T000000Z", "KAN-3").field("status"));
+        assertEquals(2000, store.readAsOf("20240102T120000Z", "KAN-3").updated());
+        assertEquals(issue("KAN-3", 2000, "Done").field("description"), store.readAsOf("20240103", "KAN-3").field("description"));
+        assertNull(store.readAsOf("20231231T000000Z", "KAN-3"));
+        assertNull(store.readAsOf("20240102T000000Z", "KAN-404"));
+    }
+
+    /**
+     * Тест проверяет ограничение длины цепочки разностей и перенос невыгруженных задач в новый снимок.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testDeltaChainLimitAndCarryForward() throws IOException {
+        SnapshotStore store = new SnapshotStore(tempDir, true, 2);
+        try (SnapshotStore.SnapshotWriter writer = store.begin("s0", false)) {
+            writer.write(issue("KAN-1", 0, "Open"));
+            writer.write(issue("KAN-2", 0, "Open"));
+        }
+        long[] fullObjects = new long[4];
+        for (int version = 1; version <= 3; version++) {
+            try (SnapshotStore.SnapshotWriter writer = store.begin("s" + version, true)) {
+                writer.write(issue("KAN-1", version, "Версия " + version));
+                fullObjects[version] = writer.getStats().fullObjects();
+            }
+        }
+        // Две разности подряд, затем цепочка начинается заново с полного содержимого
+        assertArrayEquals(new long[]{0, 0, 0, 1}, fullObjects);
+        for (int version = 1; version <= 3; version++) {
+            assertEquals("Версия " + version, store.readAsOf("s" + version, "KAN-1").field("status"));
+        }
+        assertEquals("Open", store.readAsOf("s3", "KAN-2").field("status"));
+
+        assertThrows(IllegalArgumentException.class, () -> store.begin("s2", true));
+    }
+
+    /**
+     * Тест проверяет, что одновременно начатые снимки одного хранилища получают разные возрастающие идентификаторы,
+     * а слишком большая длина цепочки разностей ограничивается 127.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testConcurrentSnapshotIdsAndChainClamp() throws IOException {
+        SnapshotStore first = new SnapshotStore(tempDir, true, 1000);
+        SnapshotStore second = new SnapshotStore(tempDir, true, 1000);
+        SnapshotStore.SnapshotWriter a = first.begin(false);
+        SnapshotStore.SnapshotWriter b = second.begin(false);
+        assertTrue(a.getSnapshotId().compareTo(b.getSnapshotId()) < 0, a.getSnapshotId() + " < " + b.getSnapshotId());
+        b.close();
+        a.close();
+        SnapshotStore.SnapshotWriter c = first.begin(false);
+        c.close();
+        assertEquals(List.of(a.getSnapshotId(), b.getSnapshotId(), c.getSnapshotId()), first.snapshots());
+
+        long fullObjects = 0;
+        for (int version = 0; version <= 128; version++) {
+            try (SnapshotStore.SnapshotWriter writer = first.begin(true)) {
+                writer.write(issue("KAN-1", version, "Версия " + version));
+                fullObjects += writer.getStats().fullObjects();
+            }
+        }
+        // Первая версия и версия после 127 разностей подряд хранятся полностью
+        assertEquals(2, fullObjects);
+        assertEquals("Версия 128", first.readAsOf(first.snapshots().get(first.snapshots().size() - 1), "KAN-1")
+                .field("status"));
+    }
+}
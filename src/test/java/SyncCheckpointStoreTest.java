@@ -0,0 +1,55 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncCheckpointStoreTest {
+
+    /** Временный каталог контрольных точек. */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Тест проверяет, что отсутствующая контрольная точка загружается как <code>null</code>.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testMissingCheckpoint() throws IOException {
+        assertNull(new SyncCheckpointStore(tempDir).load("KAN"));
+    }
+
+    /**
+     * Тест проверяет сохранение и повторную загрузку контрольной точки.
+     *
+     * @throws IOException если возникает ошибка ввода-вывода
+     */
+    @Test
+    void testSaveAndLoad() throws IOException {
+        SyncCheckpointStore store = new SyncCheckpointStore(tempDir);
+        SyncCheckpointStore.Checkpoint checkpoint = new SyncCheckpointStore.Checkpoint(1_700_000_000_000L, Set.of("KAN-1", "KAN-7"));
+
+        store.save("KAN", checkpoint);
+
+        assertEquals(checkpoint, store.load("KAN"));
+    }
+
+    /**
+     * Тест проверяет отсев задач, уже синхронизированных до контрольной точки.
+     */
+    @Test
+    void testCovers() {
+        SyncCheckpointStore.Checkpoint checkpoint = new SyncCheckpointStore.Checkpoint(1000L, Set.of("KAN-1"));
+
+        assertTrue(checkpoint.covers("KAN-2", 999L), "Задачи, обновленные раньше контрольной точки, пропускаются.");
+        assertTrue(checkpoint.covers("KAN-1", 1000L), "Уже записанная задача с тем же временем пропускается.");
+        assertFalse(checkpoint.covers("KAN-3", 1000L), "Новая задача с тем же временем выгружается.");
+        assertFalse(checkpoint.covers("KAN-1", 1001L), "Измененная задача выгружается.");
+    }
+}
@@ -0,0 +1,194 @@
+package org.JiraApiClient;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /** Обработчик, запоминающий вызовы. */
+    private static final class RecordingHandler implements WebhookServer.ChangeHandler {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void issueChanged(String issueKey) {
+            calls.add("changed " + issueKey);
+        }
+
+        @Override
+        public void issueDeleted(String issueKey) {
+            calls.add("deleted " + issueKey);
+        }
+    }
+
+    private static byte[] payload(String name) throws IOException {
+        try (InputStream in = WebhookServerTest.class.getResourceAsStream("/webhooks/" + name)) {
+            assertNotNull(in, "нет записанного веб-хука " + name);
+            return in.readAllBytes();
+        }
+    }
+
+    private int post(WebhookServer server, byte[] body, String identifier, String signature) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/webhook"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (identifier != null) {
+            request.header(WebhookServer.IDENTIFIER_HEADER, identifier);
+        }
+        if (signature != null) {
+            request.header(WebhookServer.SIGNATURE_HEADER, signature);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void awaitStats(WebhookServer server, int handled) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            WebhookServer.WebhookStats stats = server.getStats();
+            if (stats.changed() + stats.deleted() >= handled) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("события не обработаны: " + server.getStats());
+    }
+
+    /**
+     * Тест проверяет, что серия записанных веб-хуков по одной задаче приводит к одной повторной выгрузке,
+     * повторные доставки отбрасываются, а удаление задачи передается отдельно. Также проверяются отбрасывание
+     * событий с некорректным ключом, отказ для слишком большого тела и запрет приема без подписи на внешнем адресе.
+     *
+     * @throws Exception если возникает ошибка запроса
+     */
+    @Test
+    void testDebounceAndDeduplicateRecordedPayloads() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        try (WebhookServer server = new WebhookServer("127.0.0.1", 0, "/webhook", "", 200, 5000, handler)) {
+            byte[] updated = payload("jira_issue_updated.json");
+            for (int i = 0; i < 5; i++) {
+                assertEquals(202, post(server, updated, "delivery-" + i, null));
+            }
+            assertEquals(202, post(server, updated, "delivery-4", null));
+            assertEquals(202, post(server, payload("jira_issue_deleted.json"), "delivery-5", null));
+            assertEquals(202, post(server, "{\"webhookEvent\":\"project_created\"}".getBytes(StandardCharsets.UTF_8), null, null));
+            assertEquals(400, post(server, "не JSON".getBytes(StandardCharsets.UTF_8), null, null));
+            assertEquals(202, post(server, new String(updated, StandardCharsets.UTF_8).replace("KAN-1", "../../KAN-1")
+                    .getBytes(StandardCharsets.UTF_8), "delivery-6", null));
+            assertEquals(413, post(server, new byte[WebhookServer.MAX_BODY_BYTES + 1], null, null));
+
+            awaitStats(server, 2);
+            Thread.sleep(300);
+            assertEquals(List.of("changed KAN-1", "deleted KAN-2"), handler.calls.stream().sorted().toList());
+            WebhookServer.WebhookStats stats = server.getStats();
+            assertEquals(6, stats.received());
+            assertEquals(1, stats.duplicates());
+            assertEquals(4, stats.coalesced());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new WebhookServer("0.0.0.0", 0, "/webhook", "", 200, 5000, handler));
+    }
+
+    /**
+     * Тест проверяет, что события, пришедшие во время обработки задачи, приводят к еще одной выгрузке после нее,
+     * а не к параллельной, и что при заданном секрете запросы без верной подписи отклоняются.
+     *
+     * @throws Exception если возникает ошибка запроса
+     */
+    @Test
+    void testEventsDuringProcessingAndSignature() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        WebhookServer.ChangeHandler slow = new WebhookServer.ChangeHandler() {
+            @Override
+            public void issueDeleted(String issueKey) {
+                calls.add("deleted");
+            }
+
+            @Override
+            public void issueChanged(String issueKey) {
+                calls.add("start");
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                calls.add("end");
+            }
+        };
+        String secret = "s3cr3t";
+        try (WebhookServer server = new WebhookServer("127.0.0.1", 0, "/webhook", secret, 50, 1000, slow)) {
+            byte[] body = payload("jira_issue_updated.json");
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String signature = "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+
+            assertEquals(401, post(server, body, null, null));
+            assertEquals(401, post(server, body, null, "sha256=00"));
+            assertEquals(202, post(server, body, null, signature));
+            awaitStats(server, 1);
+            Thread.sleep(100);
+            assertEquals(202, post(server, body, null, signature));
+            awaitStats(server, 2);
+            Thread.sleep(400);
+
+            assertEquals(List.of("start", "end", "start", "end"), calls);
+            assertEquals(2, server.getStats().received());
+        }
+    }
+
+    /**
+     * Тест проверяет, что первая сверка выполняется сразу после запуска, а сверка, которая длится дольше периода,
+     * не перекрывается следующей.
+     *
+     * @throws Exception если возникает ошибка запроса
+     */
+    @Test
+    void testReconciliationRunsAtStartupWithoutOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger sweeps = new AtomicInteger();
+        WebhookServer.ChangeHandler handler = new WebhookServer.ChangeHandler() {
+            @Override
+            public void issueChanged(String issueKey) {
+            }
+
+            @Override
+            public void issueDeleted(String issueKey) {
+            }
+
+            @Override
+            public void reconcile() throws InterruptedException {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                sweeps.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        try (WebhookServer server = new WebhookServer("127.0.0.1", 0, "/webhook", "", 50, 1000, handler)) {
+            server.scheduleReconciliation(20);
+            Thread.sleep(100);
+            assertEquals(1, sweeps.get(), "первая сверка начинается сразу после запуска");
+            Thread.sleep(400);
+        }
+        assertTrue(sweeps.get() >= 2, "сверки продолжаются после завершения предыдущей");
+        assertEquals(0, overlaps.get(), "сверки не должны выполняться параллельно");
+    }
+}